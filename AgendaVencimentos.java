@@ -0,0 +1,269 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dao.EmprestimoDAO;
+import com.biblioteca.dao.EstatisticasDAO;
+import com.biblioteca.utils.LogManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agenda em memória dos vencimentos dos empréstimos ativos.
+ *
+ * <p>Os empréstimos ativos ficam ordenados pela data de devolução prevista,
+ * carregados uma vez na inicialização e mantidos pelo {@link CirculacaoService}
+ * a cada empréstimo, renovação e devolução. Na virada do dia, a agenda marca
+ * como ATRASADO os empréstimos que acabaram de vencer, pela chave primária, em
+ * lotes de {@value #LOTE} por transação — sem varrer a tabela —, e em seguida
+ * dispara a verificação de avisos. Assim o status muda no início do dia, e não
+ * na próxima execução da verificação periódica, que continua como
+ * reconciliação de alterações feitas fora da aplicação.</p>
+ *
+ * <p>Um empréstimo só sai da agenda, e só entra na contagem de atrasados do
+ * painel, depois que o seu lote for gravado; os de um lote que falhar
+ * continuam na agenda e são tentados de novo após {@value #ESPERA_FALHA_MS} ms.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class AgendaVencimentos {
+
+    /** Empréstimos marcados por transação */
+    private static final int LOTE = 500;
+
+    /** Espera após a meia-noite, para que o relógio do banco também já esteja no novo dia */
+    private static final long MARGEM_MS = 2000;
+
+    /** Espera antes de tentar de novo os lotes que falharam */
+    private static final long ESPERA_FALHA_MS = 5 * 60 * 1000;
+
+    private static final EmprestimoDAO DAO = new EmprestimoDAO();
+
+    /** Empréstimos ativos por data de devolução prevista */
+    private static final TreeMap<LocalDate, Set<Integer>> POR_VENCIMENTO = new TreeMap<>();
+
+    /** Data prevista de cada empréstimo da agenda */
+    private static final Map<Integer, LocalDate> POR_ID = new HashMap<>();
+
+    /** Devoluções ocorridas durante a carga, que a carga não deve reinserir */
+    private static final Set<Integer> REMOVIDOS_NA_CARGA = new HashSet<>();
+
+    /** Vencidos cuja marcação falhou e que ainda não entraram na contagem do painel */
+    private static final Set<Integer> NAO_CONTADOS = new HashSet<>();
+
+    private static boolean carregando;
+
+    /** Dia da última virada processada: vencimentos anteriores a ele já constavam como atrasados */
+    private static LocalDate ultimoDia;
+
+    private static Runnable aoVirarDia;
+
+    private static ScheduledExecutorService executor;
+
+    /**
+     * Construtor privado para evitar instanciação.
+     */
+    private AgendaVencimentos() {
+        throw new UnsupportedOperationException("Classe utilitária não pode ser instanciada");
+    }
+
+    /**
+     * Carrega os vencimentos em segundo plano e agenda a primeira virada do dia.
+     * Chamado na inicialização da aplicação.
+     *
+     * @param aoVirarDia Executado após cada virada do dia (ex.: verificação de avisos)
+     */
+    public static synchronized void iniciar(Runnable aoVirarDia) {
+        if (executor != null) return;
+        AgendaVencimentos.aoVirarDia = aoVirarDia;
+        carregando = true;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "AgendaVencimentos");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.execute(AgendaVencimentos::carregar);
+    }
+
+    /**
+     * Encerra a agenda.
+     */
+    public static synchronized void parar() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+        POR_VENCIMENTO.clear();
+        POR_ID.clear();
+        NAO_CONTADOS.clear();
+    }
+
+    /**
+     * Registra o vencimento de um empréstimo ativo, novo ou renovado.
+     *
+     * @param emprestimoId ID do empréstimo
+     * @param vencimento Data de devolução prevista
+     */
+    public static synchronized void agendar(int emprestimoId, LocalDate vencimento) {
+        if (executor == null) return;
+        remover(emprestimoId);
+        REMOVIDOS_NA_CARGA.remove(emprestimoId);
+        POR_ID.put(emprestimoId, vencimento);
+        POR_VENCIMENTO.computeIfAbsent(vencimento, d -> new HashSet<>()).add(emprestimoId);
+    }
+
+    /**
+     * Retira um empréstimo devolvido da agenda.
+     *
+     * @param emprestimoId ID do empréstimo
+     */
+    public static synchronized void remover(int emprestimoId) {
+        if (executor == null) return;
+        if (carregando) {
+            REMOVIDOS_NA_CARGA.add(emprestimoId);
+        }
+        NAO_CONTADOS.remove(emprestimoId);
+        LocalDate vencimento = POR_ID.remove(emprestimoId);
+        if (vencimento == null) return;
+        Set<Integer> ids = POR_VENCIMENTO.get(vencimento);
+        ids.remove(emprestimoId);
+        if (ids.isEmpty()) {
+            POR_VENCIMENTO.remove(vencimento);
+        }
+    }
+
+    /**
+     * Lê os vencimentos dos empréstimos ativos e processa os já vencidos.
+     * Empréstimos agendados durante a leitura prevalecem sobre o valor lido.
+     */
+    private static void carregar() {
+        long inicio = System.currentTimeMillis();
+        Map<Integer, LocalDate> vencimentos = DAO.vencimentosAtivos();
+        synchronized (AgendaVencimentos.class) {
+            if (executor == null) return;
+            if (vencimentos != null) {
+                for (Map.Entry<Integer, LocalDate> vencimento : vencimentos.entrySet()) {
+                    int id = vencimento.getKey();
+                    if (REMOVIDOS_NA_CARGA.contains(id) || POR_ID.containsKey(id)) continue;
+                    POR_ID.put(id, vencimento.getValue());
+                    POR_VENCIMENTO.computeIfAbsent(vencimento.getValue(), d -> new HashSet<>()).add(id);
+                }
+                LogManager.info("Agenda de vencimentos carregada: " + vencimentos.size() + " empréstimos ativos em "
+                        + (System.currentTimeMillis() - inicio) + " ms");
+            } else {
+                // Sem a carga, só os empréstimos novos entram na agenda; a verificação periódica cobre os demais
+                LogManager.warning("Agenda de vencimentos iniciada sem os empréstimos existentes");
+            }
+            carregando = false;
+            REMOVIDOS_NA_CARGA.clear();
+            // Ativos já vencidos na carga: já contados como atrasados no painel
+            ultimoDia = LocalDate.now();
+        }
+        virarDia();
+    }
+
+    /**
+     * Marca como atrasados os empréstimos vencidos antes de hoje, dispara a
+     * verificação de avisos e agenda a próxima execução: a virada seguinte ou,
+     * se algum lote falhou, uma nova tentativa.
+     */
+    private static void virarDia() {
+        boolean falhou = false;
+        try {
+            LocalDate hoje = LocalDate.now();
+            Map<Integer, LocalDate> vencidos = new HashMap<>();
+            boolean virou;
+            synchronized (AgendaVencimentos.class) {
+                if (executor == null) return;
+                for (Map.Entry<LocalDate, Set<Integer>> dia : POR_VENCIMENTO.headMap(hoje).entrySet()) {
+                    for (int id : dia.getValue()) {
+                        vencidos.put(id, dia.getKey());
+                        // Vencidos antes da última virada já constavam como atrasados no painel
+                        if (!dia.getKey().isBefore(ultimoDia)) {
+                            NAO_CONTADOS.add(id);
+                        }
+                    }
+                }
+                virou = !hoje.equals(ultimoDia);
+                ultimoDia = hoje;
+            }
+
+            if (!vencidos.isEmpty()) {
+                falhou = !marcar(vencidos, hoje);
+            }
+            if (virou && aoVirarDia != null) {
+                aoVirarDia.run();
+            }
+        } catch (Exception e) {
+            falhou = true;
+            LogManager.error("Erro na virada do dia da agenda de vencimentos", e);
+        } finally {
+            agendarVirada(falhou);
+        }
+    }
+
+    /**
+     * Marca os empréstimos vencidos em lotes. Cada lote gravado sai da agenda e
+     * entra na contagem do painel; um lote que falhar continua na agenda.
+     *
+     * @return true se todos os lotes foram gravados
+     */
+    private static boolean marcar(Map<Integer, LocalDate> vencidos, LocalDate hoje) {
+        long inicio = System.currentTimeMillis();
+        List<Integer> ids = new ArrayList<>(vencidos.keySet());
+        int marcados = 0, falhas = 0;
+        for (int i = 0; i < ids.size(); i += LOTE) {
+            List<Integer> lote = ids.subList(i, Math.min(i + LOTE, ids.size()));
+            int n = DAO.marcarAtrasados(lote, hoje);
+            if (n < 0) {
+                falhas += lote.size();
+            } else {
+                marcados += n;
+                EstatisticasDAO.emprestimosVencidos(concluir(lote, vencidos));
+            }
+        }
+        LogManager.info("Virada do dia: " + marcados + " empréstimos marcados como ATRASADO em "
+                + (System.currentTimeMillis() - inicio) + " ms"
+                + (falhas > 0 ? " (" + falhas + " continuam na agenda para nova tentativa)" : ""));
+        return falhas == 0;
+    }
+
+    /**
+     * Retira da agenda os empréstimos de um lote gravado que não foram
+     * renovados nem devolvidos enquanto isso.
+     *
+     * @return Quantos deles ainda não constavam como atrasados no painel
+     */
+    private static synchronized int concluir(List<Integer> lote, Map<Integer, LocalDate> vencidos) {
+        int novos = 0;
+        for (int id : lote) {
+            if (!vencidos.get(id).equals(POR_ID.get(id))) continue;
+            if (NAO_CONTADOS.contains(id)) {
+                novos++;
+            }
+            remover(id);
+        }
+        return novos;
+    }
+
+    private static synchronized void agendarVirada(boolean falhou) {
+        if (executor == null) return;
+        LocalDateTime agora = LocalDateTime.now();
+        long espera = Duration.between(agora, agora.toLocalDate().plusDays(1).atStartOfDay()).toMillis() + MARGEM_MS;
+        if (falhou) {
+            espera = Math.min(espera, ESPERA_FALHA_MS);
+        }
+        executor.schedule(AgendaVencimentos::virarDia, espera, TimeUnit.MILLISECONDS);
+    }
+}
@@ -1,5 +1,13 @@
 package com.biblioteca;
 
+import com.biblioteca.dao.LivroDAO;
+import com.biblioteca.dao.UsuarioDAO;
+import com.biblioteca.service.AgendaVencimentos;
+import com.biblioteca.service.ConsolidacaoService;
+import com.biblioteca.service.EstatisticasService;
+import com.biblioteca.service.FilaRelatorios;
+import com.biblioteca.service.RankingService;
+import com.biblioteca.utils.DatabaseConnection;
 import com.biblioteca.utils.LogManager;
 import com.biblioteca.utils.NotificationThread;
 import javafx.application.Application;
@@ -27,6 +35,22 @@ public class App extends Application {
         notificationThread = new NotificationThread();
         notificationThread.start();
         
+        // Reconciliar os contadores do painel e os rankings e manter a consolidação diária
+        EstatisticasService.iniciar();
+        RankingService.iniciar();
+        ConsolidacaoService.iniciar();
+        
+        // Marcar os atrasados e emitir os avisos na virada do dia
+        AgendaVencimentos.iniciar(notificationThread::verificarViradaDoDia);
+        
+        // Construir os índices de busca e sugestões em segundo plano
+        Thread indiceBusca = new Thread(() -> {
+            new LivroDAO().carregarIndiceBusca();
+            new UsuarioDAO().carregarDiretorio();
+        }, "IndicesBusca");
+        indiceBusca.setDaemon(true);
+        indiceBusca.start();
+        
         // Carregar tela de login
         Parent root = FXMLLoader.load(getClass().getResource("/fxml/login.fxml"));
         Scene scene = new Scene(root, 400, 500);
@@ -57,6 +81,14 @@ public class App extends Application {
     @Override
     public void stop() {
         if (notificationThread != null) notificationThread.stopThread();
+        EstatisticasService.parar();
+        RankingService.parar();
+        ConsolidacaoService.parar();
+        AgendaVencimentos.parar();
+        FilaRelatorios.parar();
+        LogManager.info("Verificação de ISBN: " + LivroDAO.getIsbnStats());
+        LogManager.info("Verificação de e-mail: " + UsuarioDAO.getEmailStats());
+        DatabaseConnection.getInstance().shutdownPool();
         LogManager.info("Aplicação encerrada");
         LogManager.close();
     }
@@ -0,0 +1,262 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroResumo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache em memória do catálogo, mantido pelo {@link LivroDAO}.
+ *
+ * <p>Guarda os livros por ID (LRU limitado por capacidade) com um índice
+ * secundário por ISBN, além da lista de livros disponíveis usada na tela de
+ * empréstimos. O DAO atualiza o cache a cada escrita bem-sucedida
+ * (write-through); as entradas também expiram após um TTL, o que cobre
+ * alterações feitas fora da aplicação.</p>
+ *
+ * <p>Uma leitura do banco só é guardada se nenhuma escrita foi registrada
+ * desde que começou ({@link #geracao()}): do contrário, uma linha lida antes
+ * de uma gravação concorrente poderia sobrescrever a versão mais nova.</p>
+ *
+ * <p>Como {@link Livro} é mutável, o cache armazena e devolve cópias.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class CacheLivros {
+
+    /**
+     * Estatísticas do cache.
+     *
+     * @param tamanho Livros em cache
+     * @param acertos Leituras atendidas pelo cache
+     * @param faltas Leituras que foram ao banco
+     * @param remocoes Entradas removidas por capacidade
+     * @param expiracoes Entradas descartadas por TTL
+     */
+    public record Stats(int tamanho, long acertos, long faltas, long remocoes, long expiracoes) {
+
+        /**
+         * @return Fração das leituras atendidas pelo cache (0 a 1)
+         */
+        public double taxaAcerto() {
+            long total = acertos + faltas;
+            return total == 0 ? 0 : (double) acertos / total;
+        }
+    }
+
+    private record Entrada(Livro livro, long expiraEm) { }
+
+    private final long ttlNanos;
+    private final Map<Integer, Entrada> porId;
+    private final Map<String, Integer> porIsbn = new HashMap<>();
+
+    private List<LivroResumo> disponiveis;
+    private long disponiveisExpiraEm;
+
+    /** Incrementada a cada escrita registrada; invalida leituras do banco em andamento */
+    private long geracao;
+
+    private long acertos;
+    private long faltas;
+    private long remocoes;
+    private long expiracoes;
+
+    /**
+     * Cria o cache.
+     *
+     * @param capacidade Número máximo de livros mantidos
+     * @param ttlMs Tempo de vida das entradas em milissegundos
+     */
+    CacheLivros(int capacidade, long ttlMs) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.porId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entrada> eldest) {
+                if (size() <= capacidade) {
+                    return false;
+                }
+                porIsbn.remove(eldest.getValue().livro().getIsbn());
+                remocoes++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @return Cópia do livro em cache, ou null se ausente ou expirado
+     */
+    synchronized Livro buscarPorId(int id) {
+        return contar(ler(id));
+    }
+
+    /**
+     * @return Cópia do livro em cache, ou null se ausente ou expirado
+     */
+    synchronized Livro buscarPorIsbn(String isbn) {
+        Integer id = porIsbn.get(isbn);
+        Entrada entrada = id != null ? ler(id) : null;
+        return contar(entrada != null && Objects.equals(entrada.livro().getIsbn(), isbn) ? entrada : null);
+    }
+
+    /**
+     * @return Lista de disponíveis em cache, ou null se ausente ou expirada
+     */
+    synchronized List<LivroResumo> listarDisponiveis() {
+        if (disponiveis == null || disponiveisExpiraEm - System.nanoTime() < 0) {
+            disponiveis = null;
+            faltas++;
+            return null;
+        }
+        acertos++;
+        return disponiveis;
+    }
+
+    /**
+     * @return Geração atual, a obter antes de uma leitura do banco que será guardada
+     */
+    synchronized long geracao() {
+        return geracao;
+    }
+
+    /**
+     * Armazena um livro lido do banco, se nenhuma escrita foi registrada desde a leitura.
+     *
+     * @param geracao Valor de {@link #geracao()} obtido antes da leitura
+     */
+    synchronized void guardar(Livro livro, long geracao) {
+        if (geracao == this.geracao) {
+            armazenar(livro);
+        }
+    }
+
+    private void armazenar(Livro livro) {
+        Entrada anterior = porId.put(livro.getId(), new Entrada(copiar(livro), System.nanoTime() + ttlNanos));
+        if (anterior != null && !Objects.equals(anterior.livro().getIsbn(), livro.getIsbn())) {
+            porIsbn.remove(anterior.livro().getIsbn());
+        }
+        porIsbn.put(livro.getIsbn(), livro.getId());
+    }
+
+    /**
+     * Armazena a lista de disponíveis lida do banco, se nenhuma escrita foi registrada desde a leitura.
+     *
+     * @param geracao Valor de {@link #geracao()} obtido antes da leitura
+     */
+    synchronized void guardarDisponiveis(List<LivroResumo> lista, long geracao) {
+        if (geracao != this.geracao) {
+            return;
+        }
+        disponiveis = Collections.unmodifiableList(new ArrayList<>(lista));
+        disponiveisExpiraEm = System.nanoTime() + ttlNanos;
+    }
+
+    /**
+     * Registra a gravação de um livro (inserção ou atualização).
+     */
+    synchronized void gravado(Livro livro) {
+        geracao++;
+        armazenar(livro);
+        disponiveis = null;
+    }
+
+    /**
+     * Registra a remoção de um livro.
+     */
+    synchronized void removido(int id) {
+        geracao++;
+        descartar(id);
+        disponiveis = null;
+    }
+
+    /**
+     * Registra a variação do estoque disponível de um livro (empréstimo ou devolução).
+     *
+     * @param id ID do livro
+     * @param delta Variação de {@code quantidade_disponivel}
+     */
+    synchronized void estoqueAlterado(int id, int delta) {
+        geracao++;
+        Entrada entrada = porId.get(id);
+        if (entrada != null) {
+            entrada.livro().setQuantidadeDisponivel(entrada.livro().getQuantidadeDisponivel() + delta);
+        }
+        if (disponiveis == null) {
+            return;
+        }
+
+        for (int i = 0; i < disponiveis.size(); i++) {
+            LivroResumo r = disponiveis.get(i);
+            if (r.id() != id) continue;
+
+            List<LivroResumo> nova = new ArrayList<>(disponiveis);
+            int quantidade = r.quantidadeDisponivel() + delta;
+            if (quantidade > 0) {
+                nova.set(i, new LivroResumo(r.id(), r.titulo(), r.autor(), r.isbn(),
+                        r.categoriaId(), r.categoriaNome(), quantidade));
+            } else {
+                nova.remove(i);
+            }
+            disponiveis = Collections.unmodifiableList(nova);
+            return;
+        }
+        // Livro que voltou a ficar disponível: a posição na lista depende do banco
+        if (delta > 0) {
+            disponiveis = null;
+        }
+    }
+
+    /**
+     * @return Estatísticas atuais
+     */
+    synchronized Stats getStats() {
+        return new Stats(porId.size(), acertos, faltas, remocoes, expiracoes);
+    }
+
+    /**
+     * Entrada válida do livro, descartando-a se expirada; não conta acerto nem falta.
+     */
+    private Entrada ler(int id) {
+        Entrada entrada = porId.get(id);
+        if (entrada != null && entrada.expiraEm() - System.nanoTime() < 0) {
+            descartar(id);
+            expiracoes++;
+            entrada = null;
+        }
+        return entrada;
+    }
+
+    /**
+     * Conta uma leitura (um acerto ou uma falta) e devolve a cópia do livro.
+     */
+    private Livro contar(Entrada entrada) {
+        if (entrada == null) {
+            faltas++;
+            return null;
+        }
+        acertos++;
+        return copiar(entrada.livro());
+    }
+
+    private void descartar(int id) {
+        Entrada entrada = porId.remove(id);
+        if (entrada != null) {
+            porIsbn.remove(entrada.livro().getIsbn());
+        }
+    }
+
+    private static Livro copiar(Livro l) {
+        Livro copia = new Livro(l.getId(), l.getTitulo(), l.getAutor(), l.getIsbn(), l.getCategoriaId(),
+                l.getQuantidadeTotal(), l.getQuantidadeDisponivel(), l.getCriadoEm());
+        copia.setCategoriaNome(l.getCategoriaNome());
+        copia.setAtualizadoEm(l.getAtualizadoEm());
+        return copia;
+    }
+}
@@ -0,0 +1,202 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dao.VersaoDadosDAO;
+import com.biblioteca.utils.LogManager;
+import com.biblioteca.utils.PDFGenerator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache de relatórios gerados, no diretório de relatórios.
+ *
+ * <p>A chave de um relatório é o seu tipo, os parâmetros e a versão dos dados
+ * de origem ({@link VersaoDadosDAO}). O arquivo gerado recebe um nome derivado
+ * do hash da chave; pedir de novo o mesmo relatório sem que os dados tenham
+ * mudado devolve o arquivo existente, sem consultar nem gerar nada — inclusive
+ * após reiniciar a aplicação. Quando os dados mudam, a chave muda e o arquivo
+ * antigo deixa de ser usado.</p>
+ *
+ * <p>O diretório é limitado a {@value #MAX_BYTES_DIRETORIO} bytes: depois de
+ * cada geração, os arquivos usados há mais tempo (data de modificação,
+ * atualizada a cada reaproveitamento) são removidos.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class CacheRelatorios {
+
+    /** Tamanho máximo do diretório de relatórios */
+    private static final long MAX_BYTES_DIRETORIO = 512L * 1024 * 1024;
+
+    /** Prévias mantidas em memória (as de relatórios antigos são refeitas como um aviso) */
+    private static final int MAX_PREVIAS = 200;
+
+    /** Caracteres do hash usados no nome do arquivo */
+    private static final int TAMANHO_HASH = 20;
+
+    /**
+     * Relatório gerado ou reaproveitado.
+     *
+     * @param path Caminho do arquivo
+     * @param preview Prévia do conteúdo
+     * @param reaproveitado true se o arquivo já existia
+     */
+    public record Arquivo(String path, String preview, boolean reaproveitado) { }
+
+    /**
+     * Geração de um relatório, chamada apenas quando não há arquivo válido.
+     */
+    @FunctionalInterface
+    public interface Geracao {
+        Arquivo gerar() throws Exception;
+    }
+
+    private static final VersaoDadosDAO VERSAO_DAO = new VersaoDadosDAO();
+
+    /** Prévia de cada arquivo do cache, por nome */
+    private static final Map<String, String> PREVIAS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_PREVIAS;
+        }
+    };
+
+    private static final AtomicLong ACERTOS = new AtomicLong();
+    private static final AtomicLong FALHAS = new AtomicLong();
+
+    /**
+     * Construtor privado para evitar instanciação.
+     */
+    private CacheRelatorios() {
+        throw new UnsupportedOperationException("Classe utilitária não pode ser instanciada");
+    }
+
+    /**
+     * Devolve o relatório do cache ou o gera.
+     *
+     * @param tipo Tipo do relatório (prefixo do arquivo, ex.: "livros_mais_emprestados")
+     * @param parametros Parâmetros que mudam o conteúdo (limite, período, formato...)
+     * @param extensao Extensão do arquivo (ex.: "pdf", "csv.gz")
+     * @param fontes Tabelas de origem do relatório
+     * @param periodo Período a que se restringe a versão das fontes organizadas por dia, ou null
+     * @param geracao Geração do relatório quando não há arquivo válido
+     * @return Arquivo do relatório
+     * @throws Exception Se a geração falhar
+     */
+    public static Arquivo obter(String tipo, String parametros, String extensao, Set<VersaoDadosDAO.Fonte> fontes,
+                                VersaoDadosDAO.Periodo periodo, Geracao geracao) throws Exception {
+        VersaoDadosDAO.Versao versao = VERSAO_DAO.versao(fontes, periodo);
+        if (versao == null) {
+            // Sem versão não há como validar o cache: gerar normalmente
+            return geracao.gerar();
+        }
+
+        String nome = tipo + "_" + hash(tipo + "\n" + parametros + "\n" + versao.valor()) + "." + extensao;
+        Path destino = Paths.get(PDFGenerator.getReportsDir(), nome);
+
+        if (Files.isRegularFile(destino)) {
+            Files.setLastModifiedTime(destino, FileTime.fromMillis(System.currentTimeMillis()));
+            ACERTOS.incrementAndGet();
+            String preview;
+            synchronized (PREVIAS) {
+                preview = PREVIAS.get(nome);
+            }
+            LogManager.info("Relatório reaproveitado do cache: " + destino + " (" + estatisticas() + ")");
+            return new Arquivo(destino.toString(), preview != null ? preview
+                    : "Relatório reaproveitado: os dados não mudaram desde a geração.\n", true);
+        }
+
+        FALHAS.incrementAndGet();
+        Arquivo gerado = geracao.gerar();
+        if (!versao.estavel()) {
+            // Dados alterados no último segundo: o arquivo fica com o nome original, fora do cache
+            return gerado;
+        }
+
+        Files.move(Paths.get(gerado.path()), destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (PREVIAS) {
+            PREVIAS.put(nome, gerado.preview());
+        }
+        limitarDiretorio(destino);
+        return new Arquivo(destino.toString(), gerado.preview(), false);
+    }
+
+    /**
+     * @return Resumo de acertos e falhas do cache
+     */
+    public static String estatisticas() {
+        long acertos = ACERTOS.get(), falhas = FALHAS.get();
+        long total = acertos + falhas;
+        return String.format("%d acertos, %d falhas, %.0f%% de acerto", acertos, falhas,
+                total == 0 ? 0.0 : 100.0 * acertos / total);
+    }
+
+    /**
+     * Remove os arquivos usados há mais tempo até o diretório caber no limite.
+     *
+     * @param preservar Arquivo recém-gerado, nunca removido
+     */
+    private static void limitarDiretorio(Path preservar) {
+        record Entrada(Path path, long tamanho, long modificado) { }
+
+        List<Entrada> arquivos = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(preservar.getParent())) {
+            for (Path path : dir) {
+                // Arquivos ainda em escrita por uma exportação
+                if (!Files.isRegularFile(path) || path.getFileName().toString().endsWith(".parcial")) continue;
+                long tamanho = Files.size(path);
+                total += tamanho;
+                arquivos.add(new Entrada(path, tamanho, Files.getLastModifiedTime(path).toMillis()));
+            }
+        } catch (IOException e) {
+            LogManager.error("Erro ao verificar o diretório de relatórios", e);
+            return;
+        }
+        if (total <= MAX_BYTES_DIRETORIO) return;
+
+        arquivos.sort((a, b) -> Long.compare(a.modificado(), b.modificado()));
+        int removidos = 0;
+        for (Entrada arquivo : arquivos) {
+            if (total <= MAX_BYTES_DIRETORIO) break;
+            if (arquivo.path().equals(preservar)) continue;
+            try {
+                Files.deleteIfExists(arquivo.path());
+                total -= arquivo.tamanho();
+                removidos++;
+                synchronized (PREVIAS) {
+                    PREVIAS.remove(arquivo.path().getFileName().toString());
+                }
+            } catch (IOException e) {
+                // Ex.: arquivo aberto em outro programa; tenta-se de novo na próxima geração
+                LogManager.warning("Não foi possível remover relatório antigo: " + arquivo.path());
+            }
+        }
+        LogManager.info("Diretório de relatórios limitado: " + removidos + " arquivos antigos removidos");
+    }
+
+    private static String hash(String chave) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(chave.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest).substring(0, TAMANHO_HASH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
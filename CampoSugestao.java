@@ -0,0 +1,152 @@
+package com.biblioteca.controller;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.CustomMenuItem;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Campo de texto com sugestões de preenchimento (type-ahead).
+ *
+ * <p>Substitui um ComboBox com a lista completa: a cada pausa na digitação o
+ * campo consulta a fonte de sugestões com o texto digitado e exibe apenas os
+ * primeiros resultados. O item escolhido fica disponível em
+ * {@link #valorProperty()}; editar o texto depois disso limpa a seleção.</p>
+ *
+ * <p>A fonte é consultada fora da thread da interface (ela pode recorrer ao
+ * banco); respostas que chegam depois de uma nova edição são descartadas.</p>
+ *
+ * @param <T> Tipo dos itens sugeridos
+ */
+public class CampoSugestao<T> extends TextField {
+
+    /**
+     * Fonte de sugestões para um texto digitado.
+     */
+    @FunctionalInterface
+    public interface Fonte<T> {
+        List<T> sugerir(String texto, int limite);
+    }
+
+    /** Pausa na digitação antes de consultar a fonte */
+    private static final Duration ESPERA = Duration.millis(200);
+
+    /** Número máximo de sugestões exibidas */
+    private static final int LIMITE_SUGESTOES = 10;
+
+    /** Número mínimo de caracteres para consultar */
+    private static final int MIN_CARACTERES = 2;
+
+    private final ObjectProperty<T> valor = new SimpleObjectProperty<>(this, "valor");
+    private final ContextMenu sugestoes = new ContextMenu();
+    private final PauseTransition espera = new PauseTransition(ESPERA);
+
+    private Fonte<T> fonte = (texto, limite) -> List.of();
+    private Function<T, String> formatador = String::valueOf;
+    private boolean selecionando;
+
+    /** Incrementado a cada edição: identifica a consulta cuja resposta ainda vale */
+    private int consulta;
+
+    public CampoSugestao() {
+        espera.setOnFinished(e -> consultar());
+
+        textProperty().addListener((obs, antigo, novo) -> {
+            if (selecionando) return;
+            consulta++;
+            valor.set(null);
+            espera.playFromStart();
+        });
+
+        focusedProperty().addListener((obs, antigo, focado) -> {
+            if (!focado) sugestoes.hide();
+        });
+    }
+
+    /**
+     * Define a fonte das sugestões.
+     *
+     * @param fonte Função que retorna as sugestões para o texto digitado
+     */
+    public void setFonte(Fonte<T> fonte) {
+        this.fonte = fonte;
+    }
+
+    /**
+     * Define o texto exibido para cada item.
+     *
+     * @param formatador Função de formatação
+     */
+    public void setFormatador(Function<T, String> formatador) {
+        this.formatador = formatador;
+    }
+
+    public ObjectProperty<T> valorProperty() { return valor; }
+    public T getValor() { return valor.get(); }
+
+    /**
+     * Limpa o texto e o item selecionado.
+     */
+    public void limpar() {
+        espera.stop();
+        consulta++;
+        sugestoes.hide();
+        selecionando = true;
+        clear();
+        selecionando = false;
+        valor.set(null);
+    }
+
+    private void consultar() {
+        String texto = getText().trim();
+        if (texto.length() < MIN_CARACTERES || valor.get() != null) {
+            sugestoes.hide();
+            return;
+        }
+
+        int atual = consulta;
+        Fonte<T> origem = fonte;
+        CompletableFuture.supplyAsync(() -> origem.sugerir(texto, LIMITE_SUGESTOES), CarregadorTela.executor())
+                .whenCompleteAsync((itens, erro) -> {
+                    if (atual == consulta) exibir(erro == null ? itens : List.of());
+                }, Platform::runLater);
+    }
+
+    private void exibir(List<T> itens) {
+        if (itens.isEmpty() || valor.get() != null || !isFocused()) {
+            sugestoes.hide();
+            return;
+        }
+
+        sugestoes.getItems().clear();
+        for (T item : itens) {
+            Label rotulo = new Label(formatador.apply(item));
+            rotulo.setPrefWidth(getWidth() - 20);
+            CustomMenuItem opcao = new CustomMenuItem(rotulo, true);
+            opcao.setOnAction(e -> selecionar(item));
+            sugestoes.getItems().add(opcao);
+        }
+        if (!sugestoes.isShowing()) {
+            sugestoes.show(this, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    private void selecionar(T item) {
+        selecionando = true;
+        setText(formatador.apply(item));
+        positionCaret(getText().length());
+        selecionando = false;
+        valor.set(item);
+        sugestoes.hide();
+    }
+}
@@ -0,0 +1,149 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.utils.LogManager;
+import javafx.application.Platform;
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Carrega os dados de uma tela fora da thread do JavaFX.
+ *
+ * <p>Cada consulta roda em segundo plano e o resultado é aplicado na thread
+ * do JavaFX. Consultas independentes disparadas em sequência rodam em
+ * paralelo, então a abertura da tela leva o tempo da consulta mais lenta, e
+ * não a soma de todas. Cada consulta tem uma chave: uma nova consulta com a
+ * mesma chave (ex.: outra busca na mesma tabela) descarta o resultado da
+ * anterior. Quando a tela sai da cena, as consultas pendentes são canceladas
+ * e seus resultados descartados.</p>
+ *
+ * <p>As consultas usam virtual threads quando disponíveis (Java 21+) e, nas
+ * versões anteriores, um pool fixo de threads daemon. Em ambos os casos o
+ * número de consultas simultâneas é limitado para não esgotar o pool de
+ * conexões. Deve ser usado apenas na thread do JavaFX.</p>
+ */
+final class CarregadorTela {
+
+    /** Número máximo de consultas simultâneas (abaixo do tamanho do pool de conexões) */
+    private static final int MAX_CONSULTAS = 8;
+
+    private static final ExecutorService EXECUTOR = criarExecutor();
+    private static final Semaphore CONSULTAS = new Semaphore(MAX_CONSULTAS);
+
+    private final Map<String, CompletableFuture<?>> tarefas = new HashMap<>();
+    private boolean encerrado;
+
+    /**
+     * Cria o carregador de uma tela.
+     *
+     * @param no Qualquer nó da tela; quando ele sai da cena, as consultas são canceladas
+     */
+    CarregadorTela(Node no) {
+        no.sceneProperty().addListener((obs, antiga, nova) -> {
+            if (antiga != null && nova == null) cancelar();
+        });
+    }
+
+    /**
+     * @return Executor das consultas em segundo plano
+     */
+    static Executor executor() {
+        return CarregadorTela::executar;
+    }
+
+    /**
+     * Executa uma consulta em segundo plano e aplica o resultado na thread do JavaFX.
+     *
+     * @param chave Identifica a consulta; substitui uma anterior com a mesma chave
+     * @param consulta Consulta ao banco
+     * @param aplicar Uso do resultado, na thread do JavaFX
+     */
+    <T> void carregar(String chave, Callable<T> consulta, Consumer<T> aplicar) {
+        carregar(chave, consulta, aplicar, erro -> { });
+    }
+
+    /**
+     * Executa uma consulta em segundo plano e aplica o resultado na thread do JavaFX.
+     *
+     * @param chave Identifica a consulta; substitui uma anterior com a mesma chave
+     * @param consulta Consulta ao banco
+     * @param aplicar Uso do resultado, na thread do JavaFX
+     * @param aoFalhar Tratamento de erro, na thread do JavaFX (o erro já é registrado no log)
+     */
+    <T> void carregar(String chave, Callable<T> consulta, Consumer<T> aplicar, Consumer<Throwable> aoFalhar) {
+        if (encerrado) return;
+
+        CompletableFuture<?> anterior = tarefas.remove(chave);
+        if (anterior != null) anterior.cancel(false);
+
+        CompletableFuture<T> tarefa = CompletableFuture.supplyAsync(() -> {
+            try {
+                return consulta.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor());
+        tarefas.put(chave, tarefa);
+
+        tarefa.whenCompleteAsync((resultado, erro) -> {
+            // Cancelada, substituída por outra com a mesma chave ou tela encerrada
+            if (tarefas.get(chave) != tarefa) return;
+            tarefas.remove(chave);
+
+            if (erro == null) {
+                aplicar.accept(resultado);
+            } else {
+                Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                LogManager.error("Erro ao carregar dados da tela (" + chave + ")", causa);
+                aoFalhar.accept(causa);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Cancela as consultas pendentes; resultados que chegarem depois são descartados.
+     */
+    void cancelar() {
+        encerrado = true;
+        for (CompletableFuture<?> tarefa : new ArrayList<>(tarefas.values())) {
+            tarefa.cancel(false);
+        }
+        tarefas.clear();
+    }
+
+    private static void executar(Runnable consulta) {
+        EXECUTOR.execute(() -> {
+            CONSULTAS.acquireUninterruptibly();
+            try {
+                consulta.run();
+            } finally {
+                CONSULTAS.release();
+            }
+        });
+    }
+
+    private static ExecutorService criarExecutor() {
+        try {
+            // Java 21+: uma virtual thread por consulta
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(MAX_CONSULTAS, r -> {
+                Thread t = new Thread(r, "CarregadorTela-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
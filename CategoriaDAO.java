@@ -7,16 +7,74 @@ import com.biblioteca.utils.LogManager;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object para operações CRUD de categorias.
  * 
+ * <p>As categorias são poucas e quase nunca mudam, então as leituras são
+ * atendidas por um retrato imutável de toda a tabela, carregado na primeira
+ * consulta. Cada escrita publica um novo retrato (copy-on-write), de modo que
+ * as leituras nunca bloqueiam nem veem um estado parcial.</p>
+ * 
  * @author Sistema Biblioteca Digital
  * @version 1.0
  */
 public class CategoriaDAO {
     
+    /** Mapeador de categorias */
+    private static final RowMapper.Fabrica<Categoria> CATEGORIA = c -> {
+        int id = c.indice("id");
+        int nome = c.indice("nome");
+        int descricao = c.indice("descricao");
+        int criadoEm = c.opcional("criado_em");
+        
+        return rs -> {
+            Categoria categoria = new Categoria();
+            categoria.setId(rs.getInt(id));
+            categoria.setNome(rs.getString(nome));
+            categoria.setDescricao(rs.getString(descricao));
+            
+            if (criadoEm > 0) {
+                Timestamp ts = rs.getTimestamp(criadoEm);
+                if (ts != null) {
+                    categoria.setCriadoEm(ts.toLocalDateTime());
+                }
+            }
+            
+            return categoria;
+        };
+    };
+    
+    /**
+     * Retrato imutável das categorias: mapa por ID e lista ordenada por nome.
+     */
+    private record Snapshot(Map<Integer, Categoria> porId, List<Categoria> porNome) {
+        
+        static Snapshot de(Collection<Categoria> categorias) {
+            Map<Integer, Categoria> porId = new HashMap<>();
+            for (Categoria c : categorias) {
+                porId.put(c.getId(), c);
+            }
+            List<Categoria> porNome = new ArrayList<>(porId.values());
+            porNome.sort(Comparator.comparing(Categoria::getNome, String.CASE_INSENSITIVE_ORDER));
+            return new Snapshot(Map.copyOf(porId), List.copyOf(porNome));
+        }
+    }
+    
+    /** Espera após uma leitura que falhou antes de consultar o banco de novo */
+    private static final long ESPERA_APOS_FALHA_MS = 30_000;
+    
+    /** Retrato atual, ou null se ainda não carregado */
+    private static volatile Snapshot snapshot;
+    
+    /** Instante da última leitura que falhou (0 se a última teve sucesso) */
+    private static long falhaEm;
+    
     /**
      * Insere uma nova categoria no banco de dados.
      * 
@@ -26,7 +84,7 @@ public class CategoriaDAO {
     public boolean inserir(Categoria categoria) {
         String sql = "INSERT INTO categorias (nome, descricao) VALUES (?, ?)";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, categoria.getNome());
@@ -40,6 +98,7 @@ public class CategoriaDAO {
                         categoria.setId(generatedKeys.getInt(1));
                     }
                 }
+                publicar(categoria, false);
                 LogManager.info("Categoria inserida: " + categoria.getNome());
                 return true;
             }
@@ -60,7 +119,7 @@ public class CategoriaDAO {
     public boolean atualizar(Categoria categoria) {
         String sql = "UPDATE categorias SET nome = ?, descricao = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, categoria.getNome());
@@ -70,6 +129,7 @@ public class CategoriaDAO {
             int affectedRows = stmt.executeUpdate();
             
             if (affectedRows > 0) {
+                publicar(categoria, false);
                 LogManager.info("Categoria atualizada: " + categoria.getNome());
                 return true;
             }
@@ -90,13 +150,16 @@ public class CategoriaDAO {
     public boolean deletar(int id) {
         String sql = "DELETE FROM categorias WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
             int affectedRows = stmt.executeUpdate();
             
             if (affectedRows > 0) {
+                Categoria removida = new Categoria();
+                removida.setId(id);
+                publicar(removida, true);
                 LogManager.info("Categoria removida: ID " + id);
                 return true;
             }
@@ -115,24 +178,30 @@ public class CategoriaDAO {
      * @return Categoria encontrada ou null
      */
     public Categoria buscarPorId(int id) {
-        String sql = "SELECT * FROM categorias WHERE id = ?";
+        Categoria categoria = getSnapshot().porId().get(id);
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setInt(1, id);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToCategoria(rs);
-                }
-            }
-            
-        } catch (SQLException e) {
-            LogManager.error("Erro ao buscar categoria por ID", e);
+        if (categoria == null) {
+            // Pode ter sido criada fora da aplicação: recarregar uma vez
+            categoria = recarregar().porId().get(id);
         }
         
-        return null;
+        return categoria != null ? copiar(categoria) : null;
+    }
+    
+    /**
+     * Retorna o nome de uma categoria, sem criar cópias.
+     * 
+     * @param id ID da categoria
+     * @return Nome da categoria ou null se não existir
+     */
+    public String buscarNome(int id) {
+        Categoria categoria = getSnapshot().porId().get(id);
+        
+        if (categoria == null) {
+            categoria = recarregar().porId().get(id);
+        }
+        
+        return categoria != null ? categoria.getNome() : null;
     }
     
     /**
@@ -142,21 +211,10 @@ public class CategoriaDAO {
      * @return Categoria encontrada ou null
      */
     public Categoria buscarPorNome(String nome) {
-        String sql = "SELECT * FROM categorias WHERE nome = ?";
-        
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, nome);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToCategoria(rs);
-                }
+        for (Categoria categoria : getSnapshot().porNome()) {
+            if (categoria.getNome().equalsIgnoreCase(nome)) {
+                return copiar(categoria);
             }
-            
-        } catch (SQLException e) {
-            LogManager.error("Erro ao buscar categoria por nome", e);
         }
         
         return null;
@@ -165,22 +223,13 @@ public class CategoriaDAO {
     /**
      * Lista todas as categorias.
      * 
-     * @return Lista de categorias
+     * @return Lista de categorias ordenada por nome
      */
     public List<Categoria> listarTodas() {
         List<Categoria> categorias = new ArrayList<>();
-        String sql = "SELECT * FROM categorias ORDER BY nome";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                categorias.add(mapResultSetToCategoria(rs));
-            }
-            
-        } catch (SQLException e) {
-            LogManager.error("Erro ao listar categorias", e);
+        for (Categoria categoria : getSnapshot().porNome()) {
+            categorias.add(copiar(categoria));
         }
         
         return categorias;
@@ -195,7 +244,7 @@ public class CategoriaDAO {
     public int contarLivros(int categoriaId) {
         String sql = "SELECT COUNT(*) FROM livros WHERE categoria_id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, categoriaId);
@@ -213,24 +262,65 @@ public class CategoriaDAO {
         return 0;
     }
     
+    private static Snapshot getSnapshot() {
+        Snapshot atual = snapshot;
+        return atual != null ? atual : recarregar();
+    }
+    
     /**
-     * Mapeia um ResultSet para objeto Categoria.
+     * Lê todas as categorias e publica um novo retrato. Depois de uma falha, o
+     * banco só é consultado de novo após {@value #ESPERA_APOS_FALHA_MS} ms:
+     * sem isso, com o banco fora do ar, cada linha que pede o nome de uma
+     * categoria esperaria na fila por mais uma tentativa.
      * 
-     * @param rs ResultSet posicionado
-     * @return Objeto Categoria
-     * @throws SQLException Se houver erro no mapeamento
+     * @return Retrato publicado (ou o anterior, se a leitura falhar ou estiver em espera)
      */
-    private Categoria mapResultSetToCategoria(ResultSet rs) throws SQLException {
-        Categoria categoria = new Categoria();
-        categoria.setId(rs.getInt("id"));
-        categoria.setNome(rs.getString("nome"));
-        categoria.setDescricao(rs.getString("descricao"));
-        
-        Timestamp criadoEm = rs.getTimestamp("criado_em");
-        if (criadoEm != null) {
-            categoria.setCriadoEm(criadoEm.toLocalDateTime());
+    private static synchronized Snapshot recarregar() {
+        if (falhaEm != 0 && System.currentTimeMillis() - falhaEm < ESPERA_APOS_FALHA_MS) {
+            return snapshot != null ? snapshot : Snapshot.de(List.of());
         }
         
-        return categoria;
+        String sql = "SELECT * FROM categorias ORDER BY nome";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            List<Categoria> categorias = new ArrayList<>();
+            RowMapper.mapearTodas(rs, sql, CATEGORIA, categorias::add);
+            snapshot = Snapshot.de(categorias);
+            falhaEm = 0;
+            
+        } catch (SQLException e) {
+            falhaEm = System.currentTimeMillis();
+            LogManager.error("Erro ao listar categorias", e);
+        }
+        
+        return snapshot != null ? snapshot : Snapshot.de(List.of());
+    }
+    
+    /**
+     * Publica um novo retrato com a categoria incluída, alterada ou removida.
+     * 
+     * @param categoria Categoria gravada
+     * @param removida true se a categoria foi removida
+     */
+    private static synchronized void publicar(Categoria categoria, boolean removida) {
+        if (snapshot == null) {
+            // Ainda não carregado: a primeira leitura trará o estado atual
+            return;
+        }
+        
+        Map<Integer, Categoria> categorias = new HashMap<>(snapshot.porId());
+        if (removida) {
+            categorias.remove(categoria.getId());
+        } else {
+            categorias.put(categoria.getId(), copiar(categoria));
+        }
+        snapshot = Snapshot.de(categorias.values());
+    }
+    
+    private static Categoria copiar(Categoria c) {
+        return new Categoria(c.getId(), c.getNome(), c.getDescricao(), c.getCriadoEm());
     }
 }
@@ -0,0 +1,107 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dao.EstatisticasDAO;
+import com.biblioteca.dao.LivroDAO;
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.StatusEmprestimo;
+import com.biblioteca.utils.DatabaseConnection;
+import com.biblioteca.utils.LogManager;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Serviço de circulação: empréstimos e devoluções.
+ *
+ * <p>Cada operação é executada pelas stored procedures {@code sp_realizar_emprestimo}
+ * e {@code sp_devolver_livro}, que alteram o empréstimo e o estoque do livro em uma
+ * única transação no servidor. Assim a operação custa uma ida ao banco e não deixa
+ * empréstimo e {@code quantidade_disponivel} inconsistentes sob concorrência.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class CirculacaoService {
+
+    private static final String SQL_EMPRESTAR = "{CALL sp_realizar_emprestimo(?, ?, ?)}";
+    private static final String SQL_DEVOLVER = "{CALL sp_devolver_livro(?)}";
+
+    /** Valor da coluna {@code resultado} quando a procedure conclui com sucesso */
+    private static final String SUCESSO = "SUCCESS";
+
+    private final LivroDAO livroDAO = new LivroDAO();
+
+    /**
+     * Realiza um empréstimo, baixando uma unidade do estoque do livro.
+     *
+     * @param usuarioId ID do usuário
+     * @param livroId ID do livro
+     * @param diasEmprestimo Prazo do empréstimo em dias
+     * @return Empréstimo criado, ou null se o livro não estiver disponível ou houver erro
+     */
+    public Emprestimo realizarEmprestimo(int usuarioId, int livroId, int diasEmprestimo) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             CallableStatement stmt = conn.prepareCall(SQL_EMPRESTAR)) {
+            stmt.setInt(1, usuarioId);
+            stmt.setInt(2, livroId);
+            stmt.setInt(3, diasEmprestimo);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return null;
+                if (!SUCESSO.equals(rs.getString("resultado"))) {
+                    LogManager.warning("Empréstimo recusado (livro ID " + livroId + "): " + rs.getString("mensagem"));
+                    return null;
+                }
+
+                Emprestimo emprestimo = new Emprestimo();
+                emprestimo.setId(rs.getInt("emprestimo_id"));
+                emprestimo.setUsuarioId(usuarioId);
+                emprestimo.setLivroId(livroId);
+                emprestimo.setDataEmprestimo(rs.getDate("data_emprestimo").toLocalDate());
+                emprestimo.setDataDevolucaoPrevista(rs.getDate("data_devolucao_prevista").toLocalDate());
+                emprestimo.setStatus(StatusEmprestimo.ATIVO);
+                livroDAO.registrarMovimentacao(livroId, -1);
+                EstatisticasDAO.emprestimoRealizado();
+                RankingService.registrarEmprestimo(usuarioId, livroId);
+                AgendaVencimentos.agendar(emprestimo.getId(), emprestimo.getDataDevolucaoPrevista());
+
+                LogManager.info("Empréstimo criado: ID " + emprestimo.getId());
+                return emprestimo;
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao realizar empréstimo", e); }
+        return null;
+    }
+
+    /**
+     * Registra a devolução de um empréstimo, repondo uma unidade no estoque do livro.
+     *
+     * @param emprestimoId ID do empréstimo
+     * @return true se a devolução foi registrada
+     */
+    public boolean devolver(int emprestimoId) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             CallableStatement stmt = conn.prepareCall(SQL_DEVOLVER)) {
+            stmt.setInt(1, emprestimoId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return false;
+                if (!SUCESSO.equals(rs.getString("resultado"))) {
+                    LogManager.warning("Devolução recusada (empréstimo ID " + emprestimoId + "): " + rs.getString("mensagem"));
+                    return false;
+                }
+
+                // A procedure não repõe além do total: só então o estoque em cache muda
+                if (rs.getBoolean("estoque_reposto")) {
+                    livroDAO.registrarMovimentacao(rs.getInt("livro_id"), 1);
+                }
+                EstatisticasDAO.emprestimoDevolvido(rs.getBoolean("atrasado"));
+                AgendaVencimentos.remover(emprestimoId);
+                LogManager.info("Empréstimo devolvido: ID " + emprestimoId);
+                return true;
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao devolver empréstimo", e); }
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.utils.DatabaseConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Teste de integração do {@link CirculacaoService} contra o banco configurado
+ * em {@link DatabaseConnection} (com o {@code schema.sql} aplicado). É ignorado
+ * quando o banco não está acessível.
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+class CirculacaoServiceTest {
+
+    private static final int CONCORRENTES = 50;
+
+    private int categoriaId;
+    private int usuarioId;
+    private int livroId;
+
+    @BeforeEach
+    void criarDados() {
+        String sufixo = Long.toString(System.nanoTime());
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection()) {
+            categoriaId = inserir(conn, "INSERT INTO categorias (nome) VALUES (?)", "Teste circulação " + sufixo);
+            usuarioId = inserir(conn, "INSERT INTO usuarios (nome, email, senha, tipo) VALUES (?, ?, 'x', 'ALUNO')",
+                    "Teste " + sufixo, "teste" + sufixo + "@teste.local");
+            livroId = inserir(conn, "INSERT INTO livros (titulo, autor, isbn, categoria_id, quantidade_total, " +
+                    "quantidade_disponivel) VALUES (?, 'Teste', ?, " + categoriaId + ", 1, 1)",
+                    "Livro de teste " + sufixo, "T" + sufixo.substring(Math.max(0, sufixo.length() - 18)));
+        } catch (SQLException e) {
+            Assumptions.abort("Banco de dados indisponível: " + e.getMessage());
+        }
+    }
+
+    @AfterEach
+    void removerDados() throws SQLException {
+        if (livroId == 0) return;
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM emprestimos WHERE livro_id = " + livroId);
+            stmt.executeUpdate("DELETE FROM emprestimos_diarios WHERE categoria_id = " + categoriaId);
+            stmt.executeUpdate("DELETE FROM livros WHERE id = " + livroId);
+            stmt.executeUpdate("DELETE FROM usuarios WHERE id = " + usuarioId);
+            stmt.executeUpdate("DELETE FROM categorias WHERE id = " + categoriaId);
+        }
+    }
+
+    /**
+     * Cinquenta empréstimos simultâneos do único exemplar: apenas um é realizado
+     * e o estoque nunca fica negativo.
+     */
+    @Test
+    void emprestimosConcorrentesDoUltimoExemplar() throws Exception {
+        CirculacaoService service = new CirculacaoService();
+        ExecutorService pool = Executors.newFixedThreadPool(CONCORRENTES);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicBoolean emAndamento = new AtomicBoolean(true);
+        AtomicInteger menorEstoque = new AtomicInteger(Integer.MAX_VALUE);
+
+        // Amostra o estoque enquanto os empréstimos disputam o exemplar
+        Thread amostragem = new Thread(() -> {
+            while (emAndamento.get()) {
+                try {
+                    menorEstoque.accumulateAndGet(estoque(), Math::min);
+                } catch (SQLException e) {
+                    return;
+                }
+            }
+        });
+
+        try {
+            List<Future<Emprestimo>> resultados = new ArrayList<>();
+            for (int i = 0; i < CONCORRENTES; i++) {
+                resultados.add(pool.submit(() -> {
+                    largada.await();
+                    return service.realizarEmprestimo(usuarioId, livroId, 7);
+                }));
+            }
+            amostragem.start();
+            largada.countDown();
+
+            int realizados = 0;
+            for (Future<Emprestimo> resultado : resultados) {
+                if (resultado.get(60, TimeUnit.SECONDS) != null) {
+                    realizados++;
+                }
+            }
+            emAndamento.set(false);
+            amostragem.join();
+
+            assertEquals(1, realizados, "apenas um empréstimo do único exemplar deve ser realizado");
+            assertEquals(0, estoque(), "o exemplar deve estar emprestado");
+            assertTrue(menorEstoque.get() >= 0, "estoque negativo observado: " + menorEstoque.get());
+            assertEquals(1, emprestimosDoLivro(), "apenas um empréstimo deve ter sido gravado");
+        } finally {
+            emAndamento.set(false);
+            pool.shutdownNow();
+        }
+    }
+
+    private int estoque() throws SQLException {
+        return contar("SELECT quantidade_disponivel FROM livros WHERE id = ?");
+    }
+
+    private int emprestimosDoLivro() throws SQLException {
+        return contar("SELECT COUNT(*) FROM emprestimos WHERE livro_id = ?");
+    }
+
+    private int contar(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, livroId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static int inserir(Connection conn, String sql, String... valores) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < valores.length; i++) {
+                stmt.setString(i + 1, valores[i]);
+            }
+            stmt.executeUpdate();
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.biblioteca.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool limitado de conexões JDBC.
+ *
+ * <p>Mantém conexões físicas abertas para reutilização, evitando o custo de
+ * handshake e autenticação do MySQL a cada consulta. As conexões entregues
+ * aos DAOs são proxies: chamar {@code close()} devolve a conexão ao pool em
+ * vez de encerrá-la, o que mantém o padrão try-with-resources dos DAOs.</p>
+ *
+ * <p>Recursos:</p>
+ * <ul>
+ *   <li>Tamanho mínimo e máximo de conexões</li>
+ *   <li>Remoção de conexões ociosas acima do mínimo</li>
+ *   <li>Validação ao emprestar conexões que ficaram ociosas</li>
+ *   <li>Tempo máximo de espera por uma conexão livre</li>
+ *   <li>Detecção de vazamentos com a pilha de quem emprestou a conexão</li>
+ *   <li>Cache LRU de prepared statements por conexão ({@link StatementCache})</li>
+ * </ul>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class ConnectionPool {
+
+    /**
+     * Fábrica de conexões físicas utilizada pelo pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Fotografia das métricas do pool em um instante.
+     */
+    public record Stats(int total, int emUso, int ociosas, int aguardando,
+                        long emprestimos, long criadas, long destruidas, long timeouts,
+                        long falhasValidacao, long vazamentos, double esperaMediaMs,
+                        long cacheHits, long cacheMisses, long cacheEvictions) {
+
+        /**
+         * Retorna a taxa de acerto do cache de statements.
+         *
+         * @return Fração de preparações atendidas pelo cache (0 a 1)
+         */
+        public double taxaAcertoCache() {
+            long totalCache = cacheHits + cacheMisses;
+            return totalCache == 0 ? 0 : (double) cacheHits / totalCache;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Pool{total=%d, emUso=%d, ociosas=%d, aguardando=%d, emprestimos=%d, criadas=%d, " +
+                "destruidas=%d, timeouts=%d, falhasValidacao=%d, vazamentos=%d, esperaMedia=%.3fms, " +
+                "cacheStatements={hits=%d, misses=%d, evictions=%d, taxaAcerto=%.1f%%}}",
+                total, emUso, ociosas, aguardando, emprestimos, criadas, destruidas, timeouts,
+                falhasValidacao, vazamentos, esperaMediaMs,
+                cacheHits, cacheMisses, cacheEvictions, taxaAcertoCache() * 100);
+        }
+    }
+
+    /** Intervalo da tarefa de manutenção (remoção de ociosas e detecção de vazamentos) */
+    private static final long MANUTENCAO_INTERVALO_MS = 30_000;
+
+    /** Tempo máximo, em segundos, para validar uma conexão */
+    private static final int VALIDACAO_TIMEOUT_S = 2;
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long validationIntervalMs;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+
+    /** Conexões ociosas; a mais recentemente devolvida fica no início (LIFO) */
+    private final LinkedBlockingDeque<PooledConnection> ociosas = new LinkedBlockingDeque<>();
+
+    /** Conexões atualmente emprestadas */
+    private final Set<PooledConnection> emUso = ConcurrentHashMap.newKeySet();
+
+    /** Limita o número de conexões emprestadas ao tamanho máximo do pool */
+    private final Semaphore permissoes;
+
+    private final ScheduledExecutorService manutencao;
+    private volatile boolean fechado;
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger aguardando = new AtomicInteger();
+    private final AtomicLong emprestimos = new AtomicLong();
+    private final AtomicLong criadas = new AtomicLong();
+    private final AtomicLong destruidas = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong falhasValidacao = new AtomicLong();
+    private final AtomicLong vazamentos = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong cacheEvictions = new AtomicLong();
+
+    /**
+     * Cria um novo pool de conexões.
+     *
+     * @param factory Fábrica de conexões físicas
+     * @param minSize Número mínimo de conexões mantidas abertas
+     * @param maxSize Número máximo de conexões simultâneas
+     * @param borrowTimeoutMs Tempo máximo de espera por uma conexão livre
+     * @param idleTimeoutMs Tempo após o qual conexões ociosas acima do mínimo são fechadas
+     * @param validationIntervalMs Conexões ociosas por mais tempo que isso são validadas ao emprestar
+     * @param leakThresholdMs Tempo de uso a partir do qual uma conexão é considerada vazada (0 desativa)
+     * @param statementCacheSize Número de prepared statements mantidos por conexão (0 desativa)
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long borrowTimeoutMs,
+                          long idleTimeoutMs, long validationIntervalMs, long leakThresholdMs,
+                          int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Tamanhos de pool inválidos: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.statementCacheSize = statementCacheSize;
+        this.permissoes = new Semaphore(maxSize, true);
+
+        this.manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ConnectionPool-Manutencao");
+            t.setDaemon(true);
+            return t;
+        });
+        manutencao.scheduleWithFixedDelay(this::executarManutencao, 0,
+                MANUTENCAO_INTERVALO_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Empresta uma conexão do pool.
+     *
+     * <p>A conexão deve ser fechada pelo chamador (de preferência com
+     * try-with-resources) para ser devolvida ao pool.</p>
+     *
+     * @return Conexão emprestada
+     * @throws SQLException Se o pool estiver encerrado, o tempo de espera esgotar
+     *                      ou não for possível abrir uma nova conexão
+     */
+    public Connection borrow() throws SQLException {
+        if (fechado) {
+            throw new SQLException("Pool de conexões encerrado");
+        }
+
+        long inicio = System.nanoTime();
+        aguardando.incrementAndGet();
+        try {
+            if (!permissoes.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                LogManager.warning("Tempo esgotado aguardando conexão do pool. " + getStats());
+                throw new SQLTimeoutException(
+                        "Nenhuma conexão disponível após " + borrowTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool", e);
+        } finally {
+            aguardando.decrementAndGet();
+        }
+
+        try {
+            PooledConnection pooled = obterOciosaValida();
+            if (pooled == null) {
+                pooled = criar();
+            }
+            pooled.emprestar(leakThresholdMs > 0 ? new Throwable("Conexão emprestada aqui") : null);
+            emUso.add(pooled);
+
+            emprestimos.incrementAndGet();
+            esperaTotalNanos.addAndGet(System.nanoTime() - inicio);
+            return pooled.criarHandle();
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Retira uma conexão ociosa, validando-a se ficou parada por muito tempo.
+     */
+    private PooledConnection obterOciosaValida() {
+        PooledConnection pooled;
+        while ((pooled = ociosas.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pooled.ultimoUso < validationIntervalMs || validar(pooled)) {
+                return pooled;
+            }
+            falhasValidacao.incrementAndGet();
+            destruir(pooled);
+        }
+        return null;
+    }
+
+    private boolean validar(PooledConnection pooled) {
+        try {
+            return pooled.fisica.isValid(VALIDACAO_TIMEOUT_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection criar() throws SQLException {
+        Connection fisica = factory.create();
+        total.incrementAndGet();
+        criadas.incrementAndGet();
+        return new PooledConnection(fisica);
+    }
+
+    private void destruir(PooledConnection pooled) {
+        total.decrementAndGet();
+        destruidas.incrementAndGet();
+        if (pooled.statements != null) {
+            // A conexão não está emprestada: nenhum statement do cache está em uso
+            pooled.statements.fechar();
+        }
+        try {
+            pooled.fisica.close();
+        } catch (SQLException e) {
+            LogManager.error("Erro ao fechar conexão do pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Devolve uma conexão ao pool, restaurando o estado padrão da sessão.
+     */
+    private void devolver(PooledConnection pooled) {
+        emUso.remove(pooled);
+        try {
+            if (fechado || pooled.fisica.isClosed()) {
+                destruir(pooled);
+                return;
+            }
+            if (!pooled.fisica.getAutoCommit()) {
+                pooled.fisica.rollback();
+                pooled.fisica.setAutoCommit(true);
+            }
+            if (pooled.fisica.isReadOnly()) {
+                pooled.fisica.setReadOnly(false);
+            }
+            pooled.fisica.clearWarnings();
+            pooled.ultimoUso = System.currentTimeMillis();
+            ociosas.offerFirst(pooled);
+        } catch (SQLException e) {
+            LogManager.error("Conexão descartada ao retornar ao pool: " + e.getMessage());
+            destruir(pooled);
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    /**
+     * Remove conexões ociosas excedentes, completa o mínimo e registra vazamentos.
+     */
+    private void executarManutencao() {
+        try {
+            long agora = System.currentTimeMillis();
+
+            // Remover ociosas antigas acima do mínimo (as mais antigas ficam no fim da fila)
+            PooledConnection pooled;
+            while (total.get() > minSize && (pooled = ociosas.peekLast()) != null
+                    && agora - pooled.ultimoUso > idleTimeoutMs) {
+                if (ociosas.removeLastOccurrence(pooled)) {
+                    destruir(pooled);
+                }
+            }
+
+            // Completar o número mínimo de conexões
+            while (!fechado && total.get() < minSize) {
+                ociosas.offerLast(criar());
+            }
+
+            // Detectar vazamentos
+            if (leakThresholdMs > 0) {
+                for (PooledConnection emprestada : emUso) {
+                    if (!emprestada.vazamentoReportado && agora - emprestada.emprestadaEm > leakThresholdMs) {
+                        emprestada.vazamentoReportado = true;
+                        vazamentos.incrementAndGet();
+                        LogManager.error("Possível vazamento de conexão: em uso há "
+                                + (agora - emprestada.emprestadaEm) + " ms", emprestada.origem);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LogManager.error("Erro ao completar o pool de conexões: " + e.getMessage());
+        } catch (RuntimeException e) {
+            LogManager.error("Erro na manutenção do pool de conexões", e);
+        }
+    }
+
+    /**
+     * Retorna as métricas atuais do pool.
+     *
+     * @return Fotografia das métricas
+     */
+    public Stats getStats() {
+        long n = emprestimos.get();
+        return new Stats(total.get(), emUso.size(), ociosas.size(), aguardando.get(),
+                n, criadas.get(), destruidas.get(), timeouts.get(),
+                falhasValidacao.get(), vazamentos.get(),
+                n == 0 ? 0 : esperaTotalNanos.get() / 1_000_000.0 / n,
+                cacheHits.get(), cacheMisses.get(), cacheEvictions.get());
+    }
+
+    /**
+     * Retorna o tamanho máximo do pool.
+     *
+     * @return Número máximo de conexões
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Encerra o pool, fechando as conexões ociosas.
+     * Conexões em uso são fechadas quando devolvidas.
+     */
+    public void shutdown() {
+        fechado = true;
+        manutencao.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = ociosas.pollFirst()) != null) {
+            destruir(pooled);
+        }
+        LogManager.info("Pool de conexões encerrado. " + getStats());
+    }
+
+    /**
+     * Conexão física gerenciada pelo pool.
+     */
+    private final class PooledConnection {
+
+        private final Connection fisica;
+        private final StatementCache statements;
+        private volatile long ultimoUso = System.currentTimeMillis();
+        private volatile long emprestadaEm;
+        private volatile Throwable origem;
+        private volatile boolean vazamentoReportado;
+
+        private PooledConnection(Connection fisica) {
+            this.fisica = fisica;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(fisica, statementCacheSize, cacheHits, cacheMisses, cacheEvictions)
+                    : null;
+        }
+
+        private void emprestar(Throwable origem) {
+            this.emprestadaEm = System.currentTimeMillis();
+            this.origem = origem;
+            this.vazamentoReportado = false;
+        }
+
+        /**
+         * Cria um novo handle para este empréstimo. Cada empréstimo recebe seu
+         * próprio proxy, de forma que um handle antigo não consiga usar a conexão
+         * depois de devolvida.
+         */
+        private Connection criarHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * Intercepta as chamadas feitas pelos DAOs à conexão emprestada.
+     */
+    private final class Handle implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private boolean fechado;
+
+        private Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!fechado && pooled.statements != null && isPrepareCacheavel(method, args)) {
+                int autoKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                return pooled.statements.preparar((Connection) proxy, (String) args[0], autoKeys);
+            }
+            switch (method.getName()) {
+                case "close":
+                    if (!fechado) {
+                        fechado = true;
+                        devolver(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return fechado || pooled.fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.fisica + (fechado ? ", devolvida" : "") + "]";
+                default:
+                    if (fechado) {
+                        throw new SQLException("Conexão já devolvida ao pool");
+                    }
+                    try {
+                        return method.invoke(pooled.fisica, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        /**
+         * Apenas {@code prepareStatement(String)} e {@code prepareStatement(String, int)}
+         * passam pelo cache; variantes com tipo de cursor (usadas em leituras em
+         * streaming) sempre criam um statement novo.
+         */
+        private boolean isPrepareCacheavel(Method method, Object[] args) {
+            if (!method.getName().equals("prepareStatement")) {
+                return false;
+            }
+            Class<?>[] tipos = method.getParameterTypes();
+            return tipos.length == 1 || (tipos.length == 2 && tipos[1] == int.class);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dao.EmprestimosDiariosDAO;
+import com.biblioteca.utils.LogManager;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serviço de consolidação diária da circulação ({@code emprestimos_diarios}).
+ *
+ * <p>O dia corrente é mantido pelas procedures de empréstimo e devolução e pela
+ * marcação de atrasados. Este serviço cuida do restante, em segundo plano:</p>
+ * <ul>
+ *   <li>carga do histórico: recalcula os dias anteriores à marca d'água da
+ *       carga, do mais recente para o mais antigo, em lotes curtos de
+ *       {@value #DIAS_POR_LOTE} dias — cada lote grava a marca na mesma
+ *       transação, então a carga pode ser interrompida e é retomada de onde
+ *       parou na próxima execução;</li>
+ *   <li>revisão do dia anterior, uma vez por dia, para incorporar alterações
+ *       feitas fora da aplicação;</li>
+ *   <li>recálculo dos dias alterados por escritas do DAO fora das procedures.</li>
+ * </ul>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class ConsolidacaoService {
+
+    /** Intervalo entre execuções, em minutos */
+    private static final long INTERVALO_MIN = 60;
+
+    /** Dias recalculados por transação na carga do histórico */
+    private static final int DIAS_POR_LOTE = 31;
+
+    /** Pausa entre lotes da carga do histórico, para não disputar o banco com a aplicação */
+    private static final long PAUSA_ENTRE_LOTES_MS = 200;
+
+    private static final EmprestimosDiariosDAO DAO = new EmprestimosDiariosDAO();
+
+    /** Último dia revisado pela revisão diária */
+    private static LocalDate ultimoDiaRevisado;
+
+    private static ScheduledExecutorService executor;
+
+    /**
+     * Inicia a carga do histórico e a manutenção periódica. Chamado na inicialização da aplicação.
+     */
+    public static synchronized void iniciar() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Consolidacao");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(ConsolidacaoService::executar, 0, INTERVALO_MIN, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Encerra a manutenção periódica; uma carga em andamento para ao fim do lote atual.
+     */
+    public static synchronized void parar() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Executa uma rodada de manutenção: histórico pendente, revisão do dia anterior e dias alterados.
+     */
+    private static void executar() {
+        try {
+            LocalDate ontem = LocalDate.now().minusDays(1);
+            if (!carregarHistorico(ontem)) {
+                return;
+            }
+
+            if (!ontem.equals(ultimoDiaRevisado) && DAO.consolidar(ontem, ontem)) {
+                ultimoDiaRevisado = ontem;
+            }
+
+            for (LocalDate dia : DAO.retirarPendentes()) {
+                DAO.consolidar(dia, dia);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LogManager.error("Erro na consolidação diária de empréstimos", e);
+        }
+    }
+
+    /**
+     * Recalcula, em lotes, os dias entre o primeiro empréstimo e a marca d'água da carga.
+     *
+     * @param ontem Último dia que a carga pode recalcular (o dia corrente é mantido pelas procedures)
+     * @return true se não há histórico pendente
+     */
+    private static boolean carregarHistorico(LocalDate ontem) throws InterruptedException {
+        LocalDate primeiroEmprestimo = DAO.primeiroEmprestimo();
+        if (primeiroEmprestimo == null) {
+            return true;
+        }
+
+        LocalDate inicioHistorico = DAO.inicioHistorico(ontem.plusDays(1));
+        if (inicioHistorico == null) {
+            return false;
+        }
+        LocalDate fim = inicioHistorico.isAfter(ontem) ? ontem : inicioHistorico.minusDays(1);
+        if (fim.isBefore(primeiroEmprestimo)) {
+            return true;
+        }
+
+        LogManager.info("Consolidando histórico de empréstimos de " + primeiroEmprestimo + " a " + fim);
+        long inicio = System.currentTimeMillis();
+        int lotes = 0;
+
+        // Do mais recente para o mais antigo: a marca d'água guarda o progresso
+        while (!fim.isBefore(primeiroEmprestimo)) {
+            LocalDate inicioLote = fim.minusDays(DIAS_POR_LOTE - 1);
+            if (inicioLote.isBefore(primeiroEmprestimo)) {
+                inicioLote = primeiroEmprestimo;
+            }
+            if (!DAO.consolidarHistorico(inicioLote, fim)) {
+                return false;
+            }
+            lotes++;
+            fim = inicioLote.minusDays(1);
+            Thread.sleep(PAUSA_ENTRE_LOTES_MS);
+        }
+
+        LogManager.info("Histórico de empréstimos consolidado: " + lotes + " lotes em "
+                + (System.currentTimeMillis() - inicio) + " ms");
+        return true;
+    }
+}
@@ -16,7 +16,7 @@ import java.sql.SQLException;
 public class DatabaseConnection {
     
     /** URL de conexão com o banco de dados */
-    private static final String URL = "jdbc:mysql://localhost:3306/biblioteca_digital?useSSL=false&serverTimezone=America/Sao_Paulo&allowPublicKeyRetrieval=true";
+    private static final String URL = "jdbc:mysql://localhost:3306/biblioteca_digital?useSSL=false&serverTimezone=America/Sao_Paulo&allowPublicKeyRetrieval=true&useServerPrepStmts=true";
     
     /** Usuário do banco de dados */
     private static final String USER = "root";
@@ -24,12 +24,36 @@ public class DatabaseConnection {
     /** Senha do banco de dados */
     private static final String PASSWORD = "";
     
+    /** Número mínimo de conexões mantidas no pool */
+    private static final int POOL_MIN_SIZE = 2;
+    
+    /** Número máximo de conexões simultâneas no pool */
+    private static final int POOL_MAX_SIZE = 10;
+    
+    /** Tempo máximo de espera por uma conexão livre (ms) */
+    private static final long POOL_BORROW_TIMEOUT_MS = 5_000;
+    
+    /** Tempo após o qual conexões ociosas acima do mínimo são fechadas (ms) */
+    private static final long POOL_IDLE_TIMEOUT_MS = 5 * 60_000;
+    
+    /** Conexões paradas por mais tempo que isso são validadas antes do uso (ms) */
+    private static final long POOL_VALIDATION_INTERVAL_MS = 1_000;
+    
+    /** Tempo de uso a partir do qual uma conexão é considerada vazada (ms) */
+    private static final long POOL_LEAK_THRESHOLD_MS = 60_000;
+    
+    /** Número de prepared statements mantidos em cache por conexão */
+    private static final int POOL_STATEMENT_CACHE_SIZE = 64;
+    
     /** Instância única da classe */
     private static DatabaseConnection instance;
     
     /** Conexão atual */
     private Connection connection;
     
+    /** Pool de conexões utilizado pelos DAOs */
+    private final ConnectionPool pool;
+    
     /**
      * Construtor privado para implementar Singleton.
      */
@@ -42,6 +66,10 @@ public class DatabaseConnection {
             LogManager.error("Driver MySQL não encontrado: " + e.getMessage());
             throw new RuntimeException("Driver MySQL não encontrado", e);
         }
+        
+        pool = new ConnectionPool(this::getNewConnection, POOL_MIN_SIZE, POOL_MAX_SIZE,
+                POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_VALIDATION_INTERVAL_MS,
+                POOL_LEAK_THRESHOLD_MS, POOL_STATEMENT_CACHE_SIZE);
     }
     
     /**
@@ -92,6 +120,35 @@ public class DatabaseConnection {
         }
     }
     
+    /**
+     * Obtém uma conexão do pool.
+     * 
+     * <p>Ao ser fechada, a conexão é devolvida ao pool em vez de encerrada,
+     * por isso deve sempre ser usada com try-with-resources.</p>
+     * 
+     * @return Conexão emprestada do pool
+     * @throws SQLException Se não houver conexão disponível no tempo limite
+     */
+    public Connection getPooledConnection() throws SQLException {
+        return pool.borrow();
+    }
+    
+    /**
+     * Retorna as métricas do pool de conexões para monitoramento.
+     * 
+     * @return Métricas atuais do pool
+     */
+    public ConnectionPool.Stats getPoolStats() {
+        return pool.getStats();
+    }
+    
+    /**
+     * Encerra o pool de conexões.
+     */
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+    
     /**
      * Fecha a conexão atual com o banco de dados.
      */
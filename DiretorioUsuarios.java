@@ -0,0 +1,160 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.model.UsuarioResumo;
+import com.biblioteca.utils.IndiceInvertido;
+import com.biblioteca.utils.TriePrefixos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Diretório de usuários em memória, mantido pelo {@link UsuarioDAO}.
+ *
+ * <p>Guarda a projeção de listagem de todos os usuários com três índices:
+ * termos do nome ({@link IndiceInvertido}, sem acentos e por prefixo),
+ * e-mail normalizado em ordem (consulta exata e por prefixo) e as sugestões
+ * de usuários ativos ({@link TriePrefixos}). O DAO atualiza o diretório a
+ * cada escrita bem-sucedida; a carga inicial é feita em segundo plano e,
+ * até terminar, o DAO continua consultando o banco.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+final class DiretorioUsuarios {
+
+    private final Map<Integer, UsuarioResumo> porId = new HashMap<>();
+    private final TreeMap<String, Integer> porEmail = new TreeMap<>();
+    private final IndiceInvertido nomes = new IndiceInvertido();
+    private final TriePrefixos<UsuarioResumo> sugestoes = new TriePrefixos<>();
+
+    private volatile boolean pronto;
+
+    /**
+     * @return true após a carga inicial
+     */
+    boolean isPronto() {
+        return pronto;
+    }
+
+    /**
+     * Marca o fim da carga inicial.
+     */
+    void marcarPronto() {
+        pronto = true;
+    }
+
+    /**
+     * @return Número de usuários no diretório
+     */
+    synchronized int tamanho() {
+        return porId.size();
+    }
+
+    /**
+     * Adiciona um usuário lido na carga inicial, se ainda não estiver presente
+     * (usuários gravados durante a carga já estão com os dados mais recentes).
+     */
+    synchronized void carregado(UsuarioResumo usuario) {
+        if (!porId.containsKey(usuario.id())) {
+            gravado(usuario);
+        }
+    }
+
+    /**
+     * Registra a gravação de um usuário (inserção ou atualização).
+     */
+    synchronized void gravado(UsuarioResumo usuario) {
+        UsuarioResumo anterior = porId.put(usuario.id(), usuario);
+        if (anterior != null) {
+            porEmail.remove(normalizarEmail(anterior.email()));
+        }
+        porEmail.put(normalizarEmail(usuario.email()), usuario.id());
+        nomes.indexar(usuario.id(), usuario.nome());
+
+        if (usuario.ativo()) {
+            sugestoes.colocar(usuario.id(), usuario, 0, usuario.nome(), usuario.email());
+        } else {
+            sugestoes.remover(usuario.id());
+        }
+    }
+
+    /**
+     * Registra a desativação de um usuário.
+     */
+    synchronized void desativado(int id) {
+        UsuarioResumo u = porId.get(id);
+        if (u != null) {
+            gravado(new UsuarioResumo(u.id(), u.nome(), u.email(), u.tipo(), false));
+        }
+    }
+
+    /**
+     * Registra a remoção de um usuário.
+     */
+    synchronized void removido(int id) {
+        UsuarioResumo anterior = porId.remove(id);
+        if (anterior != null) {
+            porEmail.remove(normalizarEmail(anterior.email()));
+        }
+        nomes.remover(id);
+        sugestoes.remover(id);
+    }
+
+    /**
+     * @return true se algum usuário do diretório usa o e-mail (sem diferenciar
+     *         maiúsculas); false não exclui um cadastro feito por outro cliente
+     */
+    synchronized boolean emailExiste(String email) {
+        return porEmail.containsKey(normalizarEmail(email));
+    }
+
+    /**
+     * Busca usuários por nome (termos, por prefixo) ou pelo início do e-mail.
+     *
+     * @param termo Texto digitado
+     * @param limite Número máximo de resultados
+     * @return Usuários encontrados: primeiro por relevância do nome, depois por e-mail
+     */
+    synchronized List<UsuarioResumo> buscar(String termo, int limite) {
+        List<UsuarioResumo> usuarios = new ArrayList<>();
+        Set<Integer> vistos = new HashSet<>();
+
+        // Um "@" indica que o texto é um e-mail, não um nome
+        if (termo.indexOf('@') < 0) {
+            for (Integer id : nomes.buscar(termo, limite)) {
+                vistos.add(id);
+                usuarios.add(porId.get(id));
+            }
+        }
+
+        String email = normalizarEmail(termo);
+        if (!email.isEmpty()) {
+            for (Integer id : porEmail.subMap(email, true, email + Character.MAX_VALUE, false).values()) {
+                if (usuarios.size() >= limite) break;
+                if (vistos.add(id)) {
+                    usuarios.add(porId.get(id));
+                }
+            }
+        }
+        return usuarios;
+    }
+
+    /**
+     * Sugere usuários ativos cujo nome ou e-mail começa pelo texto digitado.
+     * Todos têm o mesmo peso: saem em ordem alfabética do nome ou e-mail
+     * encontrado, como na consulta ao banco ordenada por nome.
+     */
+    List<UsuarioResumo> sugerirAtivos(String texto, int limite) {
+        return sugestoes.sugerir(texto, limite, u -> true);
+    }
+
+    private static String normalizarEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,27 +2,29 @@ package com.biblioteca.controller;
 
 import com.biblioteca.dao.*;
 import com.biblioteca.model.*;
+import com.biblioteca.service.CirculacaoService;
 import com.biblioteca.utils.LogManager;
-import javafx.collections.FXCollections;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+
+import java.time.LocalDate;
 
 /**
  * Controller para gestão de empréstimos.
  */
 public class EmprestimoController {
     
-    @FXML private TableView<Emprestimo> tableEmprestimos;
-    @FXML private TableColumn<Emprestimo, Integer> colId;
-    @FXML private TableColumn<Emprestimo, String> colUsuario;
-    @FXML private TableColumn<Emprestimo, String> colLivro;
-    @FXML private TableColumn<Emprestimo, String> colDataEmp;
-    @FXML private TableColumn<Emprestimo, String> colDataDev;
-    @FXML private TableColumn<Emprestimo, StatusEmprestimo> colStatus;
+    @FXML private TableView<EmprestimoResumo> tableEmprestimos;
+    @FXML private TableColumn<EmprestimoResumo, Integer> colId;
+    @FXML private TableColumn<EmprestimoResumo, String> colUsuario;
+    @FXML private TableColumn<EmprestimoResumo, String> colLivro;
+    @FXML private TableColumn<EmprestimoResumo, LocalDate> colDataEmp;
+    @FXML private TableColumn<EmprestimoResumo, LocalDate> colDataDev;
+    @FXML private TableColumn<EmprestimoResumo, StatusEmprestimo> colStatus;
     
-    @FXML private ComboBox<Usuario> cmbUsuario;
-    @FXML private ComboBox<Livro> cmbLivro;
+    @FXML private CampoSugestao<UsuarioResumo> txtUsuario;
+    @FXML private CampoSugestao<LivroResumo> txtLivro;
     @FXML private Label lblMensagem;
     @FXML private RadioButton rbTodos;
     @FXML private RadioButton rbAtivos;
@@ -31,18 +33,24 @@ public class EmprestimoController {
     private EmprestimoDAO emprestimoDAO = new EmprestimoDAO();
     private UsuarioDAO usuarioDAO = new UsuarioDAO();
     private LivroDAO livroDAO = new LivroDAO();
+    private CirculacaoService circulacaoService = new CirculacaoService();
+    private CarregadorTela carregador;
     
     @FXML
     public void initialize() {
-        colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colUsuario.setCellValueFactory(new PropertyValueFactory<>("usuarioNome"));
-        colLivro.setCellValueFactory(new PropertyValueFactory<>("livroTitulo"));
-        colDataEmp.setCellValueFactory(new PropertyValueFactory<>("dataEmprestimo"));
-        colDataDev.setCellValueFactory(new PropertyValueFactory<>("dataDevolucaoPrevista"));
-        colStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
+        carregador = new CarregadorTela(tableEmprestimos);
+        
+        colId.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().id()));
+        colUsuario.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().usuarioNome()));
+        colLivro.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().livroTitulo()));
+        colDataEmp.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().dataEmprestimo()));
+        colDataDev.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().dataDevolucaoPrevista()));
+        colStatus.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().status()));
         
-        cmbUsuario.setItems(FXCollections.observableArrayList(usuarioDAO.listarAtivos()));
-        cmbLivro.setItems(FXCollections.observableArrayList(livroDAO.listarDisponiveis()));
+        txtUsuario.setFonte(usuarioDAO::sugerirAtivos);
+        txtUsuario.setFormatador(u -> u.nome() + " <" + u.email() + ">");
+        txtLivro.setFonte(livroDAO::sugerirDisponiveis);
+        txtLivro.setFormatador(l -> l.titulo() + " - " + l.autor() + " (" + l.quantidadeDisponivel() + " disp.)");
         
         ToggleGroup group = new ToggleGroup();
         rbTodos.setToggleGroup(group);
@@ -56,25 +64,28 @@ public class EmprestimoController {
     }
     
     private void carregarEmprestimos() {
-        tableEmprestimos.setItems(FXCollections.observableArrayList(emprestimoDAO.listarTodos()));
+        ListaPaginada.exibir(tableEmprestimos, emprestimoDAO::listarPagina, EmprestimoResumo::id, carregador);
     }
     
     @FXML
     private void handleEmprestar() {
-        if (cmbUsuario.getValue() == null) { showError("Selecione um usuário."); return; }
-        if (cmbLivro.getValue() == null) { showError("Selecione um livro."); return; }
+        if (txtUsuario.getValor() == null) { showError("Selecione um usuário."); return; }
+        if (txtLivro.getValor() == null) { showError("Selecione um livro."); return; }
         
         try {
-            Usuario usuario = cmbUsuario.getValue();
-            Livro livro = cmbLivro.getValue();
+            UsuarioResumo usuario = txtUsuario.getValor();
+            LivroResumo livro = txtLivro.getValor();
             
-            Emprestimo emp = new Emprestimo(usuario.getId(), livro.getId(), usuario.getDiasEmprestimo());
+            Emprestimo emp = circulacaoService.realizarEmprestimo(usuario.id(), livro.id(), usuario.diasEmprestimo());
             
-            if (emprestimoDAO.inserir(emp) && livroDAO.decrementarDisponivel(livro.getId())) {
+            if (emp == null) {
+                showError("Livro indisponível para empréstimo.");
+                txtLivro.limpar();
+            } else {
                 LogManager.logUserAction(SessionManager.getUsuarioLogado().getId(), "EMPRESTIMO", 
-                    "Empréstimo realizado: " + livro.getTitulo() + " para " + usuario.getNome());
+                    "Empréstimo realizado: " + livro.titulo() + " para " + usuario.nome());
                 showSuccess("Empréstimo realizado! Devolução: " + emp.getDataDevolucaoPrevista());
-                cmbLivro.setItems(FXCollections.observableArrayList(livroDAO.listarDisponiveis()));
+                txtLivro.limpar();
                 carregarEmprestimos();
             }
         } catch (Exception e) { showError("Erro ao realizar empréstimo."); LogManager.error("Erro empréstimo", e); }
@@ -82,16 +93,15 @@ public class EmprestimoController {
     
     @FXML
     private void handleDevolver() {
-        Emprestimo emp = tableEmprestimos.getSelectionModel().getSelectedItem();
+        EmprestimoResumo emp = tableEmprestimos.getSelectionModel().getSelectedItem();
         if (emp == null) { showError("Selecione um empréstimo."); return; }
-        if (emp.getStatus() == StatusEmprestimo.DEVOLVIDO) { showError("Já devolvido."); return; }
+        if (emp.status() == StatusEmprestimo.DEVOLVIDO) { showError("Já devolvido."); return; }
         
         try {
-            if (emprestimoDAO.devolver(emp.getId()) && livroDAO.incrementarDisponivel(emp.getLivroId())) {
+            if (circulacaoService.devolver(emp.id())) {
                 LogManager.logUserAction(SessionManager.getUsuarioLogado().getId(), "DEVOLUCAO", 
-                    "Devolução: " + emp.getLivroTitulo());
+                    "Devolução: " + emp.livroTitulo());
                 showSuccess("Devolução realizada!");
-                cmbLivro.setItems(FXCollections.observableArrayList(livroDAO.listarDisponiveis()));
                 carregarEmprestimos();
             }
         } catch (Exception e) { showError("Erro ao devolver."); LogManager.error("Erro devolução", e); }
@@ -100,9 +110,9 @@ public class EmprestimoController {
     @FXML
     private void handleFiltrar() {
         if (rbAtivos.isSelected()) {
-            tableEmprestimos.setItems(FXCollections.observableArrayList(emprestimoDAO.listarAtivos()));
+            ListaPaginada.exibirBusca(tableEmprestimos, emprestimoDAO::listarResumoAtivos, carregador);
         } else if (rbAtrasados.isSelected()) {
-            tableEmprestimos.setItems(FXCollections.observableArrayList(emprestimoDAO.listarAtrasados()));
+            ListaPaginada.exibirBusca(tableEmprestimos, emprestimoDAO::listarResumoAtrasados, carregador);
         } else {
             carregarEmprestimos();
         }
@@ -1,16 +1,21 @@
 package com.biblioteca.dao;
 
 import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.EmprestimoResumo;
 import com.biblioteca.model.StatusEmprestimo;
+import com.biblioteca.model.TipoUsuario;
 import com.biblioteca.utils.DatabaseConnection;
 import com.biblioteca.utils.LogManager;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Data Access Object para operações de empréstimos.
@@ -19,9 +24,109 @@ import java.util.Map;
  */
 public class EmprestimoDAO {
     
+    private static final String FROM_JOIN =
+            "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id ";
+    
+    /** Colunas da entidade com os dados de exibição de usuário e livro (sem observações e auditoria) */
+    private static final String COLUNAS_COMPLETO =
+            "e.id, e.usuario_id, e.livro_id, e.data_emprestimo, e.data_devolucao_prevista, e.data_devolucao_real, e.status, " +
+            "u.nome as usuario_nome, u.email as usuario_email, l.titulo as livro_titulo, l.autor as livro_autor";
+    
+    private static final String SELECT_COMPLETO = "SELECT " + COLUNAS_COMPLETO + " " + FROM_JOIN;
+    
+    /** Projeção da tabela de empréstimos: apenas as colunas exibidas */
+    private static final String SELECT_RESUMO =
+            "SELECT e.id, e.usuario_id, e.livro_id, u.nome as usuario_nome, l.titulo as livro_titulo, " +
+            "e.data_emprestimo, e.data_devolucao_prevista, e.status " + FROM_JOIN;
+    
+    private static final String WHERE_ATIVOS = "WHERE e.status IN ('ATIVO', 'ATRASADO') ORDER BY e.data_devolucao_prevista";
+    private static final String WHERE_ATRASADOS =
+            "WHERE e.status != 'DEVOLVIDO' AND e.data_devolucao_prevista < CURDATE() ORDER BY e.data_devolucao_prevista";
+    
+    private static final String SQL_BUSCAR_POR_ID = "SELECT " + COLUNAS_COMPLETO + ", e.observacoes " + FROM_JOIN + "WHERE e.id = ?";
+    private static final String SQL_LISTAR_TODOS = SELECT_COMPLETO + "ORDER BY e.data_emprestimo DESC";
+    private static final String SQL_LISTAR_ATIVOS = SELECT_COMPLETO + WHERE_ATIVOS;
+    private static final String SQL_LISTAR_ATRASADOS = SELECT_COMPLETO + WHERE_ATRASADOS;
+    private static final String SQL_RESUMO_ATIVOS = SELECT_RESUMO + WHERE_ATIVOS;
+    private static final String SQL_RESUMO_ATRASADOS = SELECT_RESUMO + WHERE_ATRASADOS;
+    
+    /**
+     * Atrasados em ordem total (vencimento, id), para dividir o relatório em faixas contíguas. O filtro por status
+     * usa {@code idx_status_vencimento}, que não alcança os empréstimos devolvidos (a maior parte da tabela).
+     */
+    private static final String WHERE_ATRASADOS_EM =
+            "WHERE e.status IN ('ATIVO', 'ATRASADO') AND e.data_devolucao_prevista < ? ";
+    private static final String ORDEM_ATRASADOS = "ORDER BY e.data_devolucao_prevista, e.id";
+    private static final String DESDE_POSICAO = "AND (e.data_devolucao_prevista > ? OR (e.data_devolucao_prevista = ? AND e.id >= ?)) ";
+    private static final String ATE_POSICAO = "AND (e.data_devolucao_prevista < ? OR (e.data_devolucao_prevista = ? AND e.id < ?)) ";
+    
+    /** Posição de um empréstimo na ordem do relatório de atrasados; {@code linha} é o seu número (a partir de 0) quando os limites foram lidos. */
+    public record Posicao(LocalDate vencimento, int id, long linha) { }
+    
+    private static final RowMapper.Fabrica<Emprestimo> EMPRESTIMO = c -> {
+        int id = c.indice("id"), usuarioId = c.indice("usuario_id"), livroId = c.indice("livro_id");
+        int dataEmprestimo = c.indice("data_emprestimo"), dataPrevista = c.indice("data_devolucao_prevista");
+        int dataReal = c.indice("data_devolucao_real"), status = c.indice("status");
+        int observacoes = c.opcional("observacoes");
+        int usuarioNome = c.opcional("usuario_nome"), usuarioEmail = c.opcional("usuario_email");
+        int livroTitulo = c.opcional("livro_titulo"), livroAutor = c.opcional("livro_autor");
+        return rs -> {
+            Emprestimo emp = new Emprestimo();
+            emp.setId(rs.getInt(id));
+            emp.setUsuarioId(rs.getInt(usuarioId));
+            emp.setLivroId(rs.getInt(livroId));
+            emp.setDataEmprestimo(rs.getDate(dataEmprestimo).toLocalDate());
+            emp.setDataDevolucaoPrevista(rs.getDate(dataPrevista).toLocalDate());
+            Date devolucaoReal = rs.getDate(dataReal);
+            if (devolucaoReal != null) emp.setDataDevolucaoReal(devolucaoReal.toLocalDate());
+            emp.setStatus(StatusEmprestimo.valueOf(rs.getString(status)));
+            if (observacoes > 0) emp.setObservacoes(rs.getString(observacoes));
+            if (usuarioNome > 0) emp.setUsuarioNome(rs.getString(usuarioNome));
+            if (usuarioEmail > 0) emp.setUsuarioEmail(rs.getString(usuarioEmail));
+            if (livroTitulo > 0) emp.setLivroTitulo(rs.getString(livroTitulo));
+            if (livroAutor > 0) emp.setLivroAutor(rs.getString(livroAutor));
+            return emp;
+        };
+    };
+    
+    private static final RowMapper.Fabrica<EmprestimoResumo> RESUMO = c -> {
+        int id = c.indice("id"), usuarioId = c.indice("usuario_id"), livroId = c.indice("livro_id");
+        int usuarioNome = c.indice("usuario_nome"), livroTitulo = c.indice("livro_titulo");
+        int dataEmprestimo = c.indice("data_emprestimo"), dataPrevista = c.indice("data_devolucao_prevista"), status = c.indice("status");
+        return rs -> new EmprestimoResumo(rs.getInt(id), rs.getInt(usuarioId), rs.getInt(livroId),
+                rs.getString(usuarioNome), rs.getString(livroTitulo),
+                rs.getDate(dataEmprestimo).toLocalDate(), rs.getDate(dataPrevista).toLocalDate(),
+                StatusEmprestimo.valueOf(rs.getString(status)));
+    };
+    private static final String SQL_PROXIMOS_VENCIMENTO = SELECT_COMPLETO +
+            "WHERE e.status = 'ATIVO' AND e.data_devolucao_prevista BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL ? DAY)";
+    private static final String SQL_LISTAR_POR_USUARIO = SELECT_COMPLETO +
+            "WHERE e.usuario_id = ? ORDER BY e.data_emprestimo DESC";
+    private static final String SQL_ABERTOS_POR_USUARIO = SELECT_COMPLETO +
+            "WHERE e.status IN ('ATIVO', 'ATRASADO') AND u.tipo = ? AND e.usuario_id > ? " +
+            "ORDER BY e.usuario_id, e.data_devolucao_prevista, e.id";
+    
+    /** Atrasos que serão marcados, somados na consolidação diária no dia seguinte ao vencimento */
+    private static final String CONSOLIDAR_ATRASOS_INICIO =
+            "INSERT INTO emprestimos_diarios (dia, categoria_id, tipo_usuario, atrasos) " +
+            "SELECT DATE_ADD(e.data_devolucao_prevista, INTERVAL 1 DAY), l.categoria_id, u.tipo, COUNT(*) " + FROM_JOIN +
+            "WHERE e.status = 'ATIVO' AND e.data_devolucao_prevista < ? ";
+    private static final String CONSOLIDAR_ATRASOS_FIM =
+            "GROUP BY e.data_devolucao_prevista, l.categoria_id, u.tipo " +
+            "ON DUPLICATE KEY UPDATE atrasos = atrasos + VALUES(atrasos)";
+    private static final String SQL_MARCAR_ATRASADOS =
+            "UPDATE emprestimos SET status = 'ATRASADO' WHERE status = 'ATIVO' AND data_devolucao_prevista < ?";
+    private static final String SQL_IDS_ATRASADOS =
+            "SELECT id FROM emprestimos WHERE status = 'ATIVO' AND id > ? AND data_devolucao_prevista < ? ORDER BY id LIMIT ?";
+    
+    /** Empréstimos por transação na atualização de atrasados */
+    private static final int LOTE_ATRASOS = 500;
+    private static final long PAUSA_MIN_MS = 20;
+    private static final long PAUSA_MAX_MS = 1000;
+    
     public boolean inserir(Emprestimo emprestimo) {
         String sql = "INSERT INTO emprestimos (usuario_id, livro_id, data_emprestimo, data_devolucao_prevista, status) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setInt(1, emprestimo.getUsuarioId());
             stmt.setInt(2, emprestimo.getLivroId());
@@ -32,6 +137,8 @@ public class EmprestimoDAO {
                 try (ResultSet keys = stmt.getGeneratedKeys()) {
                     if (keys.next()) emprestimo.setId(keys.getInt(1));
                 }
+                EstatisticasDAO.invalidar();
+                EmprestimosDiariosDAO.diaAlterado(emprestimo.getDataEmprestimo());
                 LogManager.info("Empréstimo criado: ID " + emprestimo.getId());
                 return true;
             }
@@ -41,11 +148,17 @@ public class EmprestimoDAO {
     
     public boolean devolver(int emprestimoId) {
         String sql = "UPDATE emprestimos SET data_devolucao_real = ?, status = 'DEVOLVIDO' WHERE id = ? AND status != 'DEVOLVIDO'";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setDate(1, Date.valueOf(LocalDate.now()));
+            LocalDate hoje = LocalDate.now();
+            stmt.setDate(1, Date.valueOf(hoje));
             stmt.setInt(2, emprestimoId);
             if (stmt.executeUpdate() > 0) {
+                EstatisticasDAO.invalidar();
+                // A devolução e um eventual atraso, que a consolidação conta no dia seguinte ao vencimento
+                EmprestimosDiariosDAO.diaAlterado(hoje);
+                LocalDate prevista = dataPrevista(conn, emprestimoId);
+                if (prevista != null && prevista.isBefore(hoje)) EmprestimosDiariosDAO.diaAlterado(prevista.plusDays(1));
                 LogManager.info("Empréstimo devolvido: ID " + emprestimoId);
                 return true;
             }
@@ -53,14 +166,19 @@ public class EmprestimoDAO {
         return false;
     }
     
+    private static LocalDate dataPrevista(Connection conn, int emprestimoId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT data_devolucao_prevista FROM emprestimos WHERE id = ?")) {
+            stmt.setInt(1, emprestimoId);
+            try (ResultSet rs = stmt.executeQuery()) { return rs.next() ? rs.getDate(1).toLocalDate() : null; }
+        }
+    }
+    
     public Emprestimo buscarPorId(int id) {
-        String sql = "SELECT e.*, u.nome as usuario_nome, u.email as usuario_email, l.titulo as livro_titulo, l.autor as livro_autor " +
-                     "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id WHERE e.id = ?";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_BUSCAR_POR_ID)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return mapResultSet(rs);
+                return RowMapper.mapearPrimeira(rs, SQL_BUSCAR_POR_ID, EMPRESTIMO);
             }
         } catch (SQLException e) { LogManager.error("Erro ao buscar empréstimo", e); }
         return null;
@@ -68,52 +186,173 @@ public class EmprestimoDAO {
     
     public List<Emprestimo> listarTodos() {
         List<Emprestimo> lista = new ArrayList<>();
-        String sql = "SELECT e.*, u.nome as usuario_nome, u.email as usuario_email, l.titulo as livro_titulo, l.autor as livro_autor " +
-                     "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id ORDER BY e.data_emprestimo DESC";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) lista.add(mapResultSet(rs));
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_LISTAR_TODOS);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper.mapearTodas(rs, SQL_LISTAR_TODOS, EMPRESTIMO, lista::add);
         } catch (SQLException e) { LogManager.error("Erro ao listar empréstimos", e); }
         return lista;
     }
     
+    /** Página do histórico, mais recentes primeiro (keyset em data_emprestimo, id): começa após {@code ultimo}. */
+    public List<EmprestimoResumo> listarPagina(EmprestimoResumo ultimo, int limite) {
+        List<EmprestimoResumo> lista = new ArrayList<>();
+        String sql = SELECT_RESUMO +
+                     (ultimo == null ? "" : "WHERE e.data_emprestimo < ? OR (e.data_emprestimo = ? AND e.id < ?) ") +
+                     "ORDER BY e.data_emprestimo DESC, e.id DESC LIMIT ?";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (ultimo != null) {
+                stmt.setDate(i++, Date.valueOf(ultimo.dataEmprestimo()));
+                stmt.setDate(i++, Date.valueOf(ultimo.dataEmprestimo()));
+                stmt.setInt(i++, ultimo.id());
+            }
+            stmt.setInt(i, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, sql, RESUMO, lista::add);
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao listar página de empréstimos", e); }
+        return lista;
+    }
+    
     public List<Emprestimo> listarAtivos() {
         List<Emprestimo> lista = new ArrayList<>();
-        String sql = "SELECT e.*, u.nome as usuario_nome, u.email as usuario_email, l.titulo as livro_titulo, l.autor as livro_autor " +
-                     "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id " +
-                     "WHERE e.status IN ('ATIVO', 'ATRASADO') ORDER BY e.data_devolucao_prevista";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) lista.add(mapResultSet(rs));
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_LISTAR_ATIVOS);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper.mapearTodas(rs, SQL_LISTAR_ATIVOS, EMPRESTIMO, lista::add);
         } catch (SQLException e) { LogManager.error("Erro ao listar empréstimos ativos", e); }
         return lista;
     }
     
     public List<Emprestimo> listarAtrasados() {
         List<Emprestimo> lista = new ArrayList<>();
-        String sql = "SELECT e.*, u.nome as usuario_nome, u.email as usuario_email, l.titulo as livro_titulo, l.autor as livro_autor " +
-                     "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id " +
-                     "WHERE e.status != 'DEVOLVIDO' AND e.data_devolucao_prevista < CURDATE() ORDER BY e.data_devolucao_prevista";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) lista.add(mapResultSet(rs));
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_LISTAR_ATRASADOS);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper.mapearTodas(rs, SQL_LISTAR_ATRASADOS, EMPRESTIMO, lista::add);
         } catch (SQLException e) { LogManager.error("Erro ao listar empréstimos atrasados", e); }
         return lista;
     }
     
+    /** Ativos e atrasados na projeção da tabela de empréstimos. */
+    public List<EmprestimoResumo> listarResumoAtivos() { return listarResumo(SQL_RESUMO_ATIVOS); }
+    
+    /** Atrasados na projeção da tabela de empréstimos. */
+    public List<EmprestimoResumo> listarResumoAtrasados() { return listarResumo(SQL_RESUMO_ATRASADOS); }
+    
+    private List<EmprestimoResumo> listarResumo(String sql) {
+        List<EmprestimoResumo> lista = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper.mapearTodas(rs, sql, RESUMO, lista::add);
+        } catch (SQLException e) { LogManager.error("Erro ao listar empréstimos", e); }
+        return lista;
+    }
+    
+    /**
+     * Divide os atrasados (vencidos antes de {@code hoje}) em faixas com o mesmo número de linhas.
+     * Lê apenas vencimento e id, somente do índice {@code idx_status_vencimento} (as duas faixas de status
+     * são ordenadas juntas sobre as chaves lidas, sem acessar as linhas).
+     * @return Início de cada faixa a partir da segunda (até {@code partes - 1} posições), ou null se a leitura falhar
+     */
+    public List<Posicao> limitesAtrasados(LocalDate hoje, int partes) {
+        List<Posicao> limites = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection()) {
+            int total;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM emprestimos e " + WHERE_ATRASADOS_EM)) {
+                stmt.setDate(1, Date.valueOf(hoje));
+                try (ResultSet rs = stmt.executeQuery()) { total = rs.next() ? rs.getInt(1) : 0; }
+            }
+            if (partes < 2 || total < partes) return limites;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT e.data_devolucao_prevista, e.id FROM emprestimos e " +
+                    WHERE_ATRASADOS_EM + ORDEM_ATRASADOS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                stmt.setDate(1, Date.valueOf(hoje));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    // Lido até o fim: fechar um ResultSet em streaming consome as linhas restantes de qualquer forma
+                    long linha = 0;
+                    while (rs.next()) {
+                        if (limites.size() < partes - 1 && linha++ == (long) total * (limites.size() + 1) / partes) {
+                            limites.add(new Posicao(rs.getDate(1).toLocalDate(), rs.getInt(2), linha - 1));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao dividir empréstimos atrasados", e); return null; }
+        return limites;
+    }
+    
+    /**
+     * Percorre em streaming os atrasados (vencidos antes de {@code hoje}) de uma faixa, na ordem (vencimento, id).
+     * @param desde Primeira posição da faixa (inclusive), ou null para o início
+     * @param ate Fim da faixa (exclusive), ou null para o fim
+     * @return Número de linhas entregues ao consumidor, ou -1 se a leitura falhar
+     */
+    public int percorrerAtrasados(LocalDate hoje, Posicao desde, Posicao ate, Consumer<Emprestimo> consumidor) {
+        String sql = SELECT_COMPLETO + WHERE_ATRASADOS_EM + (desde != null ? DESDE_POSICAO : "") +
+                     (ate != null ? ATE_POSICAO : "") + ORDEM_ATRASADOS;
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            int i = 1;
+            stmt.setDate(i++, Date.valueOf(hoje));
+            for (Posicao posicao : new Posicao[]{desde, ate}) {
+                if (posicao == null) continue;
+                stmt.setDate(i++, Date.valueOf(posicao.vencimento()));
+                stmt.setDate(i++, Date.valueOf(posicao.vencimento()));
+                stmt.setInt(i++, posicao.id());
+            }
+            return percorrer(stmt, sql, consumidor);
+        } catch (SQLException e) { LogManager.error("Erro ao percorrer empréstimos atrasados", e); return -1; }
+    }
+    
+    /**
+     * Percorre em streaming os empréstimos em aberto (ATIVO ou ATRASADO) dos usuários de um tipo, em uma única
+     * consulta ordenada por usuário: as linhas de cada usuário chegam consecutivas, por vencimento.
+     * @param aposUsuarioId Só usuários com id maior que este (retomada); 0 para todos
+     * @return Número de linhas entregues ao consumidor, ou -1 se a leitura falhar
+     */
+    public int percorrerAbertosPorUsuario(TipoUsuario tipo, int aposUsuarioId, Consumer<Emprestimo> consumidor) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_ABERTOS_POR_USUARIO, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setString(1, tipo.name());
+            stmt.setInt(2, aposUsuarioId);
+            return percorrer(stmt, SQL_ABERTOS_POR_USUARIO, consumidor);
+        } catch (SQLException e) { LogManager.error("Erro ao percorrer empréstimos em aberto por usuário", e); return -1; }
+    }
+    
+    /** Mapeia a consulta em streaming; se o consumidor abortar, cancela a consulta antes de fechar o ResultSet, que leria o resto. */
+    private static int percorrer(PreparedStatement stmt, String sql, Consumer<Emprestimo> consumidor) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            try {
+                return RowMapper.mapearTodas(rs, sql, EMPRESTIMO, consumidor);
+            } catch (RuntimeException e) {
+                try { stmt.cancel(); } catch (SQLException erroCancelamento) { e.addSuppressed(erroCancelamento); }
+                throw e;
+            }
+        }
+    }
+    
+    public int contarAtrasados() {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM emprestimos WHERE status IN ('ATIVO', 'ATRASADO') AND data_devolucao_prevista < CURDATE()");
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) return rs.getInt(1);
+        } catch (SQLException e) { LogManager.error("Erro ao contar atrasados", e); }
+        return 0;
+    }
+    
     public List<Emprestimo> listarProximosVencimento(int dias) {
         List<Emprestimo> lista = new ArrayList<>();
-        String sql = "SELECT e.*, u.nome as usuario_nome, u.email as usuario_email, l.titulo as livro_titulo, l.autor as livro_autor " +
-                     "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id " +
-                     "WHERE e.status = 'ATIVO' AND e.data_devolucao_prevista BETWEEN CURDATE() AND DATE_ADD(CURDATE(), INTERVAL ? DAY)";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_PROXIMOS_VENCIMENTO)) {
             stmt.setInt(1, dias);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) lista.add(mapResultSet(rs));
+                RowMapper.mapearTodas(rs, SQL_PROXIMOS_VENCIMENTO, EMPRESTIMO, lista::add);
             }
         } catch (SQLException e) { LogManager.error("Erro ao listar próximos vencimento", e); }
         return lista;
@@ -121,74 +360,137 @@ public class EmprestimoDAO {
     
     public List<Emprestimo> listarPorUsuario(int usuarioId) {
         List<Emprestimo> lista = new ArrayList<>();
-        String sql = "SELECT e.*, u.nome as usuario_nome, u.email as usuario_email, l.titulo as livro_titulo, l.autor as livro_autor " +
-                     "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id " +
-                     "WHERE e.usuario_id = ? ORDER BY e.data_emprestimo DESC";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_LISTAR_POR_USUARIO)) {
             stmt.setInt(1, usuarioId);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) lista.add(mapResultSet(rs));
+                RowMapper.mapearTodas(rs, SQL_LISTAR_POR_USUARIO, EMPRESTIMO, lista::add);
             }
         } catch (SQLException e) { LogManager.error("Erro ao listar empréstimos por usuário", e); }
         return lista;
     }
     
+    /**
+     * Marca os vencidos como ATRASADO e soma os atrasos na consolidação diária, em lotes de {@value #LOTE_ATRASOS}
+     * pela chave primária: cada lote é uma transação curta ({@link #marcarAtrasados}), que bloqueia só as suas linhas,
+     * seguida de uma pausa igual à duração do lote (entre {@value #PAUSA_MIN_MS} e {@value #PAUSA_MAX_MS} ms) para
+     * não disputar o banco com empréstimos e devoluções. Se um lote falhar ou a thread for interrompida, os restantes
+     * ficam para a próxima execução.
+     * @return Número de empréstimos marcados
+     */
     public int atualizarStatusAtrasados() {
-        String sql = "UPDATE emprestimos SET status = 'ATRASADO' WHERE status = 'ATIVO' AND data_devolucao_prevista < CURDATE()";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement()) {
-            return stmt.executeUpdate(sql);
-        } catch (SQLException e) { LogManager.error("Erro ao atualizar status", e); }
-        return 0;
+        LocalDate hoje = LocalDate.now();
+        long inicio = System.currentTimeMillis();
+        int atualizados = 0, lotes = 0, aposId = 0;
+        long maiorLote = 0;
+        try {
+            while (true) {
+                List<Integer> ids = idsAtrasados(hoje, aposId, LOTE_ATRASOS);
+                if (ids == null || ids.isEmpty()) break;
+                long inicioLote = System.currentTimeMillis();
+                int marcados = marcarAtrasados(ids, hoje);
+                if (marcados < 0) break;
+                long duracao = System.currentTimeMillis() - inicioLote;
+                atualizados += marcados;
+                lotes++;
+                maiorLote = Math.max(maiorLote, duracao);
+                aposId = ids.get(ids.size() - 1);
+                if (ids.size() < LOTE_ATRASOS) break;
+                if (lotes % 20 == 0) LogManager.info("Atualizando atrasados: " + atualizados + " marcados em " + lotes + " lotes");
+                Thread.sleep(Math.max(PAUSA_MIN_MS, Math.min(PAUSA_MAX_MS, duracao)));
+            }
+        } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        if (lotes > 0) {
+            LogManager.info(String.format("Atualização de atrasados: %d marcados em %d lotes, %d ms (lote mais lento: %d ms)",
+                    atualizados, lotes, System.currentTimeMillis() - inicio, maiorLote));
+        }
+        return atualizados;
     }
     
-    public List<Map<String, Object>> usuariosMaisEmprestimos(int limite) {
-        List<Map<String, Object>> resultado = new ArrayList<>();
-        String sql = "SELECT u.nome, u.email, u.tipo, COUNT(e.id) as total_emprestimos FROM usuarios u " +
-                     "LEFT JOIN emprestimos e ON u.id = e.usuario_id GROUP BY u.id ORDER BY total_emprestimos DESC LIMIT ?";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, limite);
+    /** Próximos ids ATIVO vencidos antes de {@code hoje}, em ordem, pelo índice de status (leitura sem bloqueio), ou null em caso de erro. */
+    private List<Integer> idsAtrasados(LocalDate hoje, int aposId, int limite) {
+        List<Integer> ids = new ArrayList<>(limite);
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_IDS_ATRASADOS)) {
+            stmt.setInt(1, aposId);
+            stmt.setDate(2, Date.valueOf(hoje));
+            stmt.setInt(3, limite);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    row.put("nome", rs.getString("nome"));
-                    row.put("email", rs.getString("email"));
-                    row.put("tipo", rs.getString("tipo"));
-                    row.put("total_emprestimos", rs.getInt("total_emprestimos"));
-                    resultado.add(row);
-                }
+                while (rs.next()) ids.add(rs.getInt(1));
             }
-        } catch (SQLException e) { LogManager.error("Erro ao buscar usuários mais empréstimos", e); }
-        return resultado;
+        } catch (SQLException e) { LogManager.error("Erro ao buscar empréstimos vencidos", e); return null; }
+        return ids;
+    }
+    
+    /**
+     * Marca como ATRASADO os empréstimos indicados que ainda estejam ativos e vencidos antes de {@code hoje},
+     * somando os atrasos na consolidação diária, em uma transação. Lê e altera apenas essas linhas, pela chave primária.
+     * @return Número de empréstimos marcados, ou -1 em caso de erro
+     */
+    public int marcarAtrasados(Collection<Integer> ids, LocalDate hoje) {
+        if (ids.isEmpty()) return 0;
+        String emIds = "AND e.id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") ";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(CONSOLIDAR_ATRASOS_INICIO + emIds + CONSOLIDAR_ATRASOS_FIM)) {
+                definirIds(stmt, hoje, ids);
+                stmt.executeUpdate();
+            }
+            int marcados;
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_MARCAR_ATRASADOS + " " + emIds.replace("e.id", "id"))) {
+                definirIds(stmt, hoje, ids);
+                marcados = stmt.executeUpdate();
+            }
+            conn.commit();
+            return marcados;
+        } catch (SQLException e) { LogManager.error("Erro ao marcar empréstimos atrasados", e); return -1; }
+    }
+    
+    private static void definirIds(PreparedStatement stmt, LocalDate hoje, Collection<Integer> ids) throws SQLException {
+        int i = 1;
+        stmt.setDate(i++, Date.valueOf(hoje));
+        for (int id : ids) stmt.setInt(i++, id);
+    }
+    
+    /** Vencimento de cada empréstimo ATIVO ({@code id -> data prevista}), lido em streaming, ou null se a consulta falhar. */
+    public Map<Integer, LocalDate> vencimentosAtivos() {
+        Map<Integer, LocalDate> vencimentos = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT id, data_devolucao_prevista FROM emprestimos WHERE status = 'ATIVO'",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) vencimentos.put(rs.getInt(1), rs.getDate(2).toLocalDate());
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao carregar vencimentos", e); return null; }
+        return vencimentos;
+    }
+    
+    /** Total de empréstimos (de qualquer status) por livro: {@code livro_id -> total}, ou null se a consulta falhar. */
+    public Map<Integer, Long> contarPorLivro() { return contarPor("livro_id"); }
+    
+    /** Total de empréstimos (de qualquer status) por usuário: {@code usuario_id -> total}, ou null se a consulta falhar. */
+    public Map<Integer, Long> contarPorUsuario() { return contarPor("usuario_id"); }
+    
+    private Map<Integer, Long> contarPor(String coluna) {
+        Map<Integer, Long> totais = new HashMap<>();
+        String sql = "SELECT " + coluna + ", COUNT(*) FROM emprestimos GROUP BY " + coluna;
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) totais.put(rs.getInt(1), rs.getLong(2));
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao contar empréstimos por " + coluna, e); return null; }
+        return totais;
     }
     
     public int contarAtivos() {
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM emprestimos WHERE status IN ('ATIVO', 'ATRASADO')")) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM emprestimos WHERE status IN ('ATIVO', 'ATRASADO')");
+             ResultSet rs = stmt.executeQuery()) {
             if (rs.next()) return rs.getInt(1);
         } catch (SQLException e) { LogManager.error("Erro ao contar ativos", e); }
         return 0;
     }
-    
-    private Emprestimo mapResultSet(ResultSet rs) throws SQLException {
-        Emprestimo emp = new Emprestimo();
-        emp.setId(rs.getInt("id"));
-        emp.setUsuarioId(rs.getInt("usuario_id"));
-        emp.setLivroId(rs.getInt("livro_id"));
-        emp.setDataEmprestimo(rs.getDate("data_emprestimo").toLocalDate());
-        emp.setDataDevolucaoPrevista(rs.getDate("data_devolucao_prevista").toLocalDate());
-        Date devolucaoReal = rs.getDate("data_devolucao_real");
-        if (devolucaoReal != null) emp.setDataDevolucaoReal(devolucaoReal.toLocalDate());
-        emp.setStatus(StatusEmprestimo.valueOf(rs.getString("status")));
-        try {
-            emp.setUsuarioNome(rs.getString("usuario_nome"));
-            emp.setUsuarioEmail(rs.getString("usuario_email"));
-            emp.setLivroTitulo(rs.getString("livro_titulo"));
-            emp.setLivroAutor(rs.getString("livro_autor"));
-        } catch (SQLException e) {}
-        return emp;
-    }
 }
@@ -0,0 +1,26 @@
+package com.biblioteca.model;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção de um empréstimo para a tabela de empréstimos.
+ * 
+ * <p>Não inclui observações nem dados de auditoria; a entidade completa
+ * ({@link Emprestimo}) é carregada somente quando necessária.</p>
+ * 
+ * @param id Identificador do empréstimo
+ * @param usuarioId ID do usuário
+ * @param livroId ID do livro
+ * @param usuarioNome Nome do usuário
+ * @param livroTitulo Título do livro
+ * @param dataEmprestimo Data do empréstimo
+ * @param dataDevolucaoPrevista Data prevista para devolução
+ * @param status Status do empréstimo
+ * 
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public record EmprestimoResumo(int id, int usuarioId, int livroId, String usuarioNome, String livroTitulo,
+                               LocalDate dataEmprestimo, LocalDate dataDevolucaoPrevista,
+                               StatusEmprestimo status) {
+}
@@ -0,0 +1,308 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.model.TotaisCirculacao;
+import com.biblioteca.utils.DatabaseConnection;
+import com.biblioteca.utils.LogManager;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Data Access Object da consolidação diária da circulação ({@code emprestimos_diarios}).
+ *
+ * <p>A tabela guarda, por dia, categoria e tipo de usuário, o número de
+ * empréstimos, devoluções e atrasos. As procedures de empréstimo e devolução
+ * e a marcação de atrasados a atualizam na mesma transação da operação, de
+ * modo que os relatórios por período leem apenas a consolidação — no máximo
+ * algumas dezenas de linhas por dia —, sem agregar a tabela de empréstimos.</p>
+ *
+ * <p>{@link #consolidar(LocalDate, LocalDate)} recalcula um intervalo de dias
+ * a partir da tabela de empréstimos; é idempotente e serve tanto para a carga
+ * do histórico quanto para corrigir dias alterados fora das procedures.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class EmprestimosDiariosDAO {
+
+    /**
+     * Agrupamento dos relatórios por período.
+     */
+    public enum Agrupamento {
+
+        /** Um grupo por mês (aaaa-mm) */
+        MENSAL("Mensal", "%Y-%m"),
+
+        /** Um grupo por ano (aaaa) */
+        ANUAL("Anual", "%Y");
+
+        private final String descricao;
+        private final String formato;
+
+        Agrupamento(String descricao, String formato) {
+            this.descricao = descricao;
+            this.formato = formato;
+        }
+
+        @Override
+        public String toString() {
+            return descricao;
+        }
+    }
+
+    private static final String SQL_REMOVER = "DELETE FROM emprestimos_diarios WHERE dia BETWEEN ? AND ?";
+
+    /**
+     * Nome da marca d'água da carga do histórico em {@code marcas_processamento}:
+     * {@code ultimo_dia} é o dia mais antigo já recalculado pela carga, que
+     * avança do mais recente para o mais antigo.
+     */
+    private static final String MARCA_HISTORICO = "consolidacao_historico";
+
+    private static final String SQL_MARCA_HISTORICO =
+            "SELECT m.ultimo_dia FROM (SELECT 1) x LEFT JOIN marcas_processamento m ON m.nome = ?";
+
+    /** A marca só recua: uma gravação fora de ordem não a devolve a um dia mais recente */
+    private static final String SQL_GRAVAR_MARCA_HISTORICO =
+            "INSERT INTO marcas_processamento (nome, ultimo_dia, ultima_execucao) VALUES (?, ?, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE ultimo_dia = LEAST(ultimo_dia, VALUES(ultimo_dia)), " +
+            "ultima_execucao = VALUES(ultima_execucao)";
+
+    /**
+     * Recalcula a consolidação de um intervalo. Os atrasos seguem a mesma regra
+     * da atualização incremental: contam no dia seguinte ao vencimento, para
+     * empréstimos já marcados como ATRASADO ou devolvidos depois do prazo.
+     */
+    private static final String SQL_CONSOLIDAR =
+            "INSERT INTO emprestimos_diarios (dia, categoria_id, tipo_usuario, emprestimos, devolucoes, atrasos) " +
+            "SELECT dia, categoria_id, tipo, SUM(emp), SUM(dev), SUM(atr) FROM (" +
+            "SELECT e.data_emprestimo AS dia, l.categoria_id, u.tipo, 1 AS emp, 0 AS dev, 0 AS atr " +
+            "FROM emprestimos e INNER JOIN livros l ON e.livro_id = l.id INNER JOIN usuarios u ON e.usuario_id = u.id " +
+            "WHERE e.data_emprestimo BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT e.data_devolucao_real, l.categoria_id, u.tipo, 0, 1, 0 " +
+            "FROM emprestimos e INNER JOIN livros l ON e.livro_id = l.id INNER JOIN usuarios u ON e.usuario_id = u.id " +
+            "WHERE e.data_devolucao_real BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT DATE_ADD(e.data_devolucao_prevista, INTERVAL 1 DAY), l.categoria_id, u.tipo, 0, 0, 1 " +
+            "FROM emprestimos e INNER JOIN livros l ON e.livro_id = l.id INNER JOIN usuarios u ON e.usuario_id = u.id " +
+            "WHERE e.data_devolucao_prevista BETWEEN ? AND ? " +
+            "AND (e.status = 'ATRASADO' OR (e.status = 'DEVOLVIDO' AND e.data_devolucao_real > e.data_devolucao_prevista))" +
+            ") t GROUP BY dia, categoria_id, tipo";
+
+    private static final String SQL_POR_CATEGORIA =
+            "SELECT c.nome, SUM(d.emprestimos), SUM(d.devolucoes), SUM(d.atrasos) " +
+            "FROM emprestimos_diarios d INNER JOIN categorias c ON d.categoria_id = c.id " +
+            "WHERE d.dia BETWEEN ? AND ? GROUP BY c.id, c.nome ORDER BY SUM(d.emprestimos) DESC, c.nome";
+
+    private static final String SQL_POR_TIPO_USUARIO =
+            "SELECT tipo_usuario, SUM(emprestimos), SUM(devolucoes), SUM(atrasos) " +
+            "FROM emprestimos_diarios WHERE dia BETWEEN ? AND ? GROUP BY tipo_usuario ORDER BY tipo_usuario";
+
+    /** Dias alterados por escritas fora das procedures, a recalcular */
+    private static final Set<LocalDate> PENDENTES = new TreeSet<>();
+
+    /**
+     * Recalcula a consolidação dos dias do intervalo em uma única transação.
+     *
+     * @param inicio Primeiro dia (inclusive)
+     * @param fim Último dia (inclusive)
+     * @return true se o intervalo foi recalculado
+     */
+    public boolean consolidar(LocalDate inicio, LocalDate fim) {
+        return consolidar(inicio, fim, false);
+    }
+
+    /**
+     * Recalcula um lote da carga do histórico e recua a marca d'água da carga
+     * para o primeiro dia do lote, na mesma transação.
+     *
+     * @param inicio Primeiro dia (inclusive)
+     * @param fim Último dia (inclusive)
+     * @return true se o intervalo foi recalculado
+     */
+    public boolean consolidarHistorico(LocalDate inicio, LocalDate fim) {
+        return consolidar(inicio, fim, true);
+    }
+
+    private boolean consolidar(LocalDate inicio, LocalDate fim, boolean historico) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_REMOVER)) {
+                stmt.setDate(1, Date.valueOf(inicio));
+                stmt.setDate(2, Date.valueOf(fim));
+                stmt.executeUpdate();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_CONSOLIDAR)) {
+                stmt.setDate(1, Date.valueOf(inicio));
+                stmt.setDate(2, Date.valueOf(fim));
+                stmt.setDate(3, Date.valueOf(inicio));
+                stmt.setDate(4, Date.valueOf(fim));
+                stmt.setDate(5, Date.valueOf(inicio.minusDays(1)));
+                stmt.setDate(6, Date.valueOf(fim.minusDays(1)));
+                stmt.executeUpdate();
+            }
+
+            if (historico) {
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_GRAVAR_MARCA_HISTORICO)) {
+                    stmt.setString(1, MARCA_HISTORICO);
+                    stmt.setDate(2, Date.valueOf(inicio));
+                    stmt.executeUpdate();
+                }
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao consolidar empréstimos de " + inicio + " a " + fim, e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Retorna o dia do empréstimo mais antigo.
+     *
+     * @return Data do primeiro empréstimo, ou null se não houver empréstimos ou em caso de erro
+     */
+    public LocalDate primeiroEmprestimo() {
+        return primeiroDia("SELECT MIN(data_emprestimo) FROM emprestimos");
+    }
+
+    /**
+     * Retorna o dia mais antigo já recalculado pela carga do histórico. Não se
+     * usa o menor dia da consolidação: a marcação de atrasados e as devoluções
+     * também gravam dias passados, que a carga ainda não percorreu.
+     *
+     * @param seAusente Valor retornado se a carga nunca gravou um lote
+     * @return Marca d'água da carga, {@code seAusente}, ou null em caso de erro
+     */
+    public LocalDate inicioHistorico(LocalDate seAusente) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_MARCA_HISTORICO)) {
+
+            stmt.setString(1, MARCA_HISTORICO);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                Date dia = rs.getDate(1);
+                return dia != null ? dia.toLocalDate() : seAusente;
+            }
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao consultar consolidação de empréstimos", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Totais do intervalo agrupados por mês ou por ano.
+     *
+     * @param inicio Primeiro dia (inclusive)
+     * @param fim Último dia (inclusive)
+     * @param agrupamento Mensal ou anual
+     * @return Um item por período com movimento, em ordem cronológica
+     */
+    public List<TotaisCirculacao> totaisPorPeriodo(LocalDate inicio, LocalDate fim, Agrupamento agrupamento) {
+        String periodo = "DATE_FORMAT(dia, '" + agrupamento.formato + "')";
+        String sql = "SELECT " + periodo + " AS periodo, SUM(emprestimos), SUM(devolucoes), SUM(atrasos) " +
+                     "FROM emprestimos_diarios WHERE dia BETWEEN ? AND ? GROUP BY periodo ORDER BY periodo";
+        return totais(sql, inicio, fim);
+    }
+
+    /**
+     * Totais do intervalo por categoria de livro.
+     *
+     * @param inicio Primeiro dia (inclusive)
+     * @param fim Último dia (inclusive)
+     * @return Um item por categoria com movimento, da mais emprestada para a menos
+     */
+    public List<TotaisCirculacao> totaisPorCategoria(LocalDate inicio, LocalDate fim) {
+        return totais(SQL_POR_CATEGORIA, inicio, fim);
+    }
+
+    /**
+     * Totais do intervalo por tipo de usuário.
+     *
+     * @param inicio Primeiro dia (inclusive)
+     * @param fim Último dia (inclusive)
+     * @return Um item por tipo de usuário com movimento
+     */
+    public List<TotaisCirculacao> totaisPorTipoUsuario(LocalDate inicio, LocalDate fim) {
+        return totais(SQL_POR_TIPO_USUARIO, inicio, fim);
+    }
+
+    /**
+     * Retira os dias marcados para recálculo.
+     *
+     * @return Dias pendentes, em ordem
+     */
+    public Set<LocalDate> retirarPendentes() {
+        synchronized (PENDENTES) {
+            Set<LocalDate> dias = new TreeSet<>(PENDENTES);
+            PENDENTES.clear();
+            return dias;
+        }
+    }
+
+    /**
+     * Marca um dia para recálculo (escrita de empréstimo fora das procedures).
+     */
+    static void diaAlterado(LocalDate dia) {
+        synchronized (PENDENTES) {
+            PENDENTES.add(dia);
+        }
+    }
+
+    /**
+     * Executa uma consulta de totais sobre um intervalo de dias.
+     */
+    private List<TotaisCirculacao> totais(String sql, LocalDate inicio, LocalDate fim) {
+        List<TotaisCirculacao> totais = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setDate(1, Date.valueOf(inicio));
+            stmt.setDate(2, Date.valueOf(fim));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    totais.add(new TotaisCirculacao(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+                }
+            }
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao consultar consolidação de empréstimos", e);
+        }
+
+        return totais;
+    }
+
+    /**
+     * Executa uma consulta que retorna uma única data.
+     */
+    private LocalDate primeiroDia(String sql) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            if (rs.next()) {
+                Date dia = rs.getDate(1);
+                return dia != null ? dia.toLocalDate() : null;
+            }
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao consultar consolidação de empréstimos", e);
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.biblioteca.model;
+
+/**
+ * Contadores exibidos no painel da tela principal.
+ * 
+ * @param totalLivros Livros cadastrados
+ * @param totalUsuarios Usuários cadastrados
+ * @param emprestimosAtivos Empréstimos não devolvidos (ativos e atrasados)
+ * @param emprestimosAtrasados Empréstimos não devolvidos com prazo vencido
+ * 
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public record Estatisticas(int totalLivros, int totalUsuarios, int emprestimosAtivos, int emprestimosAtrasados) {
+}
@@ -0,0 +1,191 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.model.Estatisticas;
+import com.biblioteca.utils.DatabaseConnection;
+import com.biblioteca.utils.LogManager;
+
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores do painel mantidos em memória.
+ * 
+ * <p>Os DAOs e o serviço de circulação ajustam os contadores a cada escrita
+ * bem-sucedida, de forma que o painel é lido em O(1), sem consultas.
+ * {@link #reconciliar()} recalcula todos os valores em uma única consulta;
+ * ela corrige o que as escritas não cobrem: alterações feitas fora da
+ * aplicação e empréstimos que passam a ficar atrasados com a virada do dia.</p>
+ * 
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class EstatisticasDAO {
+    
+    private static final String SQL_RECONCILIAR =
+            "SELECT (SELECT COUNT(*) FROM livros), " +
+            "(SELECT COUNT(*) FROM usuarios), " +
+            "(SELECT COUNT(*) FROM emprestimos WHERE status IN ('ATIVO', 'ATRASADO')), " +
+            "(SELECT COUNT(*) FROM emprestimos WHERE status != 'DEVOLVIDO' AND data_devolucao_prevista < CURDATE())";
+    
+    private static final AtomicInteger LIVROS = new AtomicInteger();
+    private static final AtomicInteger USUARIOS = new AtomicInteger();
+    private static final AtomicInteger ATIVOS = new AtomicInteger();
+    private static final AtomicInteger ATRASADOS = new AtomicInteger();
+    
+    /** Número de ajustes feitos pelas escritas; indica se houve escrita durante uma reconciliação */
+    private static final AtomicLong ESCRITAS = new AtomicLong();
+    
+    /** Se os contadores já foram carregados do banco ao menos uma vez */
+    private static volatile boolean carregado;
+    
+    /** Se houve uma escrita cujo efeito nos contadores não é conhecido */
+    private static volatile boolean desatualizado;
+    
+    /**
+     * Retorna os contadores atuais, sem consultar o banco.
+     * 
+     * @return Contadores do painel
+     */
+    public Estatisticas getEstatisticas() {
+        return new Estatisticas(LIVROS.get(), USUARIOS.get(), ATIVOS.get(), ATRASADOS.get());
+    }
+    
+    /**
+     * @return true se os contadores já foram carregados do banco ao menos uma vez
+     */
+    public boolean isCarregado() {
+        return carregado;
+    }
+    
+    /**
+     * @return true se uma escrita pede um novo cálculo dos contadores
+     */
+    public boolean isDesatualizado() {
+        return desatualizado;
+    }
+    
+    /**
+     * Recalcula todos os contadores a partir do banco, em uma única consulta.
+     * 
+     * <p>Os contadores não são sobrescritos: cada um recebe a diferença entre
+     * o valor do banco e o valor que tinha imediatamente antes da consulta.
+     * A reconciliação não é exata quando há escritas concorrentes: uma escrita
+     * confirmada no banco depois da leitura dos contadores, mas antes do
+     * retrato da consulta, é vista pelo banco e ajustada também no contador,
+     * e fica contada duas vezes (sobrescrever o contador, ao contrário,
+     * perderia as escritas confirmadas depois do retrato). Por isso, se algum
+     * ajuste ocorreu durante a reconciliação, os contadores continuam marcados
+     * como desatualizados e a próxima leitura do painel agenda uma nova
+     * reconciliação; sem leituras, o desvio é corrigido pela reconciliação
+     * periódica.</p>
+     * 
+     * @return true se os contadores foram atualizados
+     */
+    public boolean reconciliar() {
+        boolean pendente = desatualizado;
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_RECONCILIAR)) {
+            
+            long escritas = ESCRITAS.get();
+            desatualizado = false;
+            int[] antes = {LIVROS.get(), USUARIOS.get(), ATIVOS.get(), ATRASADOS.get()};
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    if (ESCRITAS.get() != escritas) {
+                        desatualizado = true;
+                    }
+                    ajustar(LIVROS, antes[0], rs.getInt(1), "livros");
+                    ajustar(USUARIOS, antes[1], rs.getInt(2), "usuários");
+                    ajustar(ATIVOS, antes[2], rs.getInt(3), "empréstimos ativos");
+                    ajustar(ATRASADOS, antes[3], rs.getInt(4), "empréstimos atrasados");
+                    carregado = true;
+                    return true;
+                }
+            }
+            
+        } catch (SQLException e) {
+            LogManager.error("Erro ao reconciliar estatísticas", e);
+        }
+        
+        if (pendente) {
+            desatualizado = true;
+        }
+        return false;
+    }
+    
+    /**
+     * Registra um empréstimo realizado (sempre com prazo futuro, portanto não atrasado).
+     */
+    public static void emprestimoRealizado() {
+        registrar(ATIVOS, 1);
+    }
+    
+    /**
+     * Registra a devolução de um empréstimo.
+     * 
+     * @param atrasado Se o prazo do empréstimo já havia vencido
+     */
+    public static void emprestimoDevolvido(boolean atrasado) {
+        registrar(ATIVOS, -1);
+        if (atrasado) {
+            registrar(ATRASADOS, -1);
+        }
+    }
+    
+    /**
+     * Registra empréstimos em aberto que venceram na virada do dia.
+     * 
+     * @param quantidade Número de empréstimos que passaram a atrasados
+     */
+    public static void emprestimosVencidos(int quantidade) {
+        registrar(ATRASADOS, quantidade);
+    }
+    
+    static void livroInserido() {
+        registrar(LIVROS, 1);
+    }
+    
+    static void livroRemovido() {
+        registrar(LIVROS, -1);
+    }
+    
+    static void usuarioInserido() {
+        registrar(USUARIOS, 1);
+    }
+    
+    static void usuarioRemovido() {
+        registrar(USUARIOS, -1);
+    }
+    
+    /**
+     * Aplica o ajuste de uma escrita a um contador.
+     */
+    private static void registrar(AtomicInteger contador, int delta) {
+        contador.addAndGet(delta);
+        ESCRITAS.incrementAndGet();
+    }
+    
+    /**
+     * Marca os contadores para novo cálculo (escrita cujo efeito não é conhecido).
+     */
+    static void invalidar() {
+        desatualizado = true;
+    }
+    
+    /**
+     * Aplica a um contador a diferença entre o valor do banco e o valor lido
+     * antes da consulta, registrando-a se houver.
+     */
+    private static void ajustar(AtomicInteger contador, int antes, int valor, String nome) {
+        int diferenca = valor - antes;
+        if (diferenca == 0) {
+            return;
+        }
+        contador.addAndGet(diferenca);
+        if (carregado) {
+            LogManager.info("Estatísticas reconciliadas: " + nome + " " + antes + " -> " + valor);
+        }
+    }
+}
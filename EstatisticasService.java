@@ -0,0 +1,81 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dao.EstatisticasDAO;
+import com.biblioteca.model.Estatisticas;
+import com.biblioteca.utils.LogManager;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serviço de estatísticas do painel.
+ *
+ * <p>Lê os contadores mantidos pelo {@link EstatisticasDAO}, que são
+ * atualizados a cada escrita, e os reconcilia com o banco em segundo plano:
+ * periodicamente e logo após uma escrita de efeito desconhecido. Apenas a
+ * primeira leitura, se ocorrer antes de qualquer reconciliação, consulta o
+ * banco na thread chamadora.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class EstatisticasService {
+
+    /** Intervalo entre reconciliações com o banco, em minutos */
+    private static final long INTERVALO_RECONCILIACAO_MIN = 5;
+
+    private static final EstatisticasDAO DAO = new EstatisticasDAO();
+
+    private static ScheduledExecutorService executor;
+
+    /**
+     * Inicia a reconciliação periódica. Chamado na inicialização da aplicação.
+     */
+    public static synchronized void iniciar() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Estatisticas");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(DAO::reconciliar, 0, INTERVALO_RECONCILIACAO_MIN, TimeUnit.MINUTES);
+        LogManager.info("Reconciliação de estatísticas iniciada.");
+    }
+
+    /**
+     * Encerra a reconciliação periódica.
+     */
+    public static synchronized void parar() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Retorna os contadores do painel.
+     *
+     * @return Contadores atuais
+     */
+    public Estatisticas getEstatisticas() {
+        if (!DAO.isCarregado()) {
+            DAO.reconciliar();
+        } else if (DAO.isDesatualizado()) {
+            agendarReconciliacao();
+        }
+        return DAO.getEstatisticas();
+    }
+
+    /**
+     * Agenda uma reconciliação imediata em segundo plano (ou executa na thread
+     * chamadora, se o serviço não foi iniciado).
+     */
+    private static synchronized void agendarReconciliacao() {
+        if (executor == null) {
+            DAO.reconciliar();
+        } else {
+            executor.execute(DAO::reconciliar);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.utils.DatabaseConnection;
+import com.biblioteca.utils.ExportadorDados;
+import com.biblioteca.utils.LogManager;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Data Access Object para exportação de tabelas e relatórios.
+ *
+ * <p>As consultas são lidas em streaming (ResultSet forward-only, linha a
+ * linha) e cada linha vai direto para o {@link ExportadorDados}, sem montar
+ * listas: a exportação do histórico completo de empréstimos usa memória
+ * constante. As tabelas são percorridas pela chave primária.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class ExportacaoDAO {
+
+    /**
+     * Tabelas exportáveis por completo.
+     */
+    public enum Tabela {
+
+        LIVROS("livros",
+                "SELECT l.id, l.titulo, l.autor, l.isbn, l.categoria_id, c.nome AS categoria, " +
+                "l.quantidade_total, l.quantidade_disponivel, l.criado_em, l.atualizado_em " +
+                "FROM livros l INNER JOIN categorias c ON l.categoria_id = c.id ORDER BY l.id"),
+
+        /** Sem a coluna de senha */
+        USUARIOS("usuarios",
+                "SELECT id, nome, email, tipo, ativo, criado_em, atualizado_em FROM usuarios ORDER BY id"),
+
+        EMPRESTIMOS("emprestimos",
+                "SELECT id, usuario_id, livro_id, data_emprestimo, data_devolucao_prevista, data_devolucao_real, " +
+                "status, observacoes, criado_em, atualizado_em FROM emprestimos ORDER BY id");
+
+        private final String nome;
+        private final String sql;
+
+        Tabela(String nome, String sql) {
+            this.nome = nome;
+            this.sql = sql;
+        }
+
+        /**
+         * @return Nome da tabela (usado também como prefixo do arquivo)
+         */
+        public String getNome() {
+            return nome;
+        }
+    }
+
+    private static final String SQL_ATRASADOS =
+            "SELECT e.id, u.nome AS usuario, u.email, l.titulo AS livro, e.data_emprestimo, " +
+            "e.data_devolucao_prevista, DATEDIFF(CURDATE(), e.data_devolucao_prevista) AS dias_atraso " +
+            "FROM emprestimos e INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id " +
+            "WHERE e.status != 'DEVOLVIDO' AND e.data_devolucao_prevista < CURDATE() ORDER BY e.data_devolucao_prevista";
+
+    /** Linhas entre avisos de progresso */
+    private static final int LOTE_PROGRESSO = 1000;
+
+    /**
+     * Exporta uma tabela inteira.
+     *
+     * @param tabela Tabela exportada
+     * @param saida Exportação aberta (ainda sem cabeçalho)
+     * @param progresso Recebe o número de linhas escritas, em lotes
+     * @return Número de linhas exportadas, ou -1 se a leitura do banco falhar
+     * @throws IOException Se houver erro de escrita
+     */
+    public long exportar(Tabela tabela, ExportadorDados saida, LongConsumer progresso) throws IOException {
+        return exportar(tabela.sql, tabela.nome, saida, progresso);
+    }
+
+    /**
+     * Exporta os empréstimos atrasados, do vencimento mais antigo para o mais recente.
+     *
+     * @param saida Exportação aberta (ainda sem cabeçalho)
+     * @param progresso Recebe o número de linhas escritas, em lotes
+     * @return Número de linhas exportadas, ou -1 se a leitura do banco falhar
+     * @throws IOException Se houver erro de escrita
+     */
+    public long exportarAtrasados(ExportadorDados saida, LongConsumer progresso) throws IOException {
+        return exportar(SQL_ATRASADOS, "empréstimos atrasados", saida, progresso);
+    }
+
+    /**
+     * Percorre a consulta em streaming, escrevendo cada linha na exportação.
+     */
+    private long exportar(String sql, String descricao, ExportadorDados saida, LongConsumer progresso)
+            throws IOException {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                try {
+                    saida.cabecalho(rs.getMetaData());
+                    long linhas = 0;
+                    while (rs.next()) {
+                        saida.linha(rs);
+                        if (++linhas % LOTE_PROGRESSO == 0) {
+                            progresso.accept(LOTE_PROGRESSO);
+                        }
+                    }
+                    progresso.accept(linhas % LOTE_PROGRESSO);
+                    return linhas;
+                } catch (IOException | RuntimeException e) {
+                    // Interrompida (erro de escrita ou cancelamento): abortar a consulta no servidor
+                    // antes de fechar o ResultSet, que senão leria as linhas restantes
+                    try {
+                        stmt.cancel();
+                    } catch (SQLException erroCancelamento) {
+                        e.addSuppressed(erroCancelamento);
+                    }
+                    throw e;
+                }
+            }
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao exportar " + descricao, e);
+        }
+
+        return -1;
+    }
+}
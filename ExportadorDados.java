@@ -0,0 +1,362 @@
+package com.biblioteca.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação de dados em CSV ou JSON Lines, linha a linha.
+ *
+ * <p>Cada linha é escrita assim que recebida — de um {@link ResultSet}
+ * percorrido em streaming ou de valores avulsos —, sem montar listas ou mapas
+ * intermediários, então o uso de memória não depende do número de linhas. A
+ * saída passa por buffers grandes até um {@link FileChannel}, opcionalmente
+ * compactada com gzip. O arquivo é escrito com um nome temporário e só recebe
+ * o nome final em {@link #concluir()}; se a exportação falhar ou for
+ * cancelada, {@link #close()} apaga o arquivo parcial.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class ExportadorDados implements Closeable {
+
+    /**
+     * Formatos de exportação.
+     */
+    public enum Formato {
+
+        /** Valores separados por vírgula, com cabeçalho (RFC 4180) */
+        CSV("CSV", "csv"),
+
+        /** Um objeto JSON por linha */
+        JSONL("JSON Lines", "jsonl");
+
+        private final String descricao;
+        private final String extensao;
+
+        Formato(String descricao, String extensao) {
+            this.descricao = descricao;
+            this.extensao = extensao;
+        }
+
+        /**
+         * @return Extensão do arquivo, sem a compactação
+         */
+        public String getExtensao() {
+            return extensao;
+        }
+
+        @Override
+        public String toString() {
+            return descricao;
+        }
+    }
+
+    /** Tamanho dos buffers de caracteres e de bytes */
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    /** Formato de data/hora para nomes de arquivo */
+    private static final DateTimeFormatter FILE_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final Path destino;
+    private final Path temporario;
+    private final Formato formato;
+    private final FileChannel canal;
+    private final Writer saida;
+
+    /** Chaves JSON já escapadas ({@code "nome":}) ou nomes das colunas no CSV */
+    private String[] colunas;
+
+    /** Por coluna do ResultSet: se o valor é escrito sem aspas no JSON (números e booleanos) */
+    private boolean[] literais;
+    private boolean[] booleanos;
+
+    private long linhas;
+    private boolean concluido;
+
+    /**
+     * Cria uma exportação no diretório de relatórios, com nome baseado na data e hora.
+     *
+     * @param nome Prefixo do arquivo (ex.: "emprestimos")
+     * @param formato Formato de saída
+     * @param gzip Se o arquivo deve ser compactado
+     * @return Exportação aberta
+     * @throws IOException Se o arquivo não puder ser criado
+     */
+    public static ExportadorDados criar(String nome, Formato formato, boolean gzip) throws IOException {
+        String arquivo = nome + "_" + LocalDateTime.now().format(FILE_FORMATTER) + "." + formato.extensao
+                + (gzip ? ".gz" : "");
+        return new ExportadorDados(Paths.get(PDFGenerator.getReportsDir(), arquivo), formato, gzip);
+    }
+
+    /**
+     * Abre uma exportação.
+     *
+     * @param destino Caminho final do arquivo
+     * @param formato Formato de saída
+     * @param gzip Se o arquivo deve ser compactado
+     * @throws IOException Se o arquivo não puder ser criado
+     */
+    public ExportadorDados(Path destino, Formato formato, boolean gzip) throws IOException {
+        this.destino = destino;
+        this.temporario = destino.resolveSibling(destino.getFileName() + ".parcial");
+        this.formato = formato;
+        this.canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        OutputStream bytes = new BufferedOutputStream(Channels.newOutputStream(canal), TAMANHO_BUFFER);
+        if (gzip) {
+            bytes = new GZIPOutputStream(bytes, TAMANHO_BUFFER);
+        }
+        this.saida = new BufferedWriter(new OutputStreamWriter(bytes, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+    }
+
+    /**
+     * Define as colunas (e escreve o cabeçalho no CSV). Deve ser chamado antes da primeira linha.
+     *
+     * @param nomes Nomes das colunas
+     * @throws IOException Se houver erro de escrita
+     */
+    public void cabecalho(String... nomes) throws IOException {
+        if (formato == Formato.CSV) {
+            colunas = nomes.clone();
+            for (int i = 0; i < nomes.length; i++) {
+                if (i > 0) saida.write(',');
+                escreverCsv(nomes[i], false);
+            }
+            saida.write("\r\n");
+        } else {
+            colunas = new String[nomes.length];
+            for (int i = 0; i < nomes.length; i++) {
+                StringBuilder chave = new StringBuilder(nomes[i].length() + 4);
+                chave.append(i == 0 ? "{" : ",");
+                escaparJson(chave, nomes[i]);
+                colunas[i] = chave.append(':').toString();
+            }
+        }
+    }
+
+    /**
+     * Define as colunas a partir dos metadados de uma consulta (rótulos e tipos).
+     *
+     * @param metadados Metadados do ResultSet que será exportado
+     * @throws SQLException Se os metadados não puderem ser lidos
+     * @throws IOException Se houver erro de escrita
+     */
+    public void cabecalho(ResultSetMetaData metadados) throws SQLException, IOException {
+        int total = metadados.getColumnCount();
+        String[] nomes = new String[total];
+        literais = new boolean[total];
+        booleanos = new boolean[total];
+        for (int i = 0; i < total; i++) {
+            nomes[i] = metadados.getColumnLabel(i + 1);
+            switch (metadados.getColumnType(i + 1)) {
+                case Types.BIT, Types.BOOLEAN -> {
+                    literais[i] = true;
+                    booleanos[i] = true;
+                }
+                case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+                     Types.DECIMAL, Types.NUMERIC, Types.REAL, Types.FLOAT, Types.DOUBLE -> literais[i] = true;
+                default -> { }
+            }
+        }
+        cabecalho(nomes);
+    }
+
+    /**
+     * Escreve a linha atual de um ResultSet (as colunas definidas pelos metadados).
+     *
+     * @param rs ResultSet posicionado na linha
+     * @throws SQLException Se a linha não puder ser lida
+     * @throws IOException Se houver erro de escrita
+     */
+    public void linha(ResultSet rs) throws SQLException, IOException {
+        inicioLinha();
+        for (int i = 0; i < colunas.length; i++) {
+            String valor;
+            if (booleanos[i]) {
+                boolean b = rs.getBoolean(i + 1);
+                valor = rs.wasNull() ? null : String.valueOf(b);
+            } else {
+                valor = rs.getString(i + 1);
+            }
+            escreverValor(i, valor, literais[i]);
+        }
+        fimLinha();
+    }
+
+    /**
+     * Escreve uma linha de valores avulsos, na ordem das colunas.
+     * Números e booleanos são escritos sem aspas no JSON; os demais, como texto.
+     *
+     * @param valores Valores da linha (null permitido)
+     * @throws IOException Se houver erro de escrita
+     */
+    public void linha(Object... valores) throws IOException {
+        inicioLinha();
+        for (int i = 0; i < colunas.length; i++) {
+            Object valor = i < valores.length ? valores[i] : null;
+            escreverValor(i, valor == null ? null : valor.toString(),
+                    valor instanceof Number || valor instanceof Boolean);
+        }
+        fimLinha();
+    }
+
+    /**
+     * @return Número de linhas escritas (sem o cabeçalho)
+     */
+    public long getLinhas() {
+        return linhas;
+    }
+
+    /**
+     * Finaliza o arquivo e lhe dá o nome definitivo.
+     *
+     * @return Caminho do arquivo gerado
+     * @throws IOException Se houver erro ao finalizar ou renomear
+     */
+    public String concluir() throws IOException {
+        saida.close();
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        concluido = true;
+        LogManager.info("Exportação gerada: " + destino + " (" + linhas + " linhas)");
+        return destino.toString();
+    }
+
+    /**
+     * Fecha o arquivo; se a exportação não foi concluída, apaga o arquivo parcial.
+     */
+    @Override
+    public void close() {
+        if (concluido) {
+            return;
+        }
+        try {
+            saida.close();
+        } catch (IOException e) {
+            // O arquivo parcial é descartado de qualquer forma
+        }
+        try {
+            canal.close();
+            Files.deleteIfExists(temporario);
+        } catch (IOException e) {
+            LogManager.error("Erro ao remover exportação incompleta: " + temporario, e);
+        }
+    }
+
+    private void inicioLinha() {
+        if (colunas == null) {
+            throw new IllegalStateException("Cabeçalho não definido");
+        }
+    }
+
+    private void fimLinha() throws IOException {
+        saida.write(formato == Formato.CSV ? "\r\n" : "}\n");
+        linhas++;
+    }
+
+    private void escreverValor(int coluna, String valor, boolean literal) throws IOException {
+        if (formato == Formato.CSV) {
+            if (coluna > 0) saida.write(',');
+            if (valor != null) escreverCsv(valor, literal);
+        } else {
+            saida.write(colunas[coluna]);
+            if (valor == null) {
+                saida.write("null");
+            } else if (literal) {
+                saida.write(valor);
+            } else {
+                escreverJson(valor);
+            }
+        }
+    }
+
+    /** Escreve um campo CSV, entre aspas só quando contém separador, aspas ou quebra de linha */
+    private void escreverCsv(String valor, boolean literal) throws IOException {
+        if (literal || !precisaAspas(valor)) {
+            saida.write(valor);
+            return;
+        }
+        saida.write('"');
+        int inicio = 0;
+        for (int i = 0; i < valor.length(); i++) {
+            if (valor.charAt(i) == '"') {
+                saida.write(valor, inicio, i - inicio + 1);
+                saida.write('"');
+                inicio = i + 1;
+            }
+        }
+        saida.write(valor, inicio, valor.length() - inicio);
+        saida.write('"');
+    }
+
+    private static boolean precisaAspas(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Escreve uma string JSON, copiando em blocos os trechos que não precisam de escape */
+    private void escreverJson(String valor) throws IOException {
+        saida.write('"');
+        int inicio = 0;
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                saida.write(valor, inicio, i - inicio);
+                saida.write(escapeJson(c));
+                inicio = i + 1;
+            }
+        }
+        saida.write(valor, inicio, valor.length() - inicio);
+        saida.write('"');
+    }
+
+    private static void escaparJson(StringBuilder destino, String valor) {
+        destino.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                destino.append(escapeJson(c));
+            } else {
+                destino.append(c);
+            }
+        }
+        destino.append('"');
+    }
+
+    private static String escapeJson(char c) {
+        return switch (c) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\n' -> "\\n";
+            case '\r' -> "\\r";
+            case '\t' -> "\\t";
+            default -> String.format("\\u%04x", (int) c);
+        };
+    }
+}
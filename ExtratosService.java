@@ -0,0 +1,336 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dao.EmprestimoDAO;
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.TipoUsuario;
+import com.biblioteca.utils.LogManager;
+import com.biblioteca.utils.PDFGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Geração em massa dos extratos de empréstimos em aberto (um PDF por usuário).
+ *
+ * <p>Os empréstimos em aberto de todos os usuários de um tipo são lidos em uma
+ * única consulta em streaming, ordenada por usuário; as linhas de cada usuário
+ * formam um extrato, entregue a um pool de threads que escreve os PDFs em
+ * paralelo. No máximo {@value #MAX_EM_ANDAMENTO} extratos ficam lidos e ainda
+ * não escritos — a leitura espera quando o limite é atingido —, então o uso de
+ * memória não depende do número de usuários.</p>
+ *
+ * <p>Os extratos de um lote (ex.: um semestre) ficam em um diretório próprio,
+ * com um arquivo de controle que guarda a data de referência dos atrasos e o
+ * maior usuário até o qual todos os extratos já foram escritos. Se a geração
+ * for interrompida — falha, cancelamento ou queda da aplicação —, a próxima
+ * execução do mesmo lote recomeça a consulta a partir desse usuário, com a
+ * mesma data de referência. Cada PDF só recebe o nome final quando completo.</p>
+ *
+ * <p>Um lote concluído só é reaproveitado no mesmo dia de referência: em um
+ * dia posterior (ex.: a geração do fim do semestre depois de uma no meio dele)
+ * os extratos são refeitos com a nova data, assim como quando o usuário pede
+ * para gerar novamente.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class ExtratosService {
+
+    /** Extratos lidos do banco e ainda não escritos */
+    private static final int MAX_EM_ANDAMENTO = 64;
+
+    /** Extratos submetidos entre gravações do arquivo de controle */
+    private static final int INTERVALO_CONTROLE = 500;
+
+    /** Arquivo de controle do lote, no diretório dos extratos */
+    private static final String ARQUIVO_CONTROLE = "controle.properties";
+
+    private static final String CHAVE_REFERENCIA = "data_referencia";
+    private static final String CHAVE_ULTIMO_USUARIO = "ultimo_usuario";
+    private static final String CHAVE_CONCLUIDO = "concluido";
+
+    /**
+     * Resultado de uma execução.
+     *
+     * @param diretorio Diretório dos extratos do lote
+     * @param extratos Extratos escritos nesta execução
+     * @param aposUsuarioId Usuário a partir do qual a execução recomeçou (0 se desde o início)
+     * @param referencia Data de referência dos atrasos
+     * @param existentes Se o lote já estava concluído nesta data de referência e nada foi escrito
+     */
+    public record Resultado(String diretorio, int extratos, int aposUsuarioId, LocalDate referencia,
+                            boolean existentes) { }
+
+    private static final EmprestimoDAO DAO = new EmprestimoDAO();
+
+    /**
+     * Construtor privado para evitar instanciação.
+     */
+    private ExtratosService() {
+        throw new UnsupportedOperationException("Classe utilitária não pode ser instanciada");
+    }
+
+    /**
+     * @return Identificação do semestre atual (ex.: "2026-2")
+     */
+    public static String semestreAtual() {
+        LocalDate hoje = LocalDate.now();
+        return hoje.getYear() + "-" + (hoje.getMonthValue() <= 6 ? 1 : 2);
+    }
+
+    /**
+     * Gera (ou retoma) os extratos de um lote.
+     *
+     * @param lote Identificação do lote, usada no nome do diretório
+     * @param tipo Tipo dos usuários que recebem extrato
+     * @param refazer Descarta os extratos e o controle existentes e gera o lote do zero
+     * @param progresso Andamento da tarefa; cada usuário lido conta como uma linha
+     * @return Resultado da execução
+     * @throws Exception Se a leitura ou a escrita falhar, ou se a tarefa for cancelada
+     */
+    public static Resultado gerar(String lote, TipoUsuario tipo, boolean refazer, FilaRelatorios.Progresso progresso)
+            throws Exception {
+        Path diretorio = Paths.get(PDFGenerator.getReportsDir(), "extratos_" + tipo.name().toLowerCase() + "_" + lote);
+        Files.createDirectories(diretorio);
+
+        LocalDate hoje = LocalDate.now();
+        Properties controle = lerControle(diretorio);
+        boolean concluidoAntes = Boolean.parseBoolean(controle.getProperty(CHAVE_CONCLUIDO));
+        if (concluidoAntes && !refazer && hoje.toString().equals(controle.getProperty(CHAVE_REFERENCIA))) {
+            LogManager.info("Extratos do lote " + lote + " já gerados em " + diretorio);
+            return new Resultado(diretorio.toString(), 0, 0, hoje, true);
+        }
+        if (concluidoAntes || refazer) {
+            // Nova geração: extratos de usuários que não têm mais empréstimos em aberto não podem sobrar
+            LogManager.info("Gerando novamente os extratos do lote " + lote + " com referência em " + hoje);
+            removerExtratos(diretorio);
+            controle.clear();
+        }
+
+        LocalDate referencia = LocalDate.parse(controle.getProperty(CHAVE_REFERENCIA, hoje.toString()));
+        int aposUsuarioId = Integer.parseInt(controle.getProperty(CHAVE_ULTIMO_USUARIO, "0"));
+        if (aposUsuarioId > 0) {
+            LogManager.info("Retomando extratos do lote " + lote + " após o usuário " + aposUsuarioId);
+        }
+        controle.setProperty(CHAVE_REFERENCIA, referencia.toString());
+
+        Execucao execucao = new Execucao(diretorio, referencia, aposUsuarioId);
+        progresso.fase(aposUsuarioId > 0 ? "Retomando extratos" : "Gerando extratos");
+        long inicio = System.nanoTime();
+        boolean concluido = false;
+        try {
+            int linhas = DAO.percorrerAbertosPorUsuario(tipo, aposUsuarioId, emp -> {
+                if (execucao.falha.get() != null) {
+                    throw new CancellationException("Falha ao escrever extrato");
+                }
+                if (execucao.atual != null && execucao.atual.get(0).getUsuarioId() != emp.getUsuarioId()) {
+                    execucao.submeter(progresso, controle);
+                }
+                if (execucao.atual == null) {
+                    execucao.atual = new ArrayList<>();
+                }
+                execucao.atual.add(emp);
+            });
+            if (linhas < 0) {
+                throw new IOException("Falha ao ler empréstimos em aberto do banco de dados");
+            }
+            if (execucao.atual != null) {
+                execucao.submeter(progresso, controle);
+            }
+            concluido = true;
+        } catch (CancellationException e) {
+            // Consulta interrompida por uma falha de escrita: a falha é lançada abaixo
+            if (execucao.falha.get() == null) throw e;
+        } finally {
+            execucao.encerrar();
+            concluido &= execucao.falha.get() == null;
+            controle.setProperty(CHAVE_ULTIMO_USUARIO, String.valueOf(execucao.ultimoConcluido()));
+            controle.setProperty(CHAVE_CONCLUIDO, String.valueOf(concluido));
+            gravarControle(diretorio, controle);
+        }
+
+        Exception falha = execucao.falha.get();
+        if (falha != null) {
+            throw falha;
+        }
+
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        LogManager.info(String.format("Extratos do lote %s gerados em %s (%d extratos em %.2f s, %.0f extratos/s)",
+                lote, diretorio, execucao.escritos.get(), segundos, segundos > 0 ? execucao.escritos.get() / segundos : 0));
+        return new Resultado(diretorio.toString(), execucao.escritos.get(), aposUsuarioId, referencia, false);
+    }
+
+    /**
+     * Estado de uma execução: pool de escrita, extratos em andamento e o
+     * usuário até o qual todos os extratos estão escritos.
+     */
+    private static final class Execucao {
+
+        private final Path diretorio;
+        private final LocalDate referencia;
+        private final ExecutorService pool;
+        private final Semaphore vagas = new Semaphore(MAX_EM_ANDAMENTO);
+        private final AtomicReference<Exception> falha = new AtomicReference<>();
+        private final AtomicInteger escritos = new AtomicInteger();
+
+        /** Usuários submetidos e ainda não escritos, na ordem da consulta */
+        private final Deque<Integer> pendentes = new ArrayDeque<>();
+
+        /** Usuários já escritos fora de ordem (à frente do primeiro pendente) */
+        private final Set<Integer> escritosForaDeOrdem = new HashSet<>();
+
+        /** Maior usuário com todos os anteriores escritos */
+        private int ultimoConcluido;
+
+        /** Empréstimos do usuário sendo lido (usado só pela thread da consulta) */
+        private List<Emprestimo> atual;
+        private int submetidos;
+
+        Execucao(Path diretorio, LocalDate referencia, int aposUsuarioId) {
+            this.diretorio = diretorio;
+            this.referencia = referencia;
+            this.ultimoConcluido = aposUsuarioId;
+            AtomicInteger contador = new AtomicInteger();
+            this.pool = Executors.newFixedThreadPool(PDFGenerator.TRABALHADORES_PADRAO, r -> {
+                Thread t = new Thread(r, "Extratos-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        /**
+         * Entrega o extrato do usuário lido ao pool, esperando uma vaga se necessário.
+         */
+        void submeter(FilaRelatorios.Progresso progresso, Properties controle) {
+            List<Emprestimo> emprestimos = atual;
+            atual = null;
+            int usuarioId = emprestimos.get(0).getUsuarioId();
+            progresso.linhas(1);
+
+            try {
+                vagas.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Geração de extratos interrompida");
+            }
+            synchronized (this) {
+                pendentes.addLast(usuarioId);
+            }
+            pool.execute(() -> {
+                try {
+                    if (falha.get() == null) {
+                        PDFGenerator.gerarExtrato(diretorio.resolve("extrato_" + usuarioId + ".pdf"), emprestimos, referencia);
+                        escritos.incrementAndGet();
+                        concluir(usuarioId);
+                    }
+                } catch (Exception e) {
+                    LogManager.error("Erro ao gerar extrato do usuário " + usuarioId, e);
+                    falha.compareAndSet(null, e);
+                } finally {
+                    vagas.release();
+                }
+            });
+
+            // Gravação periódica do ponto de retomada, pela thread da consulta
+            if (++submetidos % INTERVALO_CONTROLE == 0) {
+                controle.setProperty(CHAVE_ULTIMO_USUARIO, String.valueOf(ultimoConcluido()));
+                try {
+                    gravarControle(diretorio, controle);
+                } catch (IOException e) {
+                    LogManager.error("Erro ao gravar controle dos extratos", e);
+                }
+            }
+        }
+
+        /**
+         * Marca o extrato como escrito e avança o ponto de retomada enquanto o
+         * primeiro pendente estiver escrito.
+         */
+        private synchronized void concluir(int usuarioId) {
+            if (pendentes.peekFirst() != usuarioId) {
+                escritosForaDeOrdem.add(usuarioId);
+                return;
+            }
+            ultimoConcluido = pendentes.pollFirst();
+            while (!pendentes.isEmpty() && escritosForaDeOrdem.remove(pendentes.peekFirst())) {
+                ultimoConcluido = pendentes.pollFirst();
+            }
+        }
+
+        synchronized int ultimoConcluido() {
+            return ultimoConcluido;
+        }
+
+        /**
+         * Espera os extratos em andamento terminarem.
+         */
+        void encerrar() {
+            pool.shutdown();
+            try {
+                while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // Extratos são pequenos: a espera é curta mesmo com o pool cheio
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Remove os extratos e o controle de uma geração anterior do lote.
+     */
+    private static void removerExtratos(Path diretorio) throws IOException {
+        try (DirectoryStream<Path> extratos = Files.newDirectoryStream(diretorio, "extrato_*.pdf")) {
+            for (Path extrato : extratos) {
+                Files.deleteIfExists(extrato);
+            }
+        }
+        Files.deleteIfExists(diretorio.resolve(ARQUIVO_CONTROLE));
+    }
+
+    private static Properties lerControle(Path diretorio) throws IOException {
+        Properties controle = new Properties();
+        Path arquivo = diretorio.resolve(ARQUIVO_CONTROLE);
+        if (Files.exists(arquivo)) {
+            try (InputStream in = Files.newInputStream(arquivo)) {
+                controle.load(in);
+            }
+        }
+        return controle;
+    }
+
+    /**
+     * Grava o arquivo de controle por substituição atômica: uma queda no meio
+     * da gravação mantém o controle anterior.
+     */
+    private static void gravarControle(Path diretorio, Properties controle) throws IOException {
+        Path temporario = diretorio.resolve(ARQUIVO_CONTROLE + ".parcial");
+        try (OutputStream out = Files.newOutputStream(temporario)) {
+            controle.store(out, "Controle da geração de extratos");
+        }
+        Files.move(temporario, diretorio.resolve(ARQUIVO_CONTROLE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,368 @@
+package com.biblioteca.service;
+
+import com.biblioteca.utils.LogManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila de geração de relatórios em segundo plano.
+ *
+ * <p>Cada relatório é uma {@link Tarefa} executada por um pool limitado de
+ * {@value #MAX_EXECUTANDO} threads. Relatórios pesados (que percorrem tabelas
+ * inteiras) têm um limite próprio de {@value #MAX_PESADAS} em execução: os
+ * excedentes aguardam na fila sem ocupar uma thread, então os relatórios leves
+ * continuam andando. A tarefa informa a fase atual e as linhas processadas,
+ * pode ser cancelada a qualquer momento e, ao terminar, vai para o histórico
+ * com a sua duração.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class FilaRelatorios {
+
+    /** Relatórios executando ao mesmo tempo */
+    private static final int MAX_EXECUTANDO = 3;
+
+    /** Relatórios pesados executando ao mesmo tempo */
+    private static final int MAX_PESADAS = 1;
+
+    /** Relatórios aguardando ou executando; acima disso novas tarefas são recusadas */
+    private static final int MAX_PENDENTES = 20;
+
+    /** Tarefas finalizadas mantidas no histórico */
+    private static final int MAX_HISTORICO = 50;
+
+    /**
+     * Situação de uma tarefa.
+     */
+    public enum Estado {
+        AGUARDANDO("Aguardando"),
+        EXECUTANDO("Executando"),
+        CONCLUIDA("Concluída"),
+        CANCELADA("Cancelada"),
+        FALHOU("Falhou");
+
+        private final String descricao;
+
+        Estado(String descricao) {
+            this.descricao = descricao;
+        }
+
+        @Override
+        public String toString() {
+            return descricao;
+        }
+    }
+
+    /**
+     * Andamento informado pelo relatório durante a geração. Os dois métodos
+     * lançam {@link CancellationException} se a tarefa foi cancelada, o que
+     * interrompe a geração no ponto em que estiver.
+     */
+    public interface Progresso {
+
+        /**
+         * @param fase Descrição da etapa atual (ex.: "Consultando", "Gerando PDF")
+         */
+        void fase(String fase);
+
+        /**
+         * @param quantidade Linhas processadas desde a última chamada
+         */
+        void linhas(long quantidade);
+    }
+
+    /**
+     * Geração de um relatório.
+     */
+    @FunctionalInterface
+    public interface Trabalho<T> {
+        T executar(Progresso progresso) throws Exception;
+    }
+
+    /**
+     * Relatório submetido à fila.
+     */
+    public static final class Tarefa<T> implements Progresso {
+
+        private final long id;
+        private final String nome;
+        private final boolean pesada;
+        private final Trabalho<T> trabalho;
+        private final LocalDateTime criadaEm = LocalDateTime.now();
+        private final AtomicLong linhas = new AtomicLong();
+        private final CompletableFuture<T> resultado = new CompletableFuture<>();
+
+        private volatile Estado estado = Estado.AGUARDANDO;
+        private volatile String fase = "Na fila";
+        private volatile String erro;
+        private volatile boolean cancelada;
+        private volatile long inicioNanos;
+        private volatile long fimNanos;
+
+        /** Execução no pool, depois de sair da fila de pesadas */
+        private Future<?> execucao;
+
+        private Tarefa(long id, String nome, boolean pesada, Trabalho<T> trabalho) {
+            this.id = id;
+            this.nome = nome;
+            this.pesada = pesada;
+            this.trabalho = trabalho;
+        }
+
+        public long getId() { return id; }
+        public String getNome() { return nome; }
+        public boolean isPesada() { return pesada; }
+        public LocalDateTime getCriadaEm() { return criadaEm; }
+        public Estado getEstado() { return estado; }
+        public String getFase() { return fase; }
+        public long getLinhas() { return linhas.get(); }
+
+        /** @return Mensagem do erro, se a tarefa falhou */
+        public String getErro() { return erro; }
+
+        /** @return Resultado; completa com erro se a tarefa falhar ou for cancelada */
+        public CompletableFuture<T> getResultado() { return resultado; }
+
+        /** @return true se a tarefa já terminou (concluída, cancelada ou com falha) */
+        public boolean isFinalizada() {
+            return estado != Estado.AGUARDANDO && estado != Estado.EXECUTANDO;
+        }
+
+        /**
+         * @return Tempo de execução em milissegundos (até agora, se ainda executando)
+         */
+        public long getDuracaoMs() {
+            if (inicioNanos == 0) return 0;
+            long fim = fimNanos != 0 ? fimNanos : System.nanoTime();
+            return TimeUnit.NANOSECONDS.toMillis(fim - inicioNanos);
+        }
+
+        /**
+         * Cancela a tarefa: se ainda aguarda, sai da fila; se executa, é interrompida.
+         */
+        public void cancelar() {
+            FilaRelatorios.cancelar(this);
+        }
+
+        @Override
+        public void fase(String fase) {
+            verificarCancelamento();
+            this.fase = fase;
+        }
+
+        @Override
+        public void linhas(long quantidade) {
+            verificarCancelamento();
+            linhas.addAndGet(quantidade);
+        }
+
+        private void verificarCancelamento() {
+            if (cancelada || Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Relatório cancelado: " + nome);
+            }
+        }
+    }
+
+    private static final AtomicLong SEQUENCIA = new AtomicLong();
+
+    private static final ThreadPoolExecutor EXECUTOR = criarExecutor();
+
+    /** Guarda o estado da fila; as transições das tarefas são feitas sob este lock */
+    private static final Object LOCK = new Object();
+
+    private static final List<Tarefa<?>> pendentes = new ArrayList<>();
+    private static final Deque<Tarefa<?>> pesadasAguardando = new ArrayDeque<>();
+    private static final Deque<Tarefa<?>> historico = new ArrayDeque<>();
+    private static int pesadasExecutando;
+
+    /**
+     * Construtor privado para evitar instanciação.
+     */
+    private FilaRelatorios() {
+        throw new UnsupportedOperationException("Classe utilitária não pode ser instanciada");
+    }
+
+    /**
+     * Submete um relatório à fila.
+     *
+     * @param nome Nome exibido na lista de tarefas
+     * @param pesada Se o relatório percorre tabelas inteiras (sujeito ao limite de pesados)
+     * @param trabalho Geração do relatório
+     * @return Tarefa criada, ou null se a fila estiver cheia
+     */
+    public static <T> Tarefa<T> submeter(String nome, boolean pesada, Trabalho<T> trabalho) {
+        synchronized (LOCK) {
+            if (pendentes.size() >= MAX_PENDENTES) {
+                LogManager.warning("Fila de relatórios cheia; relatório recusado: " + nome);
+                return null;
+            }
+
+            Tarefa<T> tarefa = new Tarefa<>(SEQUENCIA.incrementAndGet(), nome, pesada, trabalho);
+            pendentes.add(tarefa);
+            if (!pesada) {
+                despachar(tarefa);
+            } else if (pesadasExecutando < MAX_PESADAS) {
+                pesadasExecutando++;
+                despachar(tarefa);
+            } else {
+                tarefa.fase = "Aguardando outro relatório pesado";
+                pesadasAguardando.addLast(tarefa);
+            }
+            return tarefa;
+        }
+    }
+
+    /**
+     * Lista as tarefas em andamento (na ordem de submissão) seguidas do histórico (mais recentes primeiro).
+     *
+     * @return Retrato da fila
+     */
+    public static List<Tarefa<?>> listar() {
+        synchronized (LOCK) {
+            List<Tarefa<?>> tarefas = new ArrayList<>(pendentes.size() + historico.size());
+            tarefas.addAll(pendentes);
+            tarefas.addAll(historico);
+            return tarefas;
+        }
+    }
+
+    /**
+     * @return true se há relatórios aguardando ou executando
+     */
+    public static boolean isOcupada() {
+        synchronized (LOCK) {
+            return !pendentes.isEmpty();
+        }
+    }
+
+    /**
+     * Cancela todas as tarefas e encerra o pool. Chamado no encerramento da aplicação.
+     */
+    public static void parar() {
+        for (Tarefa<?> tarefa : listar()) {
+            if (!tarefa.isFinalizada()) {
+                tarefa.cancelar();
+            }
+        }
+        EXECUTOR.shutdownNow();
+    }
+
+    /** Envia a tarefa ao pool; chamado sob o lock, que a thread só obtém depois de {@code execucao} atribuída */
+    private static void despachar(Tarefa<?> tarefa) {
+        tarefa.execucao = EXECUTOR.submit(() -> executar(tarefa));
+    }
+
+    private static <T> void executar(Tarefa<T> tarefa) {
+        synchronized (LOCK) {
+            if (tarefa.cancelada) return;
+            tarefa.estado = Estado.EXECUTANDO;
+            tarefa.fase = "Iniciando";
+            tarefa.inicioNanos = System.nanoTime();
+        }
+
+        try {
+            T valor = tarefa.trabalho.executar(tarefa);
+            if (finalizar(tarefa, tarefa.cancelada ? Estado.CANCELADA : Estado.CONCLUIDA, null)) {
+                tarefa.resultado.complete(valor);
+            }
+        } catch (CancellationException | InterruptedException e) {
+            finalizar(tarefa, Estado.CANCELADA, null);
+        } catch (Throwable e) {
+            if (tarefa.cancelada) {
+                // Falhas provocadas pela interrupção (ex.: consulta abortada)
+                finalizar(tarefa, Estado.CANCELADA, null);
+            } else {
+                LogManager.error("Erro ao gerar relatório: " + tarefa.nome, e);
+                finalizar(tarefa, Estado.FALHOU, e);
+            }
+        } finally {
+            // Não deixar a interrupção de um cancelamento vazar para a próxima tarefa da thread
+            Thread.interrupted();
+        }
+    }
+
+    private static void cancelar(Tarefa<?> tarefa) {
+        synchronized (LOCK) {
+            if (tarefa.isFinalizada() || tarefa.cancelada) return;
+            tarefa.cancelada = true;
+
+            if (tarefa.estado == Estado.AGUARDANDO) {
+                pesadasAguardando.remove(tarefa);
+                if (tarefa.execucao != null && tarefa.execucao.cancel(false)) {
+                    EXECUTOR.purge();
+                }
+                finalizar(tarefa, Estado.CANCELADA, null);
+            } else if (tarefa.execucao != null) {
+                tarefa.fase = "Cancelando";
+                tarefa.execucao.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Move a tarefa para o histórico, libera a vaga de pesada e completa o resultado em caso de erro.
+     *
+     * @return true se a tarefa foi finalizada por esta chamada
+     */
+    private static boolean finalizar(Tarefa<?> tarefa, Estado estado, Throwable erro) {
+        synchronized (LOCK) {
+            if (!pendentes.remove(tarefa)) return false;
+
+            tarefa.fimNanos = System.nanoTime();
+            tarefa.estado = estado;
+            tarefa.fase = estado.toString();
+            if (erro != null) {
+                tarefa.erro = erro.getMessage() != null ? erro.getMessage() : erro.getClass().getSimpleName();
+            }
+
+            historico.addFirst(tarefa);
+            while (historico.size() > MAX_HISTORICO) {
+                historico.removeLast();
+            }
+
+            // Uma pesada despachada ao pool ocupava uma vaga: passa para a próxima da fila
+            if (tarefa.pesada && tarefa.execucao != null) {
+                Tarefa<?> proxima = pesadasAguardando.pollFirst();
+                if (proxima != null) {
+                    despachar(proxima);
+                } else {
+                    pesadasExecutando--;
+                }
+            }
+        }
+
+        LogManager.info(String.format("Relatório '%s' %s em %d ms (%d linhas)",
+                tarefa.nome, estado.toString().toLowerCase(), tarefa.getDuracaoMs(), tarefa.getLinhas()));
+        if (estado == Estado.CANCELADA) {
+            tarefa.resultado.cancel(false);
+        } else if (erro != null) {
+            tarefa.resultado.completeExceptionally(erro);
+        }
+        return true;
+    }
+
+    private static ThreadPoolExecutor criarExecutor() {
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_EXECUTANDO, MAX_EXECUTANDO, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "Relatorio-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,120 @@
+package com.biblioteca.utils;
+
+/**
+ * Filtro de Bloom para textos.
+ *
+ * <p>Responde se um texto <em>talvez</em> tenha sido adicionado: uma resposta
+ * negativa é definitiva, uma positiva pode ser falsa com probabilidade
+ * próxima à taxa escolhida na criação (enquanto o número de elementos não
+ * passar da capacidade). Não há remoção.</p>
+ *
+ * <p>As k posições de cada texto são derivadas de um único hash de 64 bits
+ * (h1 + i·h2), sem calcular k hashes independentes.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class FiltroBloom {
+
+    private final long[] bits;
+    private final long numeroBits;
+    private final int numeroHashes;
+
+    private long bitsLigados;
+    private long elementos;
+
+    /**
+     * Cria um filtro dimensionado para a capacidade e a taxa de falsos positivos.
+     *
+     * @param capacidade Número esperado de elementos
+     * @param taxaFalsoPositivo Taxa de falsos positivos desejada (ex.: 0.01)
+     */
+    public FiltroBloom(int capacidade, double taxaFalsoPositivo) {
+        long m = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.bits = new long[(int) ((Math.max(m, 64) + 63) / 64)];
+        this.numeroBits = bits.length * 64L;
+        this.numeroHashes = Math.max(1, (int) Math.round((double) numeroBits / capacidade * Math.log(2)));
+    }
+
+    /**
+     * Adiciona um texto.
+     *
+     * @param texto Texto (null é ignorado)
+     */
+    public synchronized void adicionar(String texto) {
+        if (texto == null) {
+            return;
+        }
+        long hash = hash(texto);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numeroHashes; i++) {
+            long posicao = Math.floorMod(h1 + (long) i * h2, numeroBits);
+            int palavra = (int) (posicao >>> 6);
+            long mascara = 1L << posicao;
+            if ((bits[palavra] & mascara) == 0) {
+                bits[palavra] |= mascara;
+                bitsLigados++;
+            }
+        }
+        elementos++;
+    }
+
+    /**
+     * @param texto Texto procurado
+     * @return false se o texto certamente não foi adicionado
+     */
+    public synchronized boolean talvezContenha(String texto) {
+        if (texto == null) {
+            return false;
+        }
+        long hash = hash(texto);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numeroHashes; i++) {
+            long posicao = Math.floorMod(h1 + (long) i * h2, numeroBits);
+            if ((bits[(int) (posicao >>> 6)] & (1L << posicao)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Número de adições (inclui repetições)
+     */
+    public synchronized long getElementos() {
+        return elementos;
+    }
+
+    /**
+     * Estima a taxa de falsos positivos atual pela fração de bits ligados.
+     *
+     * @return Probabilidade estimada (0 a 1)
+     */
+    public synchronized double taxaFalsoPositivoEstimada() {
+        return Math.pow((double) bitsLigados / numeroBits, numeroHashes);
+    }
+
+    /**
+     * @return Tamanho do filtro em bytes
+     */
+    public int getTamanhoBytes() {
+        return bits.length * Long.BYTES;
+    }
+
+    /** FNV-1a de 64 bits seguido da finalização do MurmurHash3, para espalhar os bits */
+    private static long hash(String texto) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            h ^= texto.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
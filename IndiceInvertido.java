@@ -0,0 +1,356 @@
+package com.biblioteca.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória para busca textual com ranqueamento BM25.
+ *
+ * <p>Cada documento é identificado por um inteiro e composto por um ou mais
+ * campos de texto. Os textos são normalizados (minúsculas, sem acentos) e
+ * divididos em termos; palavras muito comuns do português são ignoradas.
+ * Uma consulta retorna os documentos que contêm todos os termos pesquisados,
+ * aceitando também termos que apenas comecem pelo texto digitado (busca por
+ * prefixo), ordenados por relevância.</p>
+ *
+ * <p>As listas de ocorrências usam arrays de inteiros para manter o consumo de
+ * memória baixo em acervos grandes. A classe é segura para uso concorrente:
+ * consultas compartilham um lock de leitura e atualizações usam o de escrita.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class IndiceInvertido {
+
+    /** Parâmetros do BM25 */
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /** Peso de um termo encontrado apenas por prefixo, relativo ao termo exato */
+    private static final double PESO_PREFIXO = 0.6;
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas",
+            "um", "uma", "por", "para", "com", "ao", "aos", "the", "of", "and");
+
+    /** Ocorrências de um termo: documentos e frequência do termo em cada um */
+    private static final class Postagens {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int tamanho;
+
+        private void adicionar(int doc, int freq) {
+            if (tamanho == docs.length) {
+                docs = Arrays.copyOf(docs, tamanho * 2);
+                freqs = Arrays.copyOf(freqs, tamanho * 2);
+            }
+            docs[tamanho] = doc;
+            freqs[tamanho] = freq;
+            tamanho++;
+        }
+
+        private void remover(int doc) {
+            for (int i = 0; i < tamanho; i++) {
+                if (docs[i] == doc) {
+                    tamanho--;
+                    docs[i] = docs[tamanho];
+                    freqs[i] = freqs[tamanho];
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Termos distintos e comprimento (em termos) de um documento indexado */
+    private record Documento(String[] termos, int comprimento) { }
+
+    private final NavigableMap<String, Postagens> termos = new TreeMap<>();
+    private final Map<Integer, Documento> documentos = new HashMap<>();
+    private long comprimentoTotal;
+
+    /** Documentos removidos durante uma carga em andamento, que a carga não deve reinserir */
+    private final Set<Integer> removidosNaCarga = new HashSet<>();
+    private boolean carregando;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexa um documento, substituindo a versão anterior se já existir.
+     *
+     * @param id Identificador do documento
+     * @param campos Textos do documento (valores null são ignorados)
+     */
+    public void indexar(int id, String... campos) {
+        lock.writeLock().lock();
+        try {
+            removerInterno(id);
+            removidosNaCarga.remove(id);
+            adicionarInterno(id, campos);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa um documento lido na carga, apenas se ele ainda não estiver no
+     * índice nem tiver sido removido depois de {@link #iniciarCarga()}.
+     *
+     * @param id Identificador do documento
+     * @param campos Textos do documento
+     * @return true se o documento foi indexado
+     */
+    public boolean indexarSeAusente(int id, String... campos) {
+        lock.writeLock().lock();
+        try {
+            if (documentos.containsKey(id) || removidosNaCarga.contains(id)) {
+                return false;
+            }
+            adicionarInterno(id, campos);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove um documento do índice.
+     *
+     * @param id Identificador do documento
+     */
+    public void remover(int id) {
+        lock.writeLock().lock();
+        try {
+            if (carregando) {
+                removidosNaCarga.add(id);
+            }
+            removerInterno(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marca o início de uma carga feita com {@link #indexarSeAusente}: a partir
+     * daqui, as remoções são lembradas até {@link #concluirCarga()}, para que
+     * uma linha lida antes da remoção não volte ao índice.
+     */
+    public void iniciarCarga() {
+        lock.writeLock().lock();
+        try {
+            carregando = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marca o fim da carga (concluída ou não).
+     */
+    public void concluirCarga() {
+        lock.writeLock().lock();
+        try {
+            carregando = false;
+            removidosNaCarga.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return Número de documentos indexados
+     */
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca os documentos mais relevantes para uma consulta.
+     *
+     * @param consulta Texto da consulta
+     * @param limite Número máximo de resultados
+     * @return IDs dos documentos, do mais para o menos relevante
+     */
+    public List<Integer> buscar(String consulta, int limite) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenizar(consulta)));
+        if (tokens.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int n = documentos.size();
+            if (n == 0) {
+                return List.of();
+            }
+            double mediaComprimento = (double) comprimentoTotal / n;
+
+            // Expandir cada token e começar pelo mais seletivo, para que a interseção encolha cedo
+            List<Map.Entry<String, List<String>>> expansoes = new ArrayList<>();
+            for (String token : tokens) {
+                List<String> expandidos = expandir(token);
+                if (expandidos.isEmpty()) {
+                    return List.of();
+                }
+                expansoes.add(Map.entry(token, expandidos));
+            }
+            expansoes.sort(Comparator.comparingLong(e -> frequencia(e.getValue())));
+
+            Map<Integer, double[]> candidatos = null;
+            for (Map.Entry<String, List<String>> expansao : expansoes) {
+                Map<Integer, double[]> parcial = new HashMap<>();
+                for (String termo : expansao.getValue()) {
+                    Postagens p = termos.get(termo);
+                    double idf = Math.log(1 + (n - p.tamanho + 0.5) / (p.tamanho + 0.5));
+                    double peso = termo.equals(expansao.getKey()) ? 1 : PESO_PREFIXO;
+                    for (int i = 0; i < p.tamanho; i++) {
+                        int doc = p.docs[i];
+                        if (candidatos != null && !candidatos.containsKey(doc)) continue;
+                        double tf = p.freqs[i];
+                        double norma = 1 - B + B * documentos.get(doc).comprimento() / mediaComprimento;
+                        double pontos = peso * idf * tf * (K1 + 1) / (tf + K1 * norma);
+                        // Para um mesmo token, vale o melhor termo encontrado
+                        double[] atual = parcial.computeIfAbsent(doc, d -> new double[1]);
+                        atual[0] = Math.max(atual[0], pontos);
+                    }
+                }
+                if (candidatos != null) {
+                    for (Map.Entry<Integer, double[]> e : parcial.entrySet()) {
+                        e.getValue()[0] += candidatos.get(e.getKey())[0];
+                    }
+                }
+                candidatos = parcial;
+                if (candidatos.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return melhores(candidatos, limite);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Normaliza um texto para indexação: minúsculas e sem acentos.
+     *
+     * @param texto Texto original
+     * @return Texto normalizado
+     */
+    public static String normalizar(String texto) {
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return DIACRITICOS.matcher(decomposto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Divide um texto em termos normalizados, descartando palavras muito comuns.
+     *
+     * @param texto Texto original (pode ser null)
+     * @return Termos na ordem em que aparecem
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null) {
+            return tokens;
+        }
+        for (String token : SEPARADORES.split(normalizar(texto))) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void adicionarInterno(int id, String... campos) {
+        Map<String, Integer> frequencias = new HashMap<>();
+        int comprimento = 0;
+        for (String campo : campos) {
+            for (String token : tokenizar(campo)) {
+                frequencias.merge(token, 1, Integer::sum);
+                comprimento++;
+            }
+        }
+        if (frequencias.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Integer> e : frequencias.entrySet()) {
+            termos.computeIfAbsent(e.getKey(), t -> new Postagens()).adicionar(id, e.getValue());
+        }
+        documentos.put(id, new Documento(frequencias.keySet().toArray(new String[0]), comprimento));
+        comprimentoTotal += comprimento;
+    }
+
+    private void removerInterno(int id) {
+        Documento doc = documentos.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String termo : doc.termos()) {
+            Postagens p = termos.get(termo);
+            p.remover(id);
+            if (p.tamanho == 0) {
+                termos.remove(termo);
+            }
+        }
+        comprimentoTotal -= doc.comprimento();
+    }
+
+    /**
+     * Retorna o próprio token (se indexado) e todos os termos que começam por
+     * ele: a união das suas ocorrências é o conjunto exato de documentos que
+     * casam com o prefixo.
+     */
+    private List<String> expandir(String token) {
+        return new ArrayList<>(termos.subMap(token, true, token + Character.MAX_VALUE, false).keySet());
+    }
+
+    private long frequencia(List<String> expandidos) {
+        long total = 0;
+        for (String termo : expandidos) {
+            total += termos.get(termo).tamanho;
+        }
+        return total;
+    }
+
+    private static List<Integer> melhores(Map<Integer, double[]> pontuacoes, int limite) {
+        PriorityQueue<Map.Entry<Integer, double[]>> heap =
+                new PriorityQueue<>(Comparator.comparingDouble(e -> e.getValue()[0]));
+        for (Map.Entry<Integer, double[]> e : pontuacoes.entrySet()) {
+            if (heap.size() < limite) {
+                heap.add(e);
+            } else if (e.getValue()[0] > heap.peek().getValue()[0]) {
+                heap.poll();
+                heap.add(e);
+            }
+        }
+
+        Integer[] ids = new Integer[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = heap.poll().getKey();
+        }
+        return Arrays.asList(ids);
+    }
+}
@@ -0,0 +1,278 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.utils.LogManager;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableListBase;
+import javafx.scene.Node;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+import javafx.util.Callback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToIntFunction;
+
+/**
+ * Lista observável que carrega os dados de uma {@link TableView} sob demanda,
+ * página a página, conforme o usuário rola a tabela.
+ *
+ * <p>As páginas são buscadas por paginação por chave (keyset): cada página é
+ * carregada a partir do último item da anterior. Apenas as páginas usadas mais
+ * recentemente ficam em memória; o último item de cada página é guardado como
+ * cursor, de forma que uma página descartada possa ser recarregada ao voltar
+ * a rolagem.</p>
+ *
+ * <p>Se o banco mudou desde a primeira carga (inclusões ou exclusões antes do
+ * fim da página), a página recarregada não termina mais no mesmo item e as
+ * páginas seguintes deixam de ser contíguas a ela. Nesse caso a lista é
+ * ressincronizada: as páginas a partir da recarregada são descartadas, o
+ * tamanho passa a terminar nela e a tabela é notificada; a rolagem seguinte
+ * continua a partir do novo último item.</p>
+ *
+ * <p>A primeira página e as seguintes são buscadas em segundo plano
+ * ({@link CarregadorTela}); só a recarga de uma página descartada, que precisa
+ * devolver a linha pedida pela tabela, acontece na thread do JavaFX.</p>
+ *
+ * @param <T> Tipo dos itens
+ */
+final class ListaPaginada<T> extends ObservableListBase<T> {
+
+    /**
+     * Carrega uma página a partir do último item da página anterior.
+     */
+    @FunctionalInterface
+    interface CarregadorPagina<T> {
+        List<T> carregar(T ultimo, int limite);
+    }
+
+    /** Número de linhas por página */
+    static final int TAMANHO_PAGINA = 100;
+
+    /** Número máximo de páginas mantidas em memória */
+    static final int MAX_PAGINAS = 20;
+
+    /** Chave das consultas da tabela no {@link CarregadorTela}: uma busca substitui a carga anterior */
+    static final String CHAVE_TABELA = "tabela";
+
+    /** Chave das propriedades da tabela onde fica o placeholder original */
+    private static final String PLACEHOLDER = "ListaPaginada.placeholder";
+
+    private final CarregadorPagina<T> carregador;
+    private final ToIntFunction<T> id;
+    private final int tamanhoPagina;
+    private final Map<Integer, List<T>> paginas;
+
+    /** Último item de cada página carregada, usado como cursor da página seguinte */
+    private final List<T> cursores = new ArrayList<>();
+
+    private int tamanho;
+    private boolean fim;
+    private boolean proximaAgendada;
+
+    /** Incrementada a cada ressincronização; descarta páginas seguintes buscadas antes dela */
+    private int geracao;
+
+    /**
+     * Cria a lista a partir da primeira página já carregada.
+     *
+     * @param carregador Função de carga de páginas
+     * @param id Identificador de um item (desempate da ordem da consulta)
+     * @param primeiraPagina Primeira página
+     * @param tamanhoPagina Número de linhas por página
+     * @param maxPaginas Número máximo de páginas em memória
+     */
+    ListaPaginada(CarregadorPagina<T> carregador, ToIntFunction<T> id, List<T> primeiraPagina,
+                  int tamanhoPagina, int maxPaginas) {
+        this.carregador = carregador;
+        this.id = id;
+        this.tamanhoPagina = tamanhoPagina;
+        this.paginas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPaginas;
+            }
+        };
+        registrarPagina(primeiraPagina);
+    }
+
+    /**
+     * Exibe os dados paginados em uma tabela, buscando a primeira página em
+     * segundo plano. A ordenação pelas colunas é desativada, pois a ordem é
+     * definida pela consulta paginada.
+     *
+     * @param tabela Tabela de destino
+     * @param carregador Função de carga de páginas
+     * @param id Identificador de um item (desempate da ordem da consulta)
+     * @param tela Carregador da tela
+     */
+    static <T> void exibir(TableView<T> tabela, CarregadorPagina<T> carregador, ToIntFunction<T> id,
+                           CarregadorTela tela) {
+        aguardar(tabela);
+        tela.carregar(CHAVE_TABELA, () -> carregador.carregar(null, TAMANHO_PAGINA), pagina -> {
+            restaurarPlaceholder(tabela);
+            tabela.getSortOrder().clear();
+            tabela.setSortPolicy(t -> false);
+            tabela.setItems(new ListaPaginada<>(carregador, id, pagina, TAMANHO_PAGINA, MAX_PAGINAS));
+        }, erro -> restaurarPlaceholder(tabela));
+    }
+
+    /**
+     * Exibe uma lista comum (ex.: resultado de busca) restaurando a ordenação padrão.
+     *
+     * @param tabela Tabela de destino
+     * @param itens Itens a exibir
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> void exibir(TableView<T> tabela, List<T> itens) {
+        restaurarPlaceholder(tabela);
+        tabela.setSortPolicy((Callback) TableView.DEFAULT_SORT_POLICY);
+        tabela.setItems(FXCollections.observableArrayList(itens));
+    }
+
+    /**
+     * Exibe o resultado de uma consulta comum (ex.: busca), executada em segundo plano.
+     *
+     * @param tabela Tabela de destino
+     * @param consulta Consulta que retorna os itens
+     * @param tela Carregador da tela
+     */
+    static <T> void exibirBusca(TableView<T> tabela, Callable<List<T>> consulta, CarregadorTela tela) {
+        aguardar(tabela);
+        tela.carregar(CHAVE_TABELA, consulta, itens -> exibir(tabela, itens), erro -> restaurarPlaceholder(tabela));
+    }
+
+    /**
+     * Esvazia a tabela e exibe um indicador de progresso enquanto os dados são carregados.
+     *
+     * @param tabela Tabela de destino
+     */
+    static void aguardar(TableView<?> tabela) {
+        if (!tabela.getProperties().containsKey(PLACEHOLDER)) {
+            tabela.getProperties().put(PLACEHOLDER, tabela.getPlaceholder());
+        }
+        tabela.setItems(FXCollections.observableArrayList());
+        tabela.setPlaceholder(new ProgressIndicator());
+    }
+
+    private static void restaurarPlaceholder(TableView<?> tabela) {
+        if (tabela.getProperties().containsKey(PLACEHOLDER)) {
+            tabela.setPlaceholder((Node) tabela.getProperties().remove(PLACEHOLDER));
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, tamanho);
+        int numero = index / tamanhoPagina;
+
+        List<T> pagina = paginas.get(numero);
+        if (pagina == null) {
+            pagina = recarregar(numero);
+        }
+
+        // Ao exibir a última página carregada, buscar a próxima em segundo plano
+        if (numero == cursores.size() - 1 && !fim && !proximaAgendada) {
+            proximaAgendada = true;
+            T cursor = cursores.get(cursores.size() - 1);
+            int geracaoCursor = geracao;
+            CompletableFuture.supplyAsync(() -> carregador.carregar(cursor, tamanhoPagina), CarregadorTela.executor())
+                    .whenCompleteAsync((proxima, erro) -> anexarPagina(proxima, erro, geracaoCursor), Platform::runLater);
+        }
+
+        int posicao = index % tamanhoPagina;
+        // Página que encolheu no banco: vazio apenas até a ressincronização agendada em recarregar()
+        return posicao < pagina.size() ? pagina.get(posicao) : null;
+    }
+
+    /**
+     * Recarrega uma página descartada a partir do cursor da página anterior.
+     * Se ela não termina mais no item guardado como cursor, ou mudou de tamanho,
+     * agenda a ressincronização da lista a partir dela.
+     */
+    private List<T> recarregar(int numero) {
+        List<T> pagina = carregador.carregar(numero == 0 ? null : cursores.get(numero - 1), tamanhoPagina);
+        paginas.put(numero, pagina);
+
+        int esperado = numero < cursores.size() - 1 ? tamanhoPagina : tamanho - numero * tamanhoPagina;
+        boolean inalterada = pagina.size() == esperado
+                && id.applyAsInt(pagina.get(pagina.size() - 1)) == id.applyAsInt(cursores.get(numero));
+        if (!inalterada) {
+            // Não é possível notificar a tabela durante o get(): a notificação fica para depois do layout
+            Platform.runLater(() -> ressincronizar(numero, pagina));
+        }
+        return pagina;
+    }
+
+    /**
+     * Descarta as páginas a partir da recarregada, que passa a ser a última,
+     * e notifica a tabela da troca das linhas a partir dela.
+     */
+    private void ressincronizar(int numero, List<T> pagina) {
+        // Já descartada por uma ressincronização anterior, a partir de uma página mais acima
+        if (numero >= cursores.size() || paginas.get(numero) != pagina) return;
+
+        int inicio = numero * tamanhoPagina;
+        int anterior = tamanho;
+        paginas.keySet().removeIf(n -> n >= numero);
+        cursores.subList(numero, cursores.size()).clear();
+        tamanho = inicio;
+        fim = false;
+        proximaAgendada = false;
+        geracao++;
+        registrarPagina(pagina);
+        LogManager.info("Lista paginada ressincronizada a partir da linha " + inicio
+                + ": " + anterior + " -> " + tamanho + " linhas carregadas");
+
+        beginChange();
+        if (anterior > inicio) {
+            // As linhas removidas não estão mais em memória; a tabela só usa a quantidade
+            nextRemove(inicio, new ArrayList<T>(Collections.nCopies(anterior - inicio, null)));
+        }
+        if (tamanho > inicio) {
+            nextAdd(inicio, tamanho);
+        }
+        endChange();
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    private void anexarPagina(List<T> pagina, Throwable erro, int geracaoCursor) {
+        // Buscada a partir de um cursor descartado por uma ressincronização
+        if (geracaoCursor != geracao) return;
+        proximaAgendada = false;
+        if (erro != null) {
+            LogManager.error("Erro ao carregar página", erro);
+            return;
+        }
+        if (fim) return;
+
+        int inicio = tamanho;
+        registrarPagina(pagina);
+        if (tamanho > inicio) {
+            beginChange();
+            nextAdd(inicio, tamanho);
+            endChange();
+        }
+    }
+
+    private void registrarPagina(List<T> pagina) {
+        if (pagina.size() < tamanhoPagina) {
+            fim = true;
+        }
+        if (pagina.isEmpty()) return;
+
+        paginas.put(cursores.size(), pagina);
+        cursores.add(pagina.get(pagina.size() - 1));
+        tamanho += pagina.size();
+    }
+}
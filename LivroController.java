@@ -4,24 +4,25 @@ import com.biblioteca.dao.CategoriaDAO;
 import com.biblioteca.dao.LivroDAO;
 import com.biblioteca.model.Categoria;
 import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroResumo;
 import com.biblioteca.utils.LogManager;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 
 /**
  * Controller para gestão de livros.
  */
 public class LivroController {
     
-    @FXML private TableView<Livro> tableLivros;
-    @FXML private TableColumn<Livro, Integer> colId;
-    @FXML private TableColumn<Livro, String> colTitulo;
-    @FXML private TableColumn<Livro, String> colAutor;
-    @FXML private TableColumn<Livro, String> colIsbn;
-    @FXML private TableColumn<Livro, String> colCategoria;
-    @FXML private TableColumn<Livro, Integer> colDisponivel;
+    @FXML private TableView<LivroResumo> tableLivros;
+    @FXML private TableColumn<LivroResumo, Integer> colId;
+    @FXML private TableColumn<LivroResumo, String> colTitulo;
+    @FXML private TableColumn<LivroResumo, String> colAutor;
+    @FXML private TableColumn<LivroResumo, String> colIsbn;
+    @FXML private TableColumn<LivroResumo, String> colCategoria;
+    @FXML private TableColumn<LivroResumo, Integer> colDisponivel;
     
     @FXML private TextField txtTitulo;
     @FXML private TextField txtAutor;
@@ -34,30 +35,42 @@ public class LivroController {
     private LivroDAO livroDAO = new LivroDAO();
     private CategoriaDAO categoriaDAO = new CategoriaDAO();
     private Livro livroSelecionado;
+    private CarregadorTela carregador;
     
     @FXML
     public void initialize() {
-        colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colTitulo.setCellValueFactory(new PropertyValueFactory<>("titulo"));
-        colAutor.setCellValueFactory(new PropertyValueFactory<>("autor"));
-        colIsbn.setCellValueFactory(new PropertyValueFactory<>("isbn"));
-        colCategoria.setCellValueFactory(new PropertyValueFactory<>("categoriaNome"));
-        colDisponivel.setCellValueFactory(new PropertyValueFactory<>("quantidadeDisponivel"));
+        carregador = new CarregadorTela(tableLivros);
         
-        cmbCategoria.setItems(FXCollections.observableArrayList(categoriaDAO.listarTodas()));
-        if (!cmbCategoria.getItems().isEmpty()) cmbCategoria.setValue(cmbCategoria.getItems().get(0));
+        colId.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().id()));
+        colTitulo.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().titulo()));
+        colAutor.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().autor()));
+        colIsbn.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().isbn()));
+        colCategoria.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().categoriaNome()));
+        colDisponivel.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().quantidadeDisponivel()));
+        
+        // Categorias e primeira página da tabela são carregadas em paralelo
+        carregador.carregar("categorias", categoriaDAO::listarTodas, categorias -> {
+            cmbCategoria.setItems(FXCollections.observableArrayList(categorias));
+            if (livroSelecionado != null) selecionarCategoria(livroSelecionado.getCategoriaId());
+            else if (!categorias.isEmpty()) cmbCategoria.setValue(categorias.get(0));
+        });
         
         spnQuantidade.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(1, 100, 1));
         
         tableLivros.getSelectionModel().selectedItemProperty().addListener((obs, old, novo) -> {
-            if (novo != null) preencherFormulario(novo);
+            // A tabela traz só a projeção; o formulário de edição usa a entidade completa
+            if (novo != null) {
+                carregador.carregar("selecao", () -> livroDAO.buscarPorId(novo.id()), livro -> {
+                    if (livro != null) preencherFormulario(livro);
+                });
+            }
         });
         
         carregarLivros();
     }
     
     private void carregarLivros() {
-        tableLivros.setItems(FXCollections.observableArrayList(livroDAO.listarTodos()));
+        ListaPaginada.exibir(tableLivros, livroDAO::listarPagina, LivroResumo::id, carregador);
     }
     
     private void preencherFormulario(Livro l) {
@@ -66,8 +79,12 @@ public class LivroController {
         txtAutor.setText(l.getAutor());
         txtIsbn.setText(l.getIsbn());
         spnQuantidade.getValueFactory().setValue(l.getQuantidadeTotal());
+        selecionarCategoria(l.getCategoriaId());
+    }
+    
+    private void selecionarCategoria(int categoriaId) {
         for (Categoria c : cmbCategoria.getItems()) {
-            if (c.getId() == l.getCategoriaId()) { cmbCategoria.setValue(c); break; }
+            if (c.getId() == categoriaId) { cmbCategoria.setValue(c); break; }
         }
     }
     
@@ -110,7 +127,7 @@ public class LivroController {
     private void handleBuscar() {
         String termo = txtBusca.getText().trim();
         if (termo.isEmpty()) carregarLivros();
-        else tableLivros.setItems(FXCollections.observableArrayList(livroDAO.buscarPorTitulo(termo)));
+        else ListaPaginada.exibirBusca(tableLivros, () -> livroDAO.buscar(termo), carregador);
     }
     
     @FXML private void handleLimpar() { limparFormulario(); }
@@ -127,6 +144,7 @@ public class LivroController {
         if (txtTitulo.getText().trim().isEmpty()) { showError("Título é obrigatório."); return false; }
         if (txtAutor.getText().trim().isEmpty()) { showError("Autor é obrigatório."); return false; }
         if (txtIsbn.getText().trim().isEmpty()) { showError("ISBN é obrigatório."); return false; }
+        if (cmbCategoria.getValue() == null) { showError("Categoria é obrigatória."); return false; }
         if (livroSelecionado == null && livroDAO.isbnExiste(txtIsbn.getText())) { showError("ISBN já cadastrado."); return false; }
         return true;
     }
@@ -1,11 +1,15 @@
 package com.biblioteca.dao;
 
 import com.biblioteca.model.Livro;
+import com.biblioteca.model.LivroResumo;
 import com.biblioteca.utils.DatabaseConnection;
+import com.biblioteca.utils.IndiceInvertido;
 import com.biblioteca.utils.LogManager;
+import com.biblioteca.utils.TriePrefixos;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,9 +21,70 @@ import java.util.Map;
  */
 public class LivroDAO {
     
+    private static final int CACHE_CAPACIDADE = 2000;
+    private static final long CACHE_TTL_MS = 5 * 60 * 1000;
+    
+    /** Cache compartilhado por todas as instâncias do DAO */
+    private static final CacheLivros CACHE = new CacheLivros(CACHE_CAPACIDADE, CACHE_TTL_MS);
+    
+    /** Número máximo de resultados de {@link #buscar(String)} */
+    private static final int LIMITE_BUSCA = 200;
+    
+    /** Índice de busca sobre título, autor e ISBN; usado depois de {@link #carregarIndiceBusca()} */
+    private static final IndiceInvertido INDICE = new IndiceInvertido();
+    
+    /** Sugestões por título e ISBN para o seletor de livros, com peso = exemplares disponíveis */
+    private static final TriePrefixos<LivroResumo> SUGESTOES = new TriePrefixos<>();
+    private static volatile boolean indicePronto;
+    
+    /** Verificação de ISBN já cadastrado: filtro de Bloom (1% de falsos positivos) + cache negativo; o filtro é recarregado a cada 10 min de uso */
+    private static final int ISBN_CAPACIDADE = 1_000_000;
+    private static final int ISBN_NEGATIVOS = 10_000;
+    private static final long ISBN_VALIDADE_MS = 10 * 60 * 1000L;
+    private static final VerificadorExistencia ISBNS = new VerificadorExistencia(
+            ISBN_CAPACIDADE, 0.01, ISBN_NEGATIVOS, CACHE_TTL_MS, ISBN_VALIDADE_MS, LivroDAO::sondarIsbn);
+    
+    /** Nomes de categoria vêm do retrato em memória do CategoriaDAO, sem JOIN */
+    private static final CategoriaDAO CATEGORIAS = new CategoriaDAO();
+    
+    /** Projeção das telas de listagem: apenas as colunas exibidas */
+    private static final String SELECT_RESUMO =
+            "SELECT l.id, l.titulo, l.autor, l.isbn, l.categoria_id, l.quantidade_disponivel FROM livros l ";
+    
+    private static final RowMapper.Fabrica<Livro> LIVRO = c -> {
+        int id = c.indice("id"), titulo = c.indice("titulo"), autor = c.indice("autor"), isbn = c.indice("isbn");
+        int categoriaId = c.indice("categoria_id"), total = c.indice("quantidade_total"), disponivel = c.indice("quantidade_disponivel");
+        int criadoEm = c.opcional("criado_em");
+        return rs -> {
+            Livro livro = new Livro();
+            livro.setId(rs.getInt(id));
+            livro.setTitulo(rs.getString(titulo));
+            livro.setAutor(rs.getString(autor));
+            livro.setIsbn(rs.getString(isbn));
+            livro.setCategoriaId(rs.getInt(categoriaId));
+            livro.setQuantidadeTotal(rs.getInt(total));
+            livro.setQuantidadeDisponivel(rs.getInt(disponivel));
+            if (criadoEm > 0) {
+                Timestamp ts = rs.getTimestamp(criadoEm);
+                if (ts != null) livro.setCriadoEm(ts.toLocalDateTime());
+            }
+            return livro;
+        };
+    };
+    
+    private static final RowMapper.Fabrica<LivroResumo> RESUMO = c -> {
+        int id = c.indice("id"), titulo = c.indice("titulo"), autor = c.indice("autor"), isbn = c.indice("isbn");
+        int categoriaId = c.indice("categoria_id"), disponivel = c.indice("quantidade_disponivel");
+        return rs -> {
+            int categoria = rs.getInt(categoriaId);
+            return new LivroResumo(rs.getInt(id), rs.getString(titulo), rs.getString(autor), rs.getString(isbn),
+                    categoria, CATEGORIAS.buscarNome(categoria), rs.getInt(disponivel));
+        };
+    };
+    
     public boolean inserir(Livro livro) {
         String sql = "INSERT INTO livros (titulo, autor, isbn, categoria_id, quantidade_total, quantidade_disponivel) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, livro.getTitulo());
             stmt.setString(2, livro.getAutor());
@@ -32,6 +97,9 @@ public class LivroDAO {
                 try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) livro.setId(generatedKeys.getInt(1));
                 }
+                CACHE.gravado(livro);
+                indexar(livro);
+                EstatisticasDAO.livroInserido();
                 LogManager.info("Livro inserido: " + livro.getTitulo());
                 return true;
             }
@@ -41,7 +109,7 @@ public class LivroDAO {
     
     public boolean atualizar(Livro livro) {
         String sql = "UPDATE livros SET titulo=?, autor=?, isbn=?, categoria_id=?, quantidade_total=?, quantidade_disponivel=? WHERE id=?";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, livro.getTitulo());
             stmt.setString(2, livro.getAutor());
@@ -51,6 +119,8 @@ public class LivroDAO {
             stmt.setInt(6, livro.getQuantidadeDisponivel());
             stmt.setInt(7, livro.getId());
             if (stmt.executeUpdate() > 0) {
+                CACHE.gravado(livro);
+                indexar(livro);
                 LogManager.info("Livro atualizado: " + livro.getTitulo());
                 return true;
             }
@@ -60,10 +130,16 @@ public class LivroDAO {
     
     public boolean deletar(int id) {
         String sql = "DELETE FROM livros WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
+            String isbn = isbnDoLivro(conn, id);
             stmt.setInt(1, id);
             if (stmt.executeUpdate() > 0) {
+                ISBNS.removida(isbn);
+                CACHE.removido(id);
+                INDICE.remover(id);
+                SUGESTOES.remover(id);
+                EstatisticasDAO.livroRemovido();
                 LogManager.info("Livro removido: ID " + id);
                 return true;
             }
@@ -72,24 +148,30 @@ public class LivroDAO {
     }
     
     public Livro buscarPorId(int id) {
-        String sql = "SELECT l.*, c.nome as categoria_nome FROM livros l INNER JOIN categorias c ON l.categoria_id = c.id WHERE l.id = ?";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        Livro emCache = CACHE.buscarPorId(id);
+        if (emCache != null) return comCategoria(emCache);
+        long geracao = CACHE.geracao();
+        String sql = "SELECT * FROM livros WHERE id = ?";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return mapResultSetToLivro(rs);
+                return guardar(RowMapper.mapearPrimeira(rs, sql, LIVRO), geracao);
             }
         } catch (SQLException e) { LogManager.error("Erro ao buscar livro por ID", e); }
         return null;
     }
     
     public Livro buscarPorIsbn(String isbn) {
-        String sql = "SELECT l.*, c.nome as categoria_nome FROM livros l INNER JOIN categorias c ON l.categoria_id = c.id WHERE l.isbn = ?";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        Livro emCache = CACHE.buscarPorIsbn(isbn);
+        if (emCache != null) return comCategoria(emCache);
+        long geracao = CACHE.geracao();
+        String sql = "SELECT * FROM livros WHERE isbn = ?";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, isbn);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) return mapResultSetToLivro(rs);
+                return guardar(RowMapper.mapearPrimeira(rs, sql, LIVRO), geracao);
             }
         } catch (SQLException e) { LogManager.error("Erro ao buscar livro por ISBN", e); }
         return null;
@@ -97,113 +179,271 @@ public class LivroDAO {
     
     public List<Livro> listarTodos() {
         List<Livro> livros = new ArrayList<>();
-        String sql = "SELECT l.*, c.nome as categoria_nome FROM livros l INNER JOIN categorias c ON l.categoria_id = c.id ORDER BY l.titulo";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) livros.add(mapResultSetToLivro(rs));
+        String sql = "SELECT * FROM livros ORDER BY titulo";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper.mapearTodas(rs, sql, LIVRO, l -> livros.add(comCategoria(l)));
         } catch (SQLException e) { LogManager.error("Erro ao listar livros", e); }
         return livros;
     }
     
-    public List<Livro> listarDisponiveis() {
-        List<Livro> livros = new ArrayList<>();
-        String sql = "SELECT l.*, c.nome as categoria_nome FROM livros l INNER JOIN categorias c ON l.categoria_id = c.id WHERE l.quantidade_disponivel > 0 ORDER BY l.titulo";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) livros.add(mapResultSetToLivro(rs));
+    /** Página do catálogo por título (keyset): começa após {@code ultimo}, ou no início se null. */
+    public List<LivroResumo> listarPagina(LivroResumo ultimo, int limite) {
+        List<LivroResumo> livros = new ArrayList<>();
+        String sql = SELECT_RESUMO +
+                     (ultimo == null ? "" : "WHERE l.titulo > ? OR (l.titulo = ? AND l.id > ?) ") +
+                     "ORDER BY l.titulo, l.id LIMIT ?";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (ultimo != null) {
+                stmt.setString(i++, ultimo.titulo());
+                stmt.setString(i++, ultimo.titulo());
+                stmt.setInt(i++, ultimo.id());
+            }
+            stmt.setInt(i, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, sql, RESUMO, livros::add);
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao listar página de livros", e); }
+        return livros;
+    }
+    
+    public List<LivroResumo> listarDisponiveis() {
+        List<LivroResumo> emCache = CACHE.listarDisponiveis();
+        if (emCache != null) return emCache;
+        long geracao = CACHE.geracao();
+        List<LivroResumo> livros = new ArrayList<>();
+        String sql = SELECT_RESUMO + "WHERE l.quantidade_disponivel > 0 ORDER BY l.titulo";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            RowMapper.mapearTodas(rs, sql, RESUMO, livros::add);
+            CACHE.guardarDisponiveis(livros, geracao);
         } catch (SQLException e) { LogManager.error("Erro ao listar livros disponíveis", e); }
         return livros;
     }
     
     public List<Livro> listarPorCategoria(int categoriaId) {
         List<Livro> livros = new ArrayList<>();
-        String sql = "SELECT l.*, c.nome as categoria_nome FROM livros l INNER JOIN categorias c ON l.categoria_id = c.id WHERE l.categoria_id = ? ORDER BY l.titulo";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        String sql = "SELECT * FROM livros WHERE categoria_id = ? ORDER BY titulo";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, categoriaId);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) livros.add(mapResultSetToLivro(rs));
+                RowMapper.mapearTodas(rs, sql, LIVRO, l -> livros.add(comCategoria(l)));
             }
         } catch (SQLException e) { LogManager.error("Erro ao listar livros por categoria", e); }
         return livros;
     }
     
-    public List<Livro> buscarPorTitulo(String titulo) {
-        List<Livro> livros = new ArrayList<>();
-        String sql = "SELECT l.*, c.nome as categoria_nome FROM livros l INNER JOIN categorias c ON l.categoria_id = c.id WHERE l.titulo LIKE ? ORDER BY l.titulo";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+    public List<LivroResumo> buscarPorTitulo(String titulo) {
+        List<LivroResumo> livros = new ArrayList<>();
+        String sql = SELECT_RESUMO + "WHERE l.titulo LIKE ? ORDER BY l.titulo";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, "%" + titulo + "%");
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) livros.add(mapResultSetToLivro(rs));
+                RowMapper.mapearTodas(rs, sql, RESUMO, livros::add);
             }
         } catch (SQLException e) { LogManager.error("Erro ao buscar livros por título", e); }
         return livros;
     }
     
+    /**
+     * Busca no índice invertido por título, autor ou ISBN (sem acentos, por prefixo, ordenado por relevância).
+     * Enquanto o índice não estiver carregado, usa {@link #buscarPorTitulo(String)}.
+     */
+    public List<LivroResumo> buscar(String termo) {
+        if (!indicePronto) return buscarPorTitulo(termo);
+        return buscarPorIds(INDICE.buscar(consultaIsbn(termo), LIMITE_BUSCA));
+    }
+    
+    /** Busca livros pela chave primária, na ordem dos IDs informados (IDs inexistentes são ignorados). */
+    public List<LivroResumo> buscarPorIds(List<Integer> ids) {
+        if (ids.isEmpty()) return Collections.emptyList();
+        String sql = SELECT_RESUMO + "WHERE l.id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        Map<Integer, LivroResumo> encontrados = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) stmt.setInt(i + 1, ids.get(i));
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, sql, RESUMO, r -> encontrados.put(r.id(), r));
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao buscar livros por ID", e); }
+        
+        // Manter a ordem pedida (ex.: relevância do índice)
+        List<LivroResumo> livros = new ArrayList<>(encontrados.size());
+        for (Integer id : ids) {
+            LivroResumo livro = encontrados.get(id);
+            if (livro != null) livros.add(livro);
+        }
+        return livros;
+    }
+    
+    /** Sugestões de livros disponíveis cujo título, autor ou ISBN começa pelo texto digitado (seletor da tela de empréstimos). */
+    public List<LivroResumo> sugerirDisponiveis(String texto, int limite) {
+        if (indicePronto) return SUGESTOES.sugerir(consultaIsbn(texto), limite, r -> r.quantidadeDisponivel() > 0);
+        List<LivroResumo> livros = new ArrayList<>();
+        String sql = SELECT_RESUMO + "WHERE l.quantidade_disponivel > 0 AND (l.titulo LIKE ? OR l.autor LIKE ? OR l.isbn LIKE ?) ORDER BY l.titulo LIMIT ?";
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, texto + "%");
+            stmt.setString(2, texto + "%");
+            stmt.setString(3, texto + "%");
+            stmt.setInt(4, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, sql, RESUMO, livros::add);
+            }
+        } catch (SQLException e) { LogManager.error("Erro ao sugerir livros", e); }
+        return livros;
+    }
+    
+    /** Carrega o índice de busca e as sugestões com todo o acervo, em streaming. Chamado uma vez, em segundo plano, na inicialização. */
+    public void carregarIndiceBusca() {
+        long inicio = System.currentTimeMillis();
+        INDICE.iniciarCarga();
+        ISBNS.iniciarCarga();
+        boolean carregado = false;
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RESUMO, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                // Livros gravados durante a carga já foram indexados com os dados mais recentes, e os removidos não voltam
+                RowMapper.mapearTodas(rs, SELECT_RESUMO, RESUMO, r -> {
+                    ISBNS.carregada(r.isbn());
+                    if (INDICE.indexarSeAusente(r.id(), r.titulo(), r.autor(), isbnCompacto(r.isbn()))) sugerir(r);
+                });
+            }
+            indicePronto = true;
+            carregado = true;
+            LogManager.info("Índice de busca carregado: " + INDICE.tamanho() + " livros em " + (System.currentTimeMillis() - inicio) + " ms");
+        } catch (SQLException e) { LogManager.error("Erro ao carregar índice de busca", e); }
+        finally { INDICE.concluirCarga(); ISBNS.concluirCarga(carregado); }
+    }
+    
+    /** Reconstrói o filtro de ISBNs com todo o acervo, incluindo os cadastrados por outros clientes. */
+    private static void recarregarIsbns() {
+        boolean carregado = false;
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT isbn FROM livros", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) ISBNS.carregada(rs.getString(1));
+            }
+            carregado = true;
+        } catch (SQLException e) { LogManager.error("Erro ao recarregar filtro de ISBNs", e); }
+        finally { ISBNS.concluirCarga(carregado); }
+    }
+    
     public boolean decrementarDisponivel(int livroId) {
         String sql = "UPDATE livros SET quantidade_disponivel = quantidade_disponivel - 1 WHERE id = ? AND quantidade_disponivel > 0";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, livroId);
-            if (stmt.executeUpdate() > 0) return true;
+            if (stmt.executeUpdate() > 0) {
+                estoqueAlterado(livroId, -1);
+                return true;
+            }
         } catch (SQLException e) { LogManager.error("Erro ao decrementar quantidade", e); }
         return false;
     }
     
     public boolean incrementarDisponivel(int livroId) {
         String sql = "UPDATE livros SET quantidade_disponivel = quantidade_disponivel + 1 WHERE id = ? AND quantidade_disponivel < quantidade_total";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, livroId);
-            if (stmt.executeUpdate() > 0) return true;
+            if (stmt.executeUpdate() > 0) {
+                estoqueAlterado(livroId, 1);
+                return true;
+            }
         } catch (SQLException e) { LogManager.error("Erro ao incrementar quantidade", e); }
         return false;
     }
     
-    public List<Map<String, Object>> livrosMaisEmprestados(int limite) {
-        List<Map<String, Object>> resultado = new ArrayList<>();
-        String sql = "SELECT l.titulo, l.autor, COUNT(e.id) as total_emprestimos FROM livros l LEFT JOIN emprestimos e ON l.id = e.livro_id GROUP BY l.id ORDER BY total_emprestimos DESC LIMIT ?";
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, limite);
+    /** Registra no cache uma variação de estoque feita fora do DAO (ex.: pelas procedures de circulação). */
+    public void registrarMovimentacao(int livroId, int delta) { estoqueAlterado(livroId, delta); }
+    
+    public static CacheLivros.Stats getCacheStats() { return CACHE.getStats(); }
+    
+    public static VerificadorExistencia.Stats getIsbnStats() { return ISBNS.getStats(); }
+    
+    /** Verifica se o ISBN já está cadastrado; ISBNs desconhecidos do filtro recente são descartados em memória, sem consulta. */
+    public boolean isbnExiste(String isbn) {
+        if (ISBNS.precisaRecarregar()) {
+            Thread recarga = new Thread(LivroDAO::recarregarIsbns, "RecargaIsbns");
+            recarga.setDaemon(true);
+            recarga.start();
+        }
+        try {
+            return ISBNS.existe(isbn);
+        } catch (SQLException e) { LogManager.error("Erro ao verificar ISBN", e); }
+        return false;
+    }
+    
+    private static String isbnDoLivro(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT isbn FROM livros WHERE id = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) { return rs.next() ? rs.getString(1) : null; }
+        }
+    }
+    
+    private static boolean sondarIsbn(String isbn) throws SQLException {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM livros WHERE isbn = ? LIMIT 1")) {
+            stmt.setString(1, isbn);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    row.put("titulo", rs.getString("titulo"));
-                    row.put("autor", rs.getString("autor"));
-                    row.put("total_emprestimos", rs.getInt("total_emprestimos"));
-                    resultado.add(row);
-                }
+                return rs.next();
             }
-        } catch (SQLException e) { LogManager.error("Erro ao buscar livros mais emprestados", e); }
-        return resultado;
+        }
     }
     
-    public boolean isbnExiste(String isbn) { return buscarPorIsbn(isbn) != null; }
     public int contarTotal() {
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM livros")) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM livros");
+             ResultSet rs = stmt.executeQuery()) {
             if (rs.next()) return rs.getInt(1);
         } catch (SQLException e) { LogManager.error("Erro ao contar livros", e); }
         return 0;
     }
     
-    private Livro mapResultSetToLivro(ResultSet rs) throws SQLException {
-        Livro livro = new Livro();
-        livro.setId(rs.getInt("id"));
-        livro.setTitulo(rs.getString("titulo"));
-        livro.setAutor(rs.getString("autor"));
-        livro.setIsbn(rs.getString("isbn"));
-        livro.setCategoriaId(rs.getInt("categoria_id"));
-        livro.setQuantidadeTotal(rs.getInt("quantidade_total"));
-        livro.setQuantidadeDisponivel(rs.getInt("quantidade_disponivel"));
-        try { livro.setCategoriaNome(rs.getString("categoria_nome")); } catch (SQLException e) {}
-        Timestamp criadoEm = rs.getTimestamp("criado_em");
-        if (criadoEm != null) livro.setCriadoEm(criadoEm.toLocalDateTime());
+    /** Guarda no cache um livro lido do banco, salvo se houve escrita desde a leitura ({@code geracao}). */
+    private static Livro guardar(Livro livro, long geracao) {
+        if (livro != null) CACHE.guardar(livro, geracao);
+        return comCategoria(livro);
+    }
+    
+    private static void indexar(Livro livro) {
+        ISBNS.adicionada(livro.getIsbn());
+        INDICE.indexar(livro.getId(), livro.getTitulo(), livro.getAutor(), isbnCompacto(livro.getIsbn()));
+        sugerir(new LivroResumo(livro.getId(), livro.getTitulo(), livro.getAutor(), livro.getIsbn(), livro.getCategoriaId(),
+                CATEGORIAS.buscarNome(livro.getCategoriaId()), livro.getQuantidadeDisponivel()));
+    }
+    
+    private static void sugerir(LivroResumo r) {
+        SUGESTOES.colocar(r.id(), r, r.quantidadeDisponivel(), r.titulo(), r.autor(), isbnCompacto(r.isbn()));
+    }
+    
+    private static void estoqueAlterado(int livroId, int delta) {
+        CACHE.estoqueAlterado(livroId, delta);
+        SUGESTOES.alterar(livroId, r -> new LivroResumo(r.id(), r.titulo(), r.autor(), r.isbn(), r.categoriaId(), r.categoriaNome(),
+                r.quantidadeDisponivel() + delta), LivroResumo::quantidadeDisponivel);
+    }
+    
+    /** ISBN sem hífens e espaços, indexado como um único termo */
+    private static String isbnCompacto(String isbn) {
+        return isbn == null ? null : isbn.replaceAll("[-\\s]", "");
+    }
+    
+    /** Consultas com cara de ISBN (dígitos, hífens, X) são compactadas como no índice */
+    private static String consultaIsbn(String termo) {
+        return termo.matches("[0-9Xx\\-\\s]+") && termo.matches(".*\\d.*") ? isbnCompacto(termo) : termo;
+    }
+    
+    private static Livro comCategoria(Livro livro) {
+        if (livro != null) livro.setCategoriaNome(CATEGORIAS.buscarNome(livro.getCategoriaId()));
         return livro;
     }
 }
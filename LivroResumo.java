@@ -0,0 +1,32 @@
+package com.biblioteca.model;
+
+/**
+ * Projeção de um livro para telas de listagem e seleção.
+ * 
+ * <p>Contém apenas as colunas exibidas nas tabelas e caixas de seleção;
+ * a entidade completa ({@link Livro}) é carregada somente para edição.</p>
+ * 
+ * @param id Identificador do livro
+ * @param titulo Título
+ * @param autor Autor
+ * @param isbn ISBN
+ * @param categoriaId ID da categoria
+ * @param categoriaNome Nome da categoria
+ * @param quantidadeDisponivel Exemplares disponíveis
+ * 
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public record LivroResumo(int id, String titulo, String autor, String isbn,
+                          int categoriaId, String categoriaNome, int quantidadeDisponivel) {
+    
+    /**
+     * Retorna o texto exibido nas caixas de seleção.
+     * 
+     * @return Título e autor
+     */
+    @Override
+    public String toString() {
+        return titulo + " - " + autor;
+    }
+}
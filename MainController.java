@@ -1,7 +1,8 @@
 package com.biblioteca.controller;
 
 import com.biblioteca.App;
-import com.biblioteca.dao.*;
+import com.biblioteca.model.Estatisticas;
+import com.biblioteca.service.EstatisticasService;
 import com.biblioteca.utils.LogManager;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -23,8 +24,13 @@ public class MainController {
     @FXML private Label lblEmprestimosAtrasados;
     @FXML private Button btnUsuarios;
     
+    private final EstatisticasService estatisticasService = new EstatisticasService();
+    private CarregadorTela carregador;
+    
     @FXML
     public void initialize() {
+        carregador = new CarregadorTela(contentArea);
+        
         if (SessionManager.isLogado()) {
             lblUsuario.setText(SessionManager.getUsuarioLogado().getNome());
             lblTipoUsuario.setText(SessionManager.getUsuarioLogado().getTipo().getDescricao());
@@ -40,14 +46,15 @@ public class MainController {
     }
     
     private void atualizarEstatisticas() {
-        try {
-            lblTotalLivros.setText(String.valueOf(new LivroDAO().contarTotal()));
-            lblTotalUsuarios.setText(String.valueOf(new UsuarioDAO().contarTotal()));
-            lblEmprestimosAtivos.setText(String.valueOf(new EmprestimoDAO().contarAtivos()));
-            lblEmprestimosAtrasados.setText(String.valueOf(new EmprestimoDAO().listarAtrasados().size()));
-        } catch (Exception e) {
-            LogManager.error("Erro ao carregar estatísticas", e);
-        }
+        // Contadores em memória; só a primeira leitura pode ir ao banco, por isso fora da thread do JavaFX
+        carregador.carregar("estatisticas", estatisticasService::getEstatisticas, this::exibirEstatisticas);
+    }
+    
+    private void exibirEstatisticas(Estatisticas estatisticas) {
+        lblTotalLivros.setText(String.valueOf(estatisticas.totalLivros()));
+        lblTotalUsuarios.setText(String.valueOf(estatisticas.totalUsuarios()));
+        lblEmprestimosAtivos.setText(String.valueOf(estatisticas.emprestimosAtivos()));
+        lblEmprestimosAtrasados.setText(String.valueOf(estatisticas.emprestimosAtrasados()));
     }
     
     @FXML private void showDashboard() { atualizarEstatisticas(); loadContent("dashboard.fxml"); }
@@ -0,0 +1,228 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.utils.DatabaseConnection;
+import com.biblioteca.utils.LogManager;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object dos avisos de vencimento e atraso de empréstimos.
+ *
+ * <p>A verificação é incremental: a marca d'água ({@code marcas_processamento})
+ * guarda o dia e o instante da última execução, e cada execução lê apenas os
+ * empréstimos cujo vencimento cruzou um limite desde então (entrou na janela
+ * de aviso ou passou do prazo) ou que foram alterados desde então (novos,
+ * renovados, devolvidos). O último aviso de cada empréstimo fica em
+ * {@code notificacoes_emprestimos}, de modo que um aviso só é emitido quando
+ * o estado do empréstimo muda. O custo de uma execução acompanha o número de
+ * eventos novos, não o total de empréstimos em atraso.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class NotificacaoDAO {
+
+    /** Nome da marca d'água da verificação de empréstimos */
+    private static final String MARCA = "notificacoes_emprestimos";
+
+    /** Dia usado como marca anterior na primeira execução: processa todos os empréstimos em aberto */
+    private static final LocalDate INICIO = LocalDate.of(1970, 1, 1);
+
+    /**
+     * Recuo aplicado ao instante da última execução na leitura dos alterados:
+     * {@code atualizado_em} é gravado quando a linha muda, mas só fica visível
+     * quando a transação confirma, que pode ser depois do instante lido. Reler
+     * um empréstimo é inofensivo, pois o aviso só sai quando o estado muda.
+     */
+    private static final Duration MARGEM_ALTERADOS = Duration.ofMinutes(10);
+
+    /**
+     * Situação de um empréstimo para fins de aviso.
+     */
+    public enum Estado {
+
+        /** Vence dentro da janela de antecedência */
+        VENCENDO,
+
+        /** Vencido e não devolvido */
+        ATRASADO
+    }
+
+    /**
+     * Marca d'água de uma execução.
+     *
+     * @param dia Dia de referência da execução
+     * @param instante Hora do banco no início da execução
+     */
+    public record Marca(LocalDate dia, LocalDateTime instante) { }
+
+    /**
+     * Empréstimo que pode ter mudado de estado desde a última execução.
+     *
+     * @param emprestimoId ID do empréstimo
+     * @param devolvido Se já foi devolvido
+     * @param vencimento Data de devolução prevista
+     * @param usuarioNome Nome do usuário
+     * @param livroTitulo Título do livro
+     * @param notificado Último estado avisado, ou null se não há aviso registrado
+     */
+    public record Candidato(int emprestimoId, boolean devolvido, LocalDate vencimento,
+                            String usuarioNome, String livroTitulo, Estado notificado) {
+
+        /**
+         * Calcula o estado atual do empréstimo.
+         *
+         * @param hoje Dia de referência
+         * @param diasAntecedencia Dias antes do vencimento em que o empréstimo passa a VENCENDO
+         * @return Estado atual, ou null se não requer aviso
+         */
+        public Estado estadoEm(LocalDate hoje, int diasAntecedencia) {
+            if (devolvido) return null;
+            if (vencimento.isBefore(hoje)) return Estado.ATRASADO;
+            if (!vencimento.isAfter(hoje.plusDays(diasAntecedencia))) return Estado.VENCENDO;
+            return null;
+        }
+    }
+
+    /**
+     * Resultado da leitura de uma verificação.
+     *
+     * @param anterior Marca da execução anterior, ou null na primeira execução
+     * @param nova Marca desta execução, a gravar junto com os avisos
+     * @param candidatos Empréstimos a reavaliar
+     */
+    public record Verificacao(Marca anterior, Marca nova, List<Candidato> candidatos) { }
+
+    private static final String SQL_MARCA =
+            "SELECT m.ultimo_dia, m.ultima_execucao, NOW() FROM (SELECT 1) x " +
+            "LEFT JOIN marcas_processamento m ON m.nome = ?";
+
+    /**
+     * Empréstimos em aberto cujo vencimento passou do prazo ({@code [diaAnterior, hoje)})
+     * ou entrou na janela de aviso ({@code (diaAnterior + D, hoje + D]}) desde a última
+     * execução, mais os alterados desde o instante da última execução.
+     */
+    private static final String SQL_CANDIDATOS =
+            "SELECT e.id, e.status, e.data_devolucao_prevista, u.nome, l.titulo, n.estado FROM (" +
+            "SELECT id FROM emprestimos WHERE status != 'DEVOLVIDO' AND (" +
+            "(data_devolucao_prevista >= ? AND data_devolucao_prevista < ?) OR " +
+            "(data_devolucao_prevista > ? AND data_devolucao_prevista <= ?)) " +
+            "UNION " +
+            "SELECT id FROM emprestimos WHERE atualizado_em >= ?" +
+            ") c INNER JOIN emprestimos e ON e.id = c.id " +
+            "INNER JOIN usuarios u ON e.usuario_id = u.id INNER JOIN livros l ON e.livro_id = l.id " +
+            "LEFT JOIN notificacoes_emprestimos n ON n.emprestimo_id = e.id ORDER BY e.data_devolucao_prevista, e.id";
+
+    private static final String SQL_REGISTRAR =
+            "INSERT INTO notificacoes_emprestimos (emprestimo_id, estado) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE estado = VALUES(estado), notificado_em = CURRENT_TIMESTAMP";
+
+    private static final String SQL_REMOVER = "DELETE FROM notificacoes_emprestimos WHERE emprestimo_id = ?";
+
+    private static final String SQL_GRAVAR_MARCA =
+            "INSERT INTO marcas_processamento (nome, ultimo_dia, ultima_execucao) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE ultimo_dia = VALUES(ultimo_dia), ultima_execucao = VALUES(ultima_execucao)";
+
+    /**
+     * Lê a marca d'água e os empréstimos que podem ter mudado de estado desde a última execução.
+     *
+     * @param hoje Dia de referência
+     * @param diasAntecedencia Dias antes do vencimento em que o empréstimo passa a VENCENDO
+     * @return Verificação a avaliar, ou null em caso de erro
+     */
+    public Verificacao verificar(LocalDate hoje, int diasAntecedencia) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection()) {
+            Marca anterior;
+            Marca nova;
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_MARCA)) {
+                stmt.setString(1, MARCA);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    Date dia = rs.getDate(1);
+                    anterior = dia != null ? new Marca(dia.toLocalDate(), rs.getTimestamp(2).toLocalDateTime()) : null;
+                    nova = new Marca(hoje, rs.getTimestamp(3).toLocalDateTime());
+                }
+            }
+
+            // Na primeira execução, os empréstimos em aberto vencidos ou na janela já são todos lidos pela
+            // data prevista; os alterados só importam desde agora, e os já devolvidos não são lidos
+            LocalDate diaAnterior = anterior != null ? anterior.dia() : INICIO;
+            LocalDateTime instanteAnterior = (anterior != null ? anterior.instante() : nova.instante())
+                    .minus(MARGEM_ALTERADOS);
+            List<Candidato> candidatos = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_CANDIDATOS)) {
+                stmt.setDate(1, Date.valueOf(diaAnterior));
+                stmt.setDate(2, Date.valueOf(hoje));
+                stmt.setDate(3, Date.valueOf(diaAnterior.plusDays(diasAntecedencia)));
+                stmt.setDate(4, Date.valueOf(hoje.plusDays(diasAntecedencia)));
+                stmt.setTimestamp(5, Timestamp.valueOf(instanteAnterior));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String notificado = rs.getString(6);
+                        candidatos.add(new Candidato(rs.getInt(1), "DEVOLVIDO".equals(rs.getString(2)),
+                                rs.getDate(3).toLocalDate(), rs.getString(4), rs.getString(5),
+                                notificado != null ? Estado.valueOf(notificado) : null));
+                    }
+                }
+            }
+
+            return new Verificacao(anterior, nova, candidatos);
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao verificar avisos de empréstimos", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Registra os novos estados avisados e avança a marca d'água, na mesma transação.
+     * Se falhar, nada é gravado e a próxima execução reavalia os mesmos empréstimos.
+     *
+     * @param nova Marca desta execução
+     * @param alterados Novo estado de cada empréstimo que mudou; null remove o registro
+     * @return true se gravado
+     */
+    public boolean registrar(Marca nova, Map<Integer, Estado> alterados) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement registrar = conn.prepareStatement(SQL_REGISTRAR);
+                 PreparedStatement remover = conn.prepareStatement(SQL_REMOVER)) {
+                for (Map.Entry<Integer, Estado> alterado : alterados.entrySet()) {
+                    if (alterado.getValue() != null) {
+                        registrar.setInt(1, alterado.getKey());
+                        registrar.setString(2, alterado.getValue().name());
+                        registrar.addBatch();
+                    } else {
+                        remover.setInt(1, alterado.getKey());
+                        remover.addBatch();
+                    }
+                }
+                registrar.executeBatch();
+                remover.executeBatch();
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_GRAVAR_MARCA)) {
+                stmt.setString(1, MARCA);
+                stmt.setDate(2, Date.valueOf(nova.dia()));
+                stmt.setTimestamp(3, Timestamp.valueOf(nova.instante()));
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao registrar avisos de empréstimos", e);
+        }
+
+        return false;
+    }
+}
@@ -1,8 +1,13 @@
 package com.biblioteca.utils;
 
 import com.biblioteca.dao.EmprestimoDAO;
-import com.biblioteca.model.Emprestimo;
+import com.biblioteca.dao.NotificacaoDAO;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Thread para verificação automática de empréstimos próximos do vencimento.
@@ -10,6 +15,14 @@ import java.util.List;
  * <p>Executa periodicamente para identificar e registrar notificações
  * de empréstimos que estão prestes a vencer ou já estão atrasados.</p>
  * 
+ * <p>A verificação é incremental ({@link NotificacaoDAO}): cada execução lê
+ * apenas os empréstimos que cruzaram um limite ou foram alterados desde a
+ * execução anterior, e cada aviso é emitido uma única vez por mudança de
+ * estado, mesmo entre reinícios da aplicação.</p>
+ * 
+ * <p>Na virada do dia a verificação é disparada pela agenda de vencimentos;
+ * a execução periódica reconcilia as alterações feitas fora da aplicação.</p>
+ * 
  * @author Sistema Biblioteca Digital
  * @version 1.0
  */
@@ -24,6 +37,10 @@ public class NotificationThread extends Thread {
     /** Dias de antecedência para notificar */
     private static final int DIAS_ANTECEDENCIA = 2;
     
+    private final NotificacaoDAO notificacaoDAO = new NotificacaoDAO();
+    
+    private final Object verificacao = new Object();
+    
     /**
      * Construtor padrão.
      * Configura a thread como daemon para ser encerrada com a aplicação.
@@ -68,34 +85,20 @@ public class NotificationThread extends Thread {
      * Verifica os empréstimos e gera notificações apropriadas.
      */
     private void verificarEmprestimos() {
+        // Verificação manual e periódica não podem avaliar os mesmos avisos ao mesmo tempo
+        synchronized (verificacao) {
+            executarVerificacao();
+        }
+    }
+    
+    private void executarVerificacao() {
         LogManager.info("Iniciando verificação de empréstimos...");
         
         try {
             EmprestimoDAO emprestimoDAO = new EmprestimoDAO();
             
-            // Verificar empréstimos atrasados
-            List<Emprestimo> atrasados = emprestimoDAO.listarAtrasados();
-            if (!atrasados.isEmpty()) {
-                LogManager.warning("Encontrados " + atrasados.size() + " empréstimos atrasados.");
-                for (Emprestimo emp : atrasados) {
-                    String msg = String.format(
-                        "NOTIFICAÇÃO: Empréstimo ID %d atrasado - Usuário: %s, Livro: %s, Dias de atraso: %d",
-                        emp.getId(), emp.getUsuarioNome(), emp.getLivroTitulo(), emp.getDiasAtraso());
-                    LogManager.warning(msg);
-                }
-            }
-            
-            // Verificar empréstimos próximos do vencimento
-            List<Emprestimo> proximosVencimento = emprestimoDAO.listarProximosVencimento(DIAS_ANTECEDENCIA);
-            if (!proximosVencimento.isEmpty()) {
-                LogManager.info("Encontrados " + proximosVencimento.size() + " empréstimos próximos do vencimento.");
-                for (Emprestimo emp : proximosVencimento) {
-                    String msg = String.format(
-                        "NOTIFICAÇÃO: Empréstimo ID %d vence em %d dias - Usuário: %s, Livro: %s",
-                        emp.getId(), emp.getDiasRestantes(), emp.getUsuarioNome(), emp.getLivroTitulo());
-                    LogManager.info(msg);
-                }
-            }
+            // Avisos: apenas empréstimos que mudaram de estado desde a última verificação
+            emitirAvisos(LocalDate.now());
             
             // Atualizar status de empréstimos atrasados no banco
             int atualizados = emprestimoDAO.atualizarStatusAtrasados();
@@ -110,6 +113,52 @@ public class NotificationThread extends Thread {
         }
     }
     
+    /**
+     * Reavalia os empréstimos que cruzaram um limite ou foram alterados desde a
+     * última verificação e emite os avisos das mudanças de estado. Os avisos só
+     * são emitidos depois de registrados junto com a nova marca d'água; se o
+     * registro falhar, a próxima verificação reavalia os mesmos empréstimos.
+     */
+    private void emitirAvisos(LocalDate hoje) {
+        NotificacaoDAO.Verificacao lida = notificacaoDAO.verificar(hoje, DIAS_ANTECEDENCIA);
+        if (lida == null) {
+            return;
+        }
+        
+        Map<Integer, NotificacaoDAO.Estado> alterados = new HashMap<>();
+        List<NotificacaoDAO.Candidato> avisos = new ArrayList<>();
+        for (NotificacaoDAO.Candidato candidato : lida.candidatos()) {
+            NotificacaoDAO.Estado estado = candidato.estadoEm(hoje, DIAS_ANTECEDENCIA);
+            if (estado != candidato.notificado()) {
+                alterados.put(candidato.emprestimoId(), estado);
+                if (estado != null) {
+                    avisos.add(candidato);
+                }
+            }
+        }
+        if (!notificacaoDAO.registrar(lida.nova(), alterados)) {
+            return;
+        }
+        
+        int atrasados = 0;
+        for (NotificacaoDAO.Candidato emp : avisos) {
+            if (emp.estadoEm(hoje, DIAS_ANTECEDENCIA) == NotificacaoDAO.Estado.ATRASADO) {
+                atrasados++;
+                LogManager.warning(String.format(
+                    "NOTIFICAÇÃO: Empréstimo ID %d atrasado - Usuário: %s, Livro: %s, Dias de atraso: %d",
+                    emp.emprestimoId(), emp.usuarioNome(), emp.livroTitulo(),
+                    ChronoUnit.DAYS.between(emp.vencimento(), hoje)));
+            } else {
+                LogManager.info(String.format(
+                    "NOTIFICAÇÃO: Empréstimo ID %d vence em %d dias - Usuário: %s, Livro: %s",
+                    emp.emprestimoId(), ChronoUnit.DAYS.between(hoje, emp.vencimento()),
+                    emp.usuarioNome(), emp.livroTitulo()));
+            }
+        }
+        LogManager.info(String.format("Avisos: %d empréstimos reavaliados, %d novos atrasos, %d próximos do vencimento.",
+                lida.candidatos().size(), atrasados, avisos.size() - atrasados));
+    }
+    
     /**
      * Força uma verificação imediata dos empréstimos.
      */
@@ -118,6 +167,15 @@ public class NotificationThread extends Thread {
         verificarEmprestimos();
     }
     
+    /**
+     * Verificação disparada pela agenda de vencimentos na virada do dia, logo
+     * após a marcação dos novos atrasados.
+     */
+    public void verificarViradaDoDia() {
+        LogManager.info("Virada do dia: verificando avisos de empréstimos.");
+        verificarEmprestimos();
+    }
+    
     /**
      * Para a execução da thread de forma segura.
      */
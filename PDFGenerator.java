@@ -1,16 +1,32 @@
 package com.biblioteca.utils;
 
 import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.TotaisCirculacao;
 import com.itextpdf.text.*;
+import com.itextpdf.text.io.RandomAccessSourceFactory;
 import com.itextpdf.text.pdf.*;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Classe utilitária para geração de relatórios em PDF.
@@ -20,6 +36,8 @@ import java.util.Map;
  *   <li>Livros mais emprestados</li>
  *   <li>Usuários com mais empréstimos</li>
  *   <li>Empréstimos atrasados</li>
+ *   <li>Circulação por período</li>
+ *   <li>Extrato de empréstimos em aberto de um usuário</li>
  * </ul>
  * 
  * @author Sistema Biblioteca Digital
@@ -42,12 +60,29 @@ public class PDFGenerator {
     private static final BaseColor HEADER_COLOR = new BaseColor(41, 128, 185);
     private static final BaseColor ALTERNATE_ROW_COLOR = new BaseColor(245, 245, 245);
     
+    /** Linhas acumuladas na tabela antes de descarregá-las no documento (relatórios em streaming) */
+    private static final int LINHAS_POR_BLOCO = 500;
+    
+    /** Máximo de threads na geração em paralelo (cada uma usa uma conexão do pool) */
+    private static final int MAX_TRABALHADORES = 8;
+    
+    /** Threads usadas por padrão na geração em paralelo */
+    public static final int TRABALHADORES_PADRAO =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    
     // Fontes
     private static Font TITLE_FONT;
     private static Font SUBTITLE_FONT;
     private static Font HEADER_FONT;
     private static Font CONTENT_FONT;
     private static Font FOOTER_FONT;
+    private static Font DESTAQUE_FONT;
+    
+    /**
+     * Tabela do extrato só com o cabeçalho, montada uma vez: cada extrato parte
+     * de uma cópia, em vez de recriar as células e frases do cabeçalho.
+     */
+    private static PdfPTable MODELO_EXTRATO;
     
     static {
         try {
@@ -56,6 +91,13 @@ public class PDFGenerator {
             HEADER_FONT = new Font(Font.FontFamily.HELVETICA, 10, Font.BOLD, BaseColor.WHITE);
             CONTENT_FONT = new Font(Font.FontFamily.HELVETICA, 9, Font.NORMAL, BaseColor.BLACK);
             FOOTER_FONT = new Font(Font.FontFamily.HELVETICA, 8, Font.ITALIC, BaseColor.GRAY);
+            DESTAQUE_FONT = new Font(Font.FontFamily.HELVETICA, 9, Font.BOLD, BaseColor.RED);
+            
+            MODELO_EXTRATO = new PdfPTable(5);
+            MODELO_EXTRATO.setWidthPercentage(100);
+            MODELO_EXTRATO.setWidths(new float[]{4, 3, 2, 2, 1.5f});
+            MODELO_EXTRATO.setHeaderRows(1);
+            addTableHeader(MODELO_EXTRATO, "Livro", "Autor", "Empréstimo", "Vencimento", "Dias Atraso");
         } catch (Exception e) {
             LogManager.error("Erro ao inicializar fontes PDF", e);
         }
@@ -219,23 +261,7 @@ public class PDFGenerator {
         // Dados
         int i = 0;
         for (Emprestimo emp : emprestimos) {
-            boolean alternate = i % 2 == 0;
-            addTableCell(table, String.valueOf(emp.getId()), alternate);
-            addTableCell(table, emp.getUsuarioNome(), alternate);
-            addTableCell(table, emp.getUsuarioEmail(), alternate);
-            addTableCell(table, emp.getLivroTitulo(), alternate);
-            addTableCell(table, emp.getDataEmprestimo().format(DATE_FORMATTER), alternate);
-            addTableCell(table, emp.getDataDevolucaoPrevista().format(DATE_FORMATTER), alternate);
-            
-            // Dias de atraso em vermelho
-            PdfPCell cell = new PdfPCell(new Phrase(String.valueOf(emp.getDiasAtraso()), 
-                    new Font(Font.FontFamily.HELVETICA, 9, Font.BOLD, BaseColor.RED)));
-            cell.setHorizontalAlignment(Element.ALIGN_CENTER);
-            cell.setPadding(5);
-            if (alternate) {
-                cell.setBackgroundColor(ALTERNATE_ROW_COLOR);
-            }
-            table.addCell(cell);
+            addLinhaAtrasado(table, emp, i % 2 == 0);
             i++;
         }
         
@@ -247,6 +273,482 @@ public class PDFGenerator {
         return filePath;
     }
     
+    /**
+     * Gera relatório de empréstimos atrasados em paralelo.
+     * 
+     * <p>O chamador divide os atrasados em faixas contíguas na ordem do
+     * relatório (ex.: por vencimento e id, cada uma lida em streaming do banco).
+     * Cada faixa é escrita em um PDF temporário por uma thread de um
+     * {@link ForkJoinPool}; as partes são então unidas em ordem com
+     * {@link PdfCopy}, que copia as páginas sem redesenhá-las, e cada página
+     * recebe a numeração contínua do documento. O cabeçalho da tabela se repete
+     * em todas as páginas. Se uma parte falhar ou a geração for cancelada, as
+     * demais param e nenhum arquivo é deixado.</p>
+     * 
+     * @param faixas Faixas do relatório, em ordem; cada uma é escrita por uma thread,
+     *               até {@value #MAX_TRABALHADORES} ao mesmo tempo
+     * @param total Total de atrasados, exibido no resumo
+     * @param observador Recebe cada empréstimo escrito; é chamado pelas várias threads,
+     *                   sem ordem entre as faixas. Pode ser null
+     * @return Caminho do arquivo gerado
+     * @throws DocumentException Se houver erro na criação do PDF
+     * @throws IOException Se houver erro de I/O ou falha na leitura de uma faixa
+     */
+    public static String gerarRelatorioEmprestimosAtrasados(List<FaixaAtrasados> faixas, int total,
+            Consumer<Emprestimo> observador) throws DocumentException, IOException {
+        String fileName = "emprestimos_atrasados_" + 
+                LocalDateTime.now().format(FILE_FORMATTER) + ".pdf";
+        return gerarAtrasadosEmPartes(REPORTS_DIR + File.separator + fileName, faixas, total, observador);
+    }
+    
+    /**
+     * Faixa do relatório de atrasados, fornecida pelo chamador.
+     * 
+     * @param primeiraLinha Número, no relatório inteiro, da primeira linha da faixa
+     *                      (a partir de 0): mantém o sombreamento alternado contínuo
+     *                      entre as partes
+     * @param leitura Leitura das linhas da faixa
+     */
+    public record FaixaAtrasados(long primeiraLinha, Leitura leitura) {
+        
+        /**
+         * Leitura em streaming das linhas de uma faixa.
+         */
+        @FunctionalInterface
+        public interface Leitura {
+            
+            /** @return Número de linhas entregues ao consumidor, ou -1 se a leitura falhar */
+            int percorrer(Consumer<Emprestimo> consumidor);
+        }
+    }
+    
+    /**
+     * Escreve cada faixa em um PDF temporário, em paralelo, e une as partes no arquivo final.
+     */
+    private static String gerarAtrasadosEmPartes(String filePath, List<FaixaAtrasados> faixas, int total,
+            Consumer<Emprestimo> observador) throws DocumentException, IOException {
+        long inicio = System.nanoTime();
+        
+        List<Path> partes = new ArrayList<>();
+        List<Callable<Integer>> trabalhos = new ArrayList<>();
+        AtomicReference<Exception> falha = new AtomicReference<>();
+        for (int i = 0; i < faixas.size(); i++) {
+            // Sufixo .parcial: ignorado pela limpeza do diretório de relatórios
+            Path parte = Paths.get(filePath + ".parte" + i + ".parcial");
+            FaixaAtrasados faixa = faixas.get(i);
+            boolean primeira = i == 0, ultima = i == faixas.size() - 1;
+            partes.add(parte);
+            trabalhos.add(() -> {
+                try {
+                    return escreverParteAtrasados(parte, faixa, primeira, ultima, total, emp -> {
+                        if (falha.get() != null) {
+                            throw new CancellationException("Outra parte do relatório falhou");
+                        }
+                        if (observador != null) {
+                            observador.accept(emp);
+                        }
+                    });
+                } catch (Exception e) {
+                    falha.compareAndSet(null, e);
+                    throw e;
+                }
+            });
+        }
+        
+        int linhas = 0;
+        int paginas;
+        boolean concluido = false;
+        ForkJoinPool pool = new ForkJoinPool(Math.min(faixas.size(), MAX_TRABALHADORES));
+        List<Future<Integer>> resultados = new ArrayList<>();
+        try {
+            for (Callable<Integer> trabalho : trabalhos) {
+                resultados.add(pool.submit(trabalho));
+            }
+            for (Future<Integer> resultado : resultados) {
+                try {
+                    linhas += resultado.get();
+                } catch (ExecutionException e) {
+                    // A parte já registrou a falha; as demais param na próxima linha
+                    falha.compareAndSet(null, e.getCause() instanceof Exception causa ? causa : e);
+                    break;
+                }
+            }
+            if (falha.get() != null) {
+                Exception e = falha.get();
+                if (e instanceof DocumentException de) throw de;
+                if (e instanceof IOException ioe) throw ioe;
+                if (e instanceof RuntimeException re) throw re;
+                throw new IOException("Erro ao gerar parte do relatório", e);
+            }
+            
+            paginas = unirPartes(partes, filePath);
+            concluido = true;
+        } catch (InterruptedException e) {
+            // Tarefa cancelada: as partes são paradas e descartadas no finally
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Geração do relatório cancelada");
+        } finally {
+            if (!concluido) {
+                falha.compareAndSet(null, new CancellationException("Geração do relatório interrompida"));
+                for (Future<Integer> resultado : resultados) {
+                    resultado.cancel(true);
+                }
+            }
+            pool.shutdownNow();
+            // As partes só são apagadas depois que todas as threads fecharam seus arquivos
+            aguardarTermino(pool);
+            for (Path parte : partes) {
+                Files.deleteIfExists(parte);
+            }
+            if (!concluido) {
+                Files.deleteIfExists(Paths.get(filePath));
+            }
+        }
+        
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        LogManager.info(String.format("Relatório gerado: %s (%d linhas, %d páginas, %d partes em %.2f s, %.0f linhas/s)",
+                filePath, linhas, paginas, faixas.size(), segundos, segundos > 0 ? linhas / segundos : 0));
+        return filePath;
+    }
+    
+    /**
+     * Espera as threads do pool terminarem, mesmo que a thread atual seja
+     * interrompida (cancelamento da geração), e restaura a interrupção.
+     */
+    private static void aguardarTermino(ForkJoinPool pool) {
+        boolean interrompida = false;
+        while (true) {
+            try {
+                // Cada parte para na próxima linha lida: a espera é curta
+                if (pool.awaitTermination(1, TimeUnit.SECONDS)) break;
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Escreve uma faixa do relatório de atrasados em um PDF à parte. A primeira
+     * parte leva o título e o resumo; a última, o rodapé. Uma faixa intermediária
+     * vazia não gera arquivo.
+     * 
+     * @return Número de linhas escritas
+     */
+    private static int escreverParteAtrasados(Path arquivo, FaixaAtrasados faixa, boolean primeira, boolean ultima,
+            int total, Consumer<Emprestimo> observador) throws DocumentException, IOException {
+        
+        Document document = new Document(PageSize.A4.rotate());
+        PdfPTable table = novaTabelaAtrasados();
+        int[] contador = {0};
+        boolean concluida = false;
+        
+        try {
+            if (primeira) {
+                abrirParte(document, arquivo);
+                addCabecalhoAtrasados(document, total);
+            }
+            int linhas = faixa.leitura().percorrer(emp -> {
+                try {
+                    if (!document.isOpen()) {
+                        abrirParte(document, arquivo);
+                    }
+                    addLinhaAtrasado(table, emp, (faixa.primeiraLinha() + contador[0]) % 2 == 0);
+                    if (++contador[0] % LINHAS_POR_BLOCO == 0) {
+                        document.add(table);
+                    }
+                } catch (DocumentException | IOException e) {
+                    throw new ExceptionConverter(e);
+                }
+                observador.accept(emp);
+            });
+            if (linhas < 0) {
+                throw new IOException("Falha ao ler empréstimos atrasados do banco de dados");
+            }
+            if (!document.isOpen() && ultima) {
+                abrirParte(document, arquivo);
+            }
+            if (document.isOpen()) {
+                table.setComplete(true);
+                document.add(table);
+                if (ultima) {
+                    addFooter(document);
+                }
+            }
+            concluida = true;
+            return linhas;
+        } catch (ExceptionConverter e) {
+            if (e.getException() instanceof DocumentException de) throw de;
+            if (e.getException() instanceof IOException ioe) throw ioe;
+            throw e;
+        } finally {
+            if (document.isOpen()) {
+                try {
+                    document.close();
+                } catch (ExceptionConverter e) {
+                    // Parte interrompida (ex.: ainda sem páginas): é descartada de qualquer forma
+                    if (concluida) throw e;
+                }
+            }
+        }
+    }
+    
+    private static void abrirParte(Document document, Path arquivo) throws DocumentException, IOException {
+        PdfWriter.getInstance(document, Files.newOutputStream(arquivo));
+        document.open();
+    }
+    
+    /**
+     * Une as partes em ordem no arquivo final, numerando as páginas.
+     * 
+     * @return Número de páginas do documento
+     */
+    private static int unirPartes(List<Path> partes, String filePath) throws DocumentException, IOException {
+        List<PdfReader> leitores = new ArrayList<>();
+        Document document = new Document();
+        try {
+            int paginas = 0;
+            for (Path parte : partes) {
+                if (Files.exists(parte)) {
+                    // Leitura parcial: as páginas são carregadas do disco conforme copiadas
+                    PdfReader leitor = new PdfReader(new RandomAccessFileOrArray(
+                            new RandomAccessSourceFactory().createBestSource(parte.toString())), null);
+                    leitores.add(leitor);
+                    paginas += leitor.getNumberOfPages();
+                }
+            }
+            
+            PdfCopy copy = new PdfCopy(document, new FileOutputStream(filePath));
+            document.open();
+            int pagina = 0;
+            for (PdfReader leitor : leitores) {
+                for (int i = 1; i <= leitor.getNumberOfPages(); i++) {
+                    PdfImportedPage importada = copy.getImportedPage(leitor, i);
+                    Rectangle tamanho = leitor.getPageSizeWithRotation(i);
+                    PdfCopy.PageStamp carimbo = copy.createPageStamp(importada);
+                    ColumnText.showTextAligned(carimbo.getOverContent(), Element.ALIGN_CENTER,
+                            new Phrase(String.format("Página %d de %d", ++pagina, paginas), FOOTER_FONT),
+                            tamanho.getWidth() / 2, 15, 0);
+                    carimbo.alterContents();
+                    copy.addPage(importada);
+                }
+                copy.freeReader(leitor);
+            }
+            return paginas;
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+            for (PdfReader leitor : leitores) {
+                leitor.close();
+            }
+        }
+    }
+    
+    /**
+     * Gera o extrato de empréstimos em aberto de um usuário.
+     * 
+     * <p>Feito para a geração em massa: pode ser chamado por várias threads ao
+     * mesmo tempo (fontes e cabeçalho da tabela são compartilhados), e o arquivo
+     * é escrito com um nome temporário e só recebe o nome final quando completo,
+     * de modo que um extrato existente nunca está pela metade.</p>
+     * 
+     * @param destino Caminho do arquivo
+     * @param emprestimos Empréstimos em aberto do usuário (não vazio), com nome e e-mail do usuário
+     * @param referencia Data de referência para os dias de atraso
+     * @throws DocumentException Se houver erro na criação do PDF
+     * @throws IOException Se houver erro de I/O
+     */
+    public static void gerarExtrato(Path destino, List<Emprestimo> emprestimos, LocalDate referencia) 
+            throws DocumentException, IOException {
+        
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".parcial");
+        Emprestimo primeiro = emprestimos.get(0);
+        
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, Files.newOutputStream(temporario));
+        document.open();
+        
+        boolean concluido = false;
+        try {
+            // Título
+            addTitle(document, "Extrato de Empréstimos");
+            addSubtitle(document, String.format("%s <%s> - Posição em %s", primeiro.getUsuarioNome(),
+                    primeiro.getUsuarioEmail(), referencia.format(DATE_FORMATTER)));
+            
+            // Tabela
+            PdfPTable table = new PdfPTable(MODELO_EXTRATO);
+            long atrasados = 0, diasAtraso = 0;
+            int i = 0;
+            for (Emprestimo emp : emprestimos) {
+                boolean alternate = i++ % 2 == 1;
+                long dias = Math.max(0, ChronoUnit.DAYS.between(emp.getDataDevolucaoPrevista(), referencia));
+                addTableCell(table, emp.getLivroTitulo(), alternate);
+                addTableCell(table, emp.getLivroAutor(), alternate);
+                addTableCell(table, emp.getDataEmprestimo().format(DATE_FORMATTER), alternate);
+                addTableCell(table, emp.getDataDevolucaoPrevista().format(DATE_FORMATTER), alternate);
+                
+                PdfPCell cell = new PdfPCell(new Phrase(String.valueOf(dias), dias > 0 ? DESTAQUE_FONT : CONTENT_FONT));
+                cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                cell.setPadding(5);
+                if (alternate) {
+                    cell.setBackgroundColor(ALTERNATE_ROW_COLOR);
+                }
+                table.addCell(cell);
+                
+                if (dias > 0) {
+                    atrasados++;
+                    diasAtraso += dias;
+                }
+            }
+            document.add(table);
+            
+            // Resumo
+            Paragraph resumo = new Paragraph(String.format(
+                    "Empréstimos em aberto: %d - Em atraso: %d (%d dias de atraso no total)",
+                    emprestimos.size(), atrasados, diasAtraso), SUBTITLE_FONT);
+            resumo.setSpacingBefore(10);
+            document.add(resumo);
+            
+            addFooter(document);
+            concluido = true;
+        } finally {
+            document.close();
+            if (!concluido) {
+                Files.deleteIfExists(temporario);
+            }
+        }
+        
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Gera relatório de circulação (empréstimos, devoluções e atrasos) de um período.
+     * 
+     * @param inicio Primeiro dia do período
+     * @param fim Último dia do período
+     * @param agrupamento Descrição do agrupamento dos períodos (ex.: "Mensal")
+     * @param porPeriodo Totais por mês ou ano
+     * @param porCategoria Totais por categoria de livro
+     * @param porTipoUsuario Totais por tipo de usuário
+     * @return Caminho do arquivo gerado
+     * @throws DocumentException Se houver erro na criação do PDF
+     * @throws IOException Se houver erro de I/O
+     */
+    public static String gerarRelatorioCirculacao(LocalDate inicio, LocalDate fim, String agrupamento,
+            List<TotaisCirculacao> porPeriodo, List<TotaisCirculacao> porCategoria,
+            List<TotaisCirculacao> porTipoUsuario) throws DocumentException, IOException {
+        
+        String fileName = "circulacao_" + 
+                LocalDateTime.now().format(FILE_FORMATTER) + ".pdf";
+        String filePath = REPORTS_DIR + File.separator + fileName;
+        
+        Document document = new Document(PageSize.A4);
+        PdfWriter.getInstance(document, new FileOutputStream(filePath));
+        document.open();
+        
+        // Título
+        addTitle(document, "Relatório de Circulação por Período");
+        addSubtitle(document, String.format("%s a %s (%s) - Gerado em: %s", inicio.format(DATE_FORMATTER),
+                fim.format(DATE_FORMATTER), agrupamento, LocalDateTime.now().format(DATE_FORMATTER)));
+        document.add(Chunk.NEWLINE);
+        
+        // Tabelas
+        addTabelaCirculacao(document, "Período", porPeriodo);
+        addTabelaCirculacao(document, "Categoria", porCategoria);
+        addTabelaCirculacao(document, "Tipo de Usuário", porTipoUsuario);
+        
+        addFooter(document);
+        document.close();
+        
+        LogManager.info("Relatório gerado: " + filePath);
+        return filePath;
+    }
+    
+    /**
+     * Adiciona uma tabela de totais de circulação, com a linha de total geral.
+     */
+    private static void addTabelaCirculacao(Document document, String grupo, List<TotaisCirculacao> totais) 
+            throws DocumentException {
+        PdfPTable table = new PdfPTable(4);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[]{3, 2, 2, 2});
+        table.setHeaderRows(1);
+        table.setSpacingAfter(15);
+        
+        addTableHeader(table, grupo, "Empréstimos", "Devoluções", "Atrasos");
+        
+        long emprestimos = 0, devolucoes = 0, atrasos = 0;
+        int i = 0;
+        for (TotaisCirculacao t : totais) {
+            boolean alternate = i++ % 2 == 1;
+            addTableCell(table, t.grupo(), alternate);
+            addTableCell(table, String.valueOf(t.emprestimos()), alternate);
+            addTableCell(table, String.valueOf(t.devolucoes()), alternate);
+            addTableCell(table, String.valueOf(t.atrasos()), alternate);
+            emprestimos += t.emprestimos();
+            devolucoes += t.devolucoes();
+            atrasos += t.atrasos();
+        }
+        addTableHeader(table, "Total", String.valueOf(emprestimos), String.valueOf(devolucoes), String.valueOf(atrasos));
+        
+        document.add(table);
+    }
+    
+    /**
+     * Adiciona título, data e total ao relatório de empréstimos atrasados.
+     */
+    private static void addCabecalhoAtrasados(Document document, int total) throws DocumentException {
+        // Título
+        addTitle(document, "Relatório de Empréstimos Atrasados");
+        addSubtitle(document, "Gerado em: " + LocalDateTime.now().format(DATE_FORMATTER));
+        
+        // Resumo
+        Paragraph resumo = new Paragraph();
+        resumo.add(new Chunk("Total de empréstimos atrasados: ", SUBTITLE_FONT));
+        resumo.add(new Chunk(String.valueOf(total), 
+                new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.RED)));
+        document.add(resumo);
+        document.add(Chunk.NEWLINE);
+    }
+    
+    /**
+     * Cria a tabela de empréstimos atrasados, incompleta e com o cabeçalho repetido
+     * a cada página: as linhas já escritas são liberadas a cada document.add.
+     */
+    private static PdfPTable novaTabelaAtrasados() throws DocumentException {
+        PdfPTable table = new PdfPTable(7);
+        table.setWidthPercentage(100);
+        table.setWidths(new float[]{1, 3, 3, 3, 2, 2, 1.5f});
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        addTableHeader(table, "ID", "Usuário", "E-mail", "Livro", "Empréstimo", "Vencimento", "Dias Atraso");
+        return table;
+    }
+    
+    /**
+     * Adiciona a linha de um empréstimo atrasado à tabela.
+     */
+    private static void addLinhaAtrasado(PdfPTable table, Emprestimo emp, boolean alternate) {
+        addTableCell(table, String.valueOf(emp.getId()), alternate);
+        addTableCell(table, emp.getUsuarioNome(), alternate);
+        addTableCell(table, emp.getUsuarioEmail(), alternate);
+        addTableCell(table, emp.getLivroTitulo(), alternate);
+        addTableCell(table, emp.getDataEmprestimo().format(DATE_FORMATTER), alternate);
+        addTableCell(table, emp.getDataDevolucaoPrevista().format(DATE_FORMATTER), alternate);
+        
+        // Dias de atraso em vermelho
+        PdfPCell cell = new PdfPCell(new Phrase(String.valueOf(emp.getDiasAtraso()), DESTAQUE_FONT));
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setPadding(5);
+        if (alternate) {
+            cell.setBackgroundColor(ALTERNATE_ROW_COLOR);
+        }
+        table.addCell(cell);
+    }
+    
     /**
      * Adiciona um título ao documento.
      */
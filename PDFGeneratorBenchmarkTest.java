@@ -0,0 +1,111 @@
+package com.biblioteca.utils;
+
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.StatusEmprestimo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Medição da geração em paralelo do relatório de empréstimos atrasados com
+ * 1, 2, 4 e 8 threads, sobre linhas sintéticas (sem banco), para isolar o
+ * custo de escrita e união dos PDFs. Não roda na suíte normal:
+ * {@code mvn test -Dtest=PDFGeneratorBenchmarkTest -Dbenchmark=true}
+ * (opcionalmente {@code -Dbenchmark.linhas=N}).
+ *
+ * <p>O ganho depende dos núcleos disponíveis: com um único núcleo as
+ * threads apenas se revezam e o tempo não cai.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PDFGeneratorBenchmarkTest {
+
+    private static final int[] TRABALHADORES = {1, 2, 4, 8};
+
+    /** Execuções medidas por configuração (a menor é a considerada) */
+    private static final int REPETICOES = 3;
+
+    @Test
+    void relatorioAtrasadosPorNumeroDeThreads() throws Exception {
+        int linhas = Integer.getInteger("benchmark.linhas", 50_000);
+        LocalDate hoje = LocalDate.now();
+
+        // Aquecimento do JIT e das fontes
+        medir(linhas / 10, 2, hoje);
+
+        Map<Integer, Long> tempos = new LinkedHashMap<>();
+        for (int trabalhadores : TRABALHADORES) {
+            long melhor = Long.MAX_VALUE;
+            for (int i = 0; i < REPETICOES; i++) {
+                melhor = Math.min(melhor, medir(linhas, trabalhadores, hoje));
+            }
+            tempos.put(trabalhadores, melhor);
+        }
+
+        long base = tempos.get(1);
+        System.out.printf("Relatório de atrasados, %d linhas, %d núcleos%n", linhas,
+                Runtime.getRuntime().availableProcessors());
+        tempos.forEach((trabalhadores, ms) -> System.out.printf("  %d thread(s): %6d ms  (%.2fx)%n",
+                trabalhadores, ms, (double) base / ms));
+    }
+
+    /**
+     * Gera o relatório uma vez e devolve o tempo em milissegundos.
+     */
+    private static long medir(int linhas, int trabalhadores, LocalDate hoje) throws Exception {
+        List<PDFGenerator.FaixaAtrasados> faixas = new ArrayList<>();
+        for (int i = 0; i < trabalhadores; i++) {
+            int inicio = (int) ((long) linhas * i / trabalhadores);
+            int fim = (int) ((long) linhas * (i + 1) / trabalhadores);
+            faixas.add(new PDFGenerator.FaixaAtrasados(inicio, consumidor -> {
+                for (int id = inicio; id < fim; id++) {
+                    consumidor.accept(emprestimo(id, hoje));
+                }
+                return fim - inicio;
+            }));
+        }
+
+        int[] escritas = {0};
+        long inicio = System.nanoTime();
+        String arquivo = PDFGenerator.gerarRelatorioEmprestimosAtrasados(faixas, linhas, e -> {
+            synchronized (escritas) {
+                escritas[0]++;
+            }
+        });
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+        Path path = Paths.get(arquivo);
+        try {
+            assertEquals(linhas, escritas[0]);
+            assertTrue(Files.size(path) > 0);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+        return ms;
+    }
+
+    private static Emprestimo emprestimo(int id, LocalDate hoje) {
+        Emprestimo emp = new Emprestimo();
+        emp.setId(id + 1);
+        emp.setUsuarioNome("Usuário " + id % 5000);
+        emp.setUsuarioEmail("usuario" + id % 5000 + "@biblioteca.local");
+        emp.setLivroTitulo("Livro " + id % 20000);
+        emp.setDataEmprestimo(hoje.minusDays(30 + id % 60));
+        emp.setDataDevolucaoPrevista(hoje.minusDays(1 + id % 60));
+        emp.setStatus(StatusEmprestimo.ATRASADO);
+        return emp;
+    }
+}
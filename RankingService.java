@@ -0,0 +1,203 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dao.EmprestimoDAO;
+import com.biblioteca.dao.LivroDAO;
+import com.biblioteca.dao.UsuarioDAO;
+import com.biblioteca.model.LivroResumo;
+import com.biblioteca.model.UsuarioResumo;
+import com.biblioteca.utils.LogManager;
+import com.biblioteca.utils.RankingTopK;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Serviço de rankings: livros mais emprestados e usuários com mais empréstimos.
+ *
+ * <p>Os totais de empréstimos por livro e por usuário ficam em memória
+ * ({@link RankingTopK}). São carregados do banco uma vez, somados a cada
+ * empréstimo realizado pelo {@link CirculacaoService} e reconciliados
+ * periodicamente com uma nova contagem, o que corrige empréstimos
+ * registrados fora da aplicação. Um relatório de top N consulta apenas os
+ * dados dos N itens, pela chave primária, sem agregar a tabela de
+ * empréstimos.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class RankingService {
+
+    /** Maior N atendido pelos rankings (limite do relatório) */
+    public static final int MAX_POSICOES = 50;
+
+    /** Intervalo entre reconciliações com o banco, em minutos */
+    private static final long INTERVALO_RECONCILIACAO_MIN = 60;
+
+    private static final RankingTopK LIVROS = new RankingTopK(MAX_POSICOES);
+    private static final RankingTopK USUARIOS = new RankingTopK(MAX_POSICOES);
+
+    /** Se os rankings já foram carregados do banco */
+    private static volatile boolean carregado;
+
+    private static ScheduledExecutorService executor;
+
+    private final LivroDAO livroDAO = new LivroDAO();
+    private final UsuarioDAO usuarioDAO = new UsuarioDAO();
+
+    /**
+     * Inicia a carga e a reconciliação periódica. Chamado na inicialização da aplicação.
+     */
+    public static synchronized void iniciar() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Rankings");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(RankingService::reconciliar, 0, INTERVALO_RECONCILIACAO_MIN, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Encerra a reconciliação periódica.
+     */
+    public static synchronized void parar() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    /**
+     * Registra um empréstimo realizado.
+     *
+     * @param usuarioId ID do usuário
+     * @param livroId ID do livro
+     */
+    public static void registrarEmprestimo(int usuarioId, int livroId) {
+        LIVROS.incrementar(livroId, 1);
+        USUARIOS.incrementar(usuarioId, 1);
+    }
+
+    /**
+     * Recarrega os totais a partir do banco.
+     *
+     * @return true se os dois rankings foram recarregados
+     */
+    public static synchronized boolean reconciliar() {
+        long inicio = System.currentTimeMillis();
+        EmprestimoDAO emprestimoDAO = new EmprestimoDAO();
+        // Empréstimos registrados durante a contagem são reaplicados sobre ela
+        LIVROS.iniciarRecarga();
+        USUARIOS.iniciarRecarga();
+        Map<Integer, Long> porLivro = emprestimoDAO.contarPorLivro();
+        Map<Integer, Long> porUsuario = emprestimoDAO.contarPorUsuario();
+        if (porLivro == null || porUsuario == null) {
+            LIVROS.cancelarRecarga();
+            USUARIOS.cancelarRecarga();
+            return false;
+        }
+
+        LIVROS.recarregar(porLivro);
+        USUARIOS.recarregar(porUsuario);
+        carregado = true;
+        LogManager.info("Rankings reconciliados: " + porLivro.size() + " livros, " + porUsuario.size()
+                + " usuários em " + (System.currentTimeMillis() - inicio) + " ms");
+        return true;
+    }
+
+    /**
+     * Livros mais emprestados.
+     *
+     * @param limite Número de posições (até {@link #MAX_POSICOES})
+     * @return Linhas com {@code titulo}, {@code autor} e {@code total_emprestimos}
+     * @throws IOException Se os totais ou os livros não puderem ser lidos do banco
+     */
+    public List<Map<String, Object>> livrosMaisEmprestados(int limite) throws IOException {
+        return montar(LIVROS, limite, livroDAO::buscarPorIds, LivroResumo::id, (livro, total) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("titulo", livro.titulo());
+            row.put("autor", livro.autor());
+            row.put("total_emprestimos", total);
+            return row;
+        });
+    }
+
+    /**
+     * Usuários com mais empréstimos.
+     *
+     * @param limite Número de posições (até {@link #MAX_POSICOES})
+     * @return Linhas com {@code nome}, {@code email}, {@code tipo} e {@code total_emprestimos}
+     * @throws IOException Se os totais ou os usuários não puderem ser lidos do banco
+     */
+    public List<Map<String, Object>> usuariosMaisEmprestimos(int limite) throws IOException {
+        return montar(USUARIOS, limite, usuarioDAO::buscarPorIds, UsuarioResumo::id, (usuario, total) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("nome", usuario.nome());
+            row.put("email", usuario.email());
+            row.put("tipo", usuario.tipo().name());
+            row.put("total_emprestimos", total);
+            return row;
+        });
+    }
+
+    /** Monta uma linha do relatório a partir do item e do seu total */
+    @FunctionalInterface
+    private interface Linha<T> {
+        Map<String, Object> montar(T item, int total);
+    }
+
+    /**
+     * Busca os dados dos N primeiros do ranking. Itens que não existem mais no
+     * banco são retirados do ranking e a busca é refeita.
+     */
+    private <T> List<Map<String, Object>> montar(RankingTopK ranking, int limite,
+                                                 Function<List<Integer>, List<T>> buscarPorIds,
+                                                 Function<T, Integer> id, Linha<T> linha) throws IOException {
+        if (!carregado && !reconciliar()) {
+            throw new IOException("Falha ao contar empréstimos no banco de dados");
+        }
+        int n = Math.min(limite, MAX_POSICOES);
+
+        while (true) {
+            List<RankingTopK.Posicao> top = ranking.top(n);
+            List<Integer> ids = new ArrayList<>(top.size());
+            for (RankingTopK.Posicao p : top) {
+                ids.add(p.id());
+            }
+
+            Map<Integer, T> itens = new HashMap<>();
+            for (T item : buscarPorIds.apply(ids)) {
+                itens.put(id.apply(item), item);
+            }
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            // Nenhum dos N encontrado: a consulta falhou, não retirar nada
+            if (itens.isEmpty()) {
+                throw new IOException("Falha ao ler os itens do ranking do banco de dados");
+            }
+
+            List<Map<String, Object>> resultado = new ArrayList<>(top.size());
+            boolean removidos = false;
+            for (RankingTopK.Posicao p : top) {
+                T item = itens.get(p.id());
+                if (item != null) {
+                    resultado.add(linha.montar(item, (int) p.total()));
+                } else {
+                    ranking.remover(p.id());
+                    removidos = true;
+                }
+            }
+            if (!removidos) {
+                return resultado;
+            }
+        }
+    }
+}
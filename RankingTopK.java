@@ -0,0 +1,214 @@
+package com.biblioteca.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranking incremental dos K itens com maior total (ex.: livros mais emprestados).
+ *
+ * <p>Mantém o total de cada item e um heap mínimo indexado com os K melhores:
+ * a raiz é o pior dos K, e um mapa guarda a posição de cada item no heap.
+ * Incrementar um item custa O(log K) — ele sobe no ranking ou entra no lugar
+ * da raiz —, e os N primeiros (N ≤ K) são obtidos ordenando apenas o heap.
+ * Decrementos e remoções, raros, reconstroem o heap a partir dos totais.</p>
+ *
+ * <p>Empates são decididos pelo menor ID, para que o ranking seja estável.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class RankingTopK {
+
+    /**
+     * Posição no ranking.
+     *
+     * @param id Identificador do item
+     * @param total Total acumulado
+     */
+    public record Posicao(int id, long total) { }
+
+    private final int capacidade;
+    private final Map<Integer, Long> totais = new HashMap<>();
+
+    /** Heap mínimo de IDs (a raiz é o pior dos K melhores) */
+    private final int[] heap;
+    private int tamanho;
+
+    /** Posição de cada ID no heap */
+    private final Map<Integer, Integer> posicoes = new HashMap<>();
+
+    /** Variações registradas desde {@link #iniciarRecarga()}, ou null fora de uma recarga */
+    private Map<Integer, Long> durante;
+
+    /**
+     * Cria o ranking.
+     *
+     * @param capacidade Número máximo de posições consultáveis (K)
+     */
+    public RankingTopK(int capacidade) {
+        this.capacidade = capacidade;
+        this.heap = new int[capacidade];
+    }
+
+    /**
+     * Soma uma quantidade ao total de um item.
+     *
+     * @param id Identificador do item
+     * @param delta Quantidade (negativa para subtrair)
+     */
+    public synchronized void incrementar(int id, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        totais.merge(id, delta, Long::sum);
+        if (durante != null) {
+            durante.merge(id, delta, Long::sum);
+        }
+        if (delta < 0) {
+            // Um item de fora pode ter passado a ser melhor: refazer a partir dos totais
+            reconstruir();
+            return;
+        }
+
+        Integer posicao = posicoes.get(id);
+        if (posicao != null) {
+            descer(posicao);
+        } else if (tamanho < capacidade) {
+            colocar(tamanho++, id);
+            subir(tamanho - 1);
+        } else if (melhor(id, heap[0])) {
+            posicoes.remove(heap[0]);
+            colocar(0, id);
+            descer(0);
+        }
+    }
+
+    /**
+     * Remove um item do ranking.
+     *
+     * @param id Identificador do item
+     */
+    public synchronized void remover(int id) {
+        if (totais.remove(id) != null && posicoes.containsKey(id)) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Marca o início da leitura dos totais para {@link #recarregar(Map)}: a
+     * partir daqui, as variações são guardadas para serem reaplicadas sobre os
+     * totais lidos.
+     */
+    public synchronized void iniciarRecarga() {
+        durante = new HashMap<>();
+    }
+
+    /**
+     * Descarta uma recarga que não chegou aos novos totais.
+     */
+    public synchronized void cancelarRecarga() {
+        durante = null;
+    }
+
+    /**
+     * Substitui todos os totais (carga inicial ou reconciliação) e reaplica as
+     * variações registradas desde {@link #iniciarRecarga()}, que a leitura
+     * pode não ter visto.
+     *
+     * @param novos Total de cada item
+     */
+    public synchronized void recarregar(Map<Integer, Long> novos) {
+        totais.clear();
+        totais.putAll(novos);
+        if (durante != null) {
+            durante.forEach((id, delta) -> totais.merge(id, delta, Long::sum));
+            durante = null;
+        }
+        reconstruir();
+    }
+
+    /**
+     * @param id Identificador do item
+     * @return Total do item (0 se ausente)
+     */
+    public synchronized long total(int id) {
+        return totais.getOrDefault(id, 0L);
+    }
+
+    /**
+     * Retorna as primeiras posições do ranking.
+     *
+     * @param n Número de posições (no máximo a capacidade)
+     * @return Posições, da melhor para a pior
+     */
+    public synchronized List<Posicao> top(int n) {
+        List<Integer> ids = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            ids.add(heap[i]);
+        }
+        ids.sort((a, b) -> melhor(a, b) ? -1 : melhor(b, a) ? 1 : 0);
+
+        List<Posicao> posicoesTop = new ArrayList<>(Math.min(n, ids.size()));
+        for (int i = 0; i < ids.size() && i < n; i++) {
+            posicoesTop.add(new Posicao(ids.get(i), totais.get(ids.get(i))));
+        }
+        return posicoesTop;
+    }
+
+    private void reconstruir() {
+        tamanho = 0;
+        posicoes.clear();
+        for (Integer id : totais.keySet()) {
+            if (tamanho < capacidade) {
+                colocar(tamanho++, id);
+                subir(tamanho - 1);
+            } else if (melhor(id, heap[0])) {
+                posicoes.remove(heap[0]);
+                colocar(0, id);
+                descer(0);
+            }
+        }
+    }
+
+    /** @return true se {@code a} fica à frente de {@code b} no ranking */
+    private boolean melhor(int a, int b) {
+        long ta = totais.getOrDefault(a, 0L);
+        long tb = totais.getOrDefault(b, 0L);
+        return ta != tb ? ta > tb : a < b;
+    }
+
+    private void subir(int i) {
+        while (i > 0) {
+            int pai = (i - 1) / 2;
+            if (!melhor(heap[pai], heap[i])) break;
+            trocar(i, pai);
+            i = pai;
+        }
+    }
+
+    private void descer(int i) {
+        while (true) {
+            int esquerdo = 2 * i + 1;
+            int direito = esquerdo + 1;
+            int pior = i;
+            if (esquerdo < tamanho && melhor(heap[pior], heap[esquerdo])) pior = esquerdo;
+            if (direito < tamanho && melhor(heap[pior], heap[direito])) pior = direito;
+            if (pior == i) return;
+            trocar(i, pior);
+            i = pior;
+        }
+    }
+
+    private void trocar(int i, int j) {
+        int id = heap[i];
+        colocar(i, heap[j]);
+        colocar(j, id);
+    }
+
+    private void colocar(int i, int id) {
+        heap[i] = id;
+        posicoes.put(id, i);
+    }
+}
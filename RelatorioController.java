@@ -2,12 +2,31 @@ package com.biblioteca.controller;
 
 import com.biblioteca.dao.*;
 import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.TipoUsuario;
+import com.biblioteca.model.TotaisCirculacao;
+import com.biblioteca.service.CacheRelatorios;
+import com.biblioteca.service.ExtratosService;
+import com.biblioteca.service.FilaRelatorios;
+import com.biblioteca.service.RankingService;
+import com.biblioteca.utils.ExportadorDados;
 import com.biblioteca.utils.LogManager;
 import com.biblioteca.utils.PDFGenerator;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.util.Duration;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 /**
  * Controller para geração de relatórios.
@@ -17,72 +36,452 @@ public class RelatorioController {
     @FXML private Spinner<Integer> spnLimite;
     @FXML private Label lblMensagem;
     @FXML private TextArea txtPreview;
+    @FXML private ComboBox<Saida> cmbSaida;
+    @FXML private CheckBox chkGzip;
+    @FXML private CheckBox chkRefazerExtratos;
+    @FXML private DatePicker dpInicio;
+    @FXML private DatePicker dpFim;
+    @FXML private ComboBox<EmprestimosDiariosDAO.Agrupamento> cmbAgrupamento;
+    
+    @FXML private TableView<FilaRelatorios.Tarefa<?>> tableTarefas;
+    @FXML private TableColumn<FilaRelatorios.Tarefa<?>, String> colTarefaNome;
+    @FXML private TableColumn<FilaRelatorios.Tarefa<?>, FilaRelatorios.Estado> colTarefaEstado;
+    @FXML private TableColumn<FilaRelatorios.Tarefa<?>, String> colTarefaFase;
+    @FXML private TableColumn<FilaRelatorios.Tarefa<?>, Long> colTarefaLinhas;
+    @FXML private TableColumn<FilaRelatorios.Tarefa<?>, String> colTarefaDuracao;
+    
+    /** Número máximo de linhas exibidas na prévia de relatórios grandes */
+    private static final int LIMITE_PREVIEW = 200;
+    
+    /** Intervalo de atualização do andamento das tarefas */
+    private static final Duration INTERVALO_ANDAMENTO = Duration.millis(500);
     
-    private LivroDAO livroDAO = new LivroDAO();
     private EmprestimoDAO emprestimoDAO = new EmprestimoDAO();
+    private EmprestimosDiariosDAO emprestimosDiariosDAO = new EmprestimosDiariosDAO();
+    private ExportacaoDAO exportacaoDAO = new ExportacaoDAO();
+    private RankingService rankingService = new RankingService();
+    private Timeline andamento;
+    
+    /** Resultado de um relatório gerado em segundo plano; só PDFs são abertos ao terminar */
+    private record Relatorio(String preview, String path) { }
+    
+    /** Identificação de um relatório no cache: tipo, parâmetros, extensão, tabelas de origem e período (se houver) */
+    private record Chave(String tipo, String parametros, String extensao, Set<VersaoDadosDAO.Fonte> fontes,
+            VersaoDadosDAO.Periodo periodo) {
+        
+        Chave comPeriodo(LocalDate inicio, LocalDate fim) {
+            return new Chave(tipo, parametros, extensao, fontes, new VersaoDadosDAO.Periodo(inicio, fim));
+        }
+    }
+    
+    /** Formato de saída dos relatórios: PDF ou exportação de dados */
+    private enum Saida {
+        PDF("PDF", null),
+        CSV("CSV", ExportadorDados.Formato.CSV),
+        JSONL("JSON Lines", ExportadorDados.Formato.JSONL);
+        
+        private final String descricao;
+        private final ExportadorDados.Formato formato;
+        
+        Saida(String descricao, ExportadorDados.Formato formato) {
+            this.descricao = descricao;
+            this.formato = formato;
+        }
+        
+        @Override
+        public String toString() { return descricao; }
+    }
+    
+    /** Escrita das linhas de uma exportação */
+    @FunctionalInterface
+    private interface Escrita {
+        void escrever(ExportadorDados exportador) throws Exception;
+    }
     
     @FXML
     public void initialize() {
-        spnLimite.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(5, 50, 10));
+        spnLimite.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(5, RankingService.MAX_POSICOES, 10));
+        cmbSaida.getItems().setAll(Saida.values());
+        cmbSaida.setValue(Saida.PDF);
+        chkGzip.disableProperty().bind(cmbSaida.valueProperty().isEqualTo(Saida.PDF));
+        
+        LocalDate hoje = LocalDate.now();
+        dpInicio.setValue(hoje.withDayOfYear(1));
+        dpFim.setValue(hoje);
+        cmbAgrupamento.getItems().setAll(EmprestimosDiariosDAO.Agrupamento.values());
+        cmbAgrupamento.setValue(EmprestimosDiariosDAO.Agrupamento.MENSAL);
+        
+        colTarefaNome.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getNome()));
+        colTarefaEstado.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getEstado()));
+        colTarefaFase.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(
+                c.getValue().getErro() != null ? c.getValue().getErro() : c.getValue().getFase()));
+        colTarefaLinhas.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().getLinhas()));
+        colTarefaDuracao.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(
+                String.format("%.1f s", c.getValue().getDuracaoMs() / 1000.0)));
+        
+        // As tarefas continuam ao sair da tela; só a atualização da tabela para
+        andamento = new Timeline(new KeyFrame(INTERVALO_ANDAMENTO, e -> atualizarTarefas()));
+        andamento.setCycleCount(Timeline.INDEFINITE);
+        andamento.play();
+        tableTarefas.sceneProperty().addListener((obs, antiga, nova) -> {
+            if (antiga != null && nova == null) andamento.stop();
+        });
+        atualizarTarefas();
     }
     
     @FXML
     private void handleLivrosMaisEmprestados() {
-        try {
-            List<Map<String, Object>> dados = livroDAO.livrosMaisEmprestados(spnLimite.getValue());
+        int limite = spnLimite.getValue();
+        Saida saida = cmbSaida.getValue();
+        boolean gzip = chkGzip.isSelected();
+        Chave chave = chave("livros_mais_emprestados", saida, gzip,
+                Set.of(VersaoDadosDAO.Fonte.EMPRESTIMOS, VersaoDadosDAO.Fonte.LIVROS), limite);
+        gerar("Livros mais emprestados", false, chave, progresso -> {
+            progresso.fase("Consultando");
+            List<Map<String, Object>> dados = rankingService.livrosMaisEmprestados(limite);
+            progresso.linhas(dados.size());
             StringBuilder preview = new StringBuilder("=== LIVROS MAIS EMPRESTADOS ===\n\n");
             int i = 1;
             for (Map<String, Object> row : dados) {
                 preview.append(String.format("%d. %s - %s (%d empréstimos)\n",
                         i++, row.get("titulo"), row.get("autor"), row.get("total_emprestimos")));
             }
-            txtPreview.setText(preview.toString());
-            
-            String path = PDFGenerator.gerarRelatorioLivrosMaisEmprestados(dados);
-            showSuccess("Relatório gerado: " + path);
-            PDFGenerator.openPDF(path);
-            LogManager.logUserAction(SessionManager.getUsuarioLogado().getId(), "RELATORIO", "Livros mais emprestados");
-        } catch (Exception e) { showError("Erro ao gerar relatório."); LogManager.error("Erro relatório", e); }
+            if (saida != Saida.PDF) {
+                return exportar("livros_mais_emprestados", preview.toString(), saida, gzip, progresso, e -> {
+                    e.cabecalho("posicao", "titulo", "autor", "total_emprestimos");
+                    int posicao = 1;
+                    for (Map<String, Object> row : dados) {
+                        e.linha(posicao++, row.get("titulo"), row.get("autor"), row.get("total_emprestimos"));
+                    }
+                });
+            }
+            progresso.fase("Gerando PDF");
+            return new Relatorio(preview.toString(), PDFGenerator.gerarRelatorioLivrosMaisEmprestados(dados));
+        });
     }
     
     @FXML
     private void handleUsuariosMaisEmprestimos() {
-        try {
-            List<Map<String, Object>> dados = emprestimoDAO.usuariosMaisEmprestimos(spnLimite.getValue());
+        int limite = spnLimite.getValue();
+        Saida saida = cmbSaida.getValue();
+        boolean gzip = chkGzip.isSelected();
+        Chave chave = chave("usuarios_mais_emprestimos", saida, gzip,
+                Set.of(VersaoDadosDAO.Fonte.EMPRESTIMOS, VersaoDadosDAO.Fonte.USUARIOS), limite);
+        gerar("Usuários mais empréstimos", false, chave, progresso -> {
+            progresso.fase("Consultando");
+            List<Map<String, Object>> dados = rankingService.usuariosMaisEmprestimos(limite);
+            progresso.linhas(dados.size());
             StringBuilder preview = new StringBuilder("=== USUÁRIOS COM MAIS EMPRÉSTIMOS ===\n\n");
             int i = 1;
             for (Map<String, Object> row : dados) {
                 preview.append(String.format("%d. %s (%s) - %d empréstimos\n",
                         i++, row.get("nome"), row.get("tipo"), row.get("total_emprestimos")));
             }
-            txtPreview.setText(preview.toString());
-            
-            String path = PDFGenerator.gerarRelatorioUsuariosMaisEmprestimos(dados);
-            showSuccess("Relatório gerado: " + path);
-            PDFGenerator.openPDF(path);
-            LogManager.logUserAction(SessionManager.getUsuarioLogado().getId(), "RELATORIO", "Usuários mais empréstimos");
-        } catch (Exception e) { showError("Erro ao gerar relatório."); LogManager.error("Erro relatório", e); }
+            if (saida != Saida.PDF) {
+                return exportar("usuarios_mais_emprestimos", preview.toString(), saida, gzip, progresso, e -> {
+                    e.cabecalho("posicao", "nome", "email", "tipo", "total_emprestimos");
+                    int posicao = 1;
+                    for (Map<String, Object> row : dados) {
+                        e.linha(posicao++, row.get("nome"), row.get("email"), row.get("tipo"), row.get("total_emprestimos"));
+                    }
+                });
+            }
+            progresso.fase("Gerando PDF");
+            return new Relatorio(preview.toString(), PDFGenerator.gerarRelatorioUsuariosMaisEmprestimos(dados));
+        });
     }
     
     @FXML
     private void handleEmprestimosAtrasados() {
-        try {
-            List<Emprestimo> dados = emprestimoDAO.listarAtrasados();
+        Saida saida = cmbSaida.getValue();
+        boolean gzip = chkGzip.isSelected();
+        
+        // Os dias de atraso dependem da data atual
+        Chave chave = chave("emprestimos_atrasados", saida, gzip, Set.of(VersaoDadosDAO.Fonte.EMPRESTIMOS,
+                VersaoDadosDAO.Fonte.USUARIOS, VersaoDadosDAO.Fonte.LIVROS), LocalDate.now());
+        
+        // Percorre todos os atrasados: relatório pesado
+        gerar("Empréstimos atrasados", true, chave, progresso -> {
+            if (saida != Saida.PDF) {
+                return exportar("emprestimos_atrasados", "=== EMPRÉSTIMOS ATRASADOS ===\n", saida, gzip, progresso, e -> {
+                    if (exportacaoDAO.exportarAtrasados(e, progresso::linhas) < 0) {
+                        throw new IOException("Falha ao ler empréstimos atrasados do banco de dados");
+                    }
+                });
+            }
+            
+            // O PDF é gerado em paralelo, por faixas; a prévia mostra apenas as primeiras linhas
+            // na ordem do relatório (as faixas chegam intercaladas): mantém-se as menores em um heap
+            Comparator<Emprestimo> ordem = Comparator.comparing(Emprestimo::getDataDevolucaoPrevista)
+                    .thenComparingInt(Emprestimo::getId);
+            PriorityQueue<Emprestimo> primeiros = new PriorityQueue<>(ordem.reversed());
+            int[] total = {0};
+            progresso.fase("Gerando PDF");
+            String path = PDFGenerator.gerarRelatorioEmprestimosAtrasados(
+                    faixasAtrasados(PDFGenerator.TRABALHADORES_PADRAO), emprestimoDAO.contarAtrasados(), e -> {
+                progresso.linhas(1);
+                synchronized (primeiros) {
+                    total[0]++;
+                    if (primeiros.size() < LIMITE_PREVIEW) {
+                        primeiros.add(e);
+                    } else if (ordem.compare(e, primeiros.peek()) < 0) {
+                        primeiros.poll();
+                        primeiros.add(e);
+                    }
+                }
+            });
+            
             StringBuilder preview = new StringBuilder("=== EMPRÉSTIMOS ATRASADOS ===\n\n");
-            preview.append("Total: ").append(dados.size()).append(" empréstimos\n\n");
-            for (Emprestimo e : dados) {
+            preview.append("Total: ").append(total[0]).append(" empréstimos\n\n");
+            List<Emprestimo> linhas = new ArrayList<>(primeiros);
+            linhas.sort(ordem);
+            for (Emprestimo e : linhas) {
                 preview.append(String.format("- %s: %s (%d dias de atraso)\n",
                         e.getUsuarioNome(), e.getLivroTitulo(), e.getDiasAtraso()));
             }
-            txtPreview.setText(preview.toString());
+            if (total[0] > LIMITE_PREVIEW) {
+                preview.append(String.format("... e mais %d (veja o PDF)\n", total[0] - LIMITE_PREVIEW));
+            }
+            return new Relatorio(preview.toString(), path);
+        });
+    }
+    
+    /**
+     * Divide os atrasados em faixas com o mesmo número de linhas, lidas em streaming pelo DAO.
+     */
+    private List<PDFGenerator.FaixaAtrasados> faixasAtrasados(int partes) throws IOException {
+        // Mesma data em todas as faixas, mesmo que a geração atravesse a meia-noite
+        LocalDate hoje = LocalDate.now();
+        List<EmprestimoDAO.Posicao> limites = emprestimoDAO.limitesAtrasados(hoje, partes);
+        if (limites == null) {
+            throw new IOException("Falha ao ler empréstimos atrasados do banco de dados");
+        }
+        List<PDFGenerator.FaixaAtrasados> faixas = new ArrayList<>();
+        for (int i = 0; i <= limites.size(); i++) {
+            EmprestimoDAO.Posicao desde = i == 0 ? null : limites.get(i - 1);
+            EmprestimoDAO.Posicao ate = i == limites.size() ? null : limites.get(i);
+            faixas.add(new PDFGenerator.FaixaAtrasados(desde == null ? 0 : desde.linha(),
+                    consumidor -> emprestimoDAO.percorrerAtrasados(hoje, desde, ate, consumidor)));
+        }
+        return faixas;
+    }
+    
+    @FXML
+    private void handleCirculacaoPeriodo() {
+        LocalDate inicio = dpInicio.getValue(), fim = dpFim.getValue();
+        EmprestimosDiariosDAO.Agrupamento agrupamento = cmbAgrupamento.getValue();
+        if (inicio == null || fim == null || agrupamento == null) { showError("Informe o período e o agrupamento."); return; }
+        if (fim.isBefore(inicio)) { showError("A data final deve ser posterior à inicial."); return; }
+        Saida saida = cmbSaida.getValue();
+        boolean gzip = chkGzip.isSelected();
+        
+        Chave chave = chave("circulacao", saida, gzip,
+                Set.of(VersaoDadosDAO.Fonte.CONSOLIDACAO, VersaoDadosDAO.Fonte.CATEGORIAS), inicio, fim, agrupamento.name())
+                .comPeriodo(inicio, fim);
+        gerar("Circulação por período", false, chave, progresso -> {
+            // Lê apenas a consolidação diária: algumas dezenas de linhas por dia, agregadas no banco
+            progresso.fase("Consultando");
+            List<TotaisCirculacao> porPeriodo = emprestimosDiariosDAO.totaisPorPeriodo(inicio, fim, agrupamento);
+            List<TotaisCirculacao> porCategoria = emprestimosDiariosDAO.totaisPorCategoria(inicio, fim);
+            List<TotaisCirculacao> porTipo = emprestimosDiariosDAO.totaisPorTipoUsuario(inicio, fim);
+            progresso.linhas(porPeriodo.size() + porCategoria.size() + porTipo.size());
             
-            String path = PDFGenerator.gerarRelatorioEmprestimosAtrasados(dados);
-            showSuccess("Relatório gerado: " + path);
-            PDFGenerator.openPDF(path);
-            LogManager.logUserAction(SessionManager.getUsuarioLogado().getId(), "RELATORIO", "Empréstimos atrasados");
-        } catch (Exception e) { showError("Erro ao gerar relatório."); LogManager.error("Erro relatório", e); }
+            StringBuilder preview = new StringBuilder("=== CIRCULAÇÃO POR PERÍODO ===\n\n");
+            preview.append(String.format("%s a %s (%s)\n", inicio, fim, agrupamento));
+            appendTotais(preview, "Período", porPeriodo);
+            appendTotais(preview, "Categoria", porCategoria);
+            appendTotais(preview, "Tipo de usuário", porTipo);
+            if (saida != Saida.PDF) {
+                return exportar("circulacao", preview.toString(), saida, gzip, progresso, e -> {
+                    e.cabecalho("agrupamento", "grupo", "emprestimos", "devolucoes", "atrasos");
+                    exportarTotais(e, agrupamento == EmprestimosDiariosDAO.Agrupamento.MENSAL ? "mes" : "ano", porPeriodo);
+                    exportarTotais(e, "categoria", porCategoria);
+                    exportarTotais(e, "tipo_usuario", porTipo);
+                });
+            }
+            progresso.fase("Gerando PDF");
+            return new Relatorio(preview.toString(), PDFGenerator.gerarRelatorioCirculacao(
+                    inicio, fim, agrupamento.toString(), porPeriodo, porCategoria, porTipo));
+        });
+    }
+    
+    private static void exportarTotais(ExportadorDados exportador, String agrupamento, List<TotaisCirculacao> totais) 
+            throws IOException {
+        for (TotaisCirculacao t : totais) {
+            exportador.linha(agrupamento, t.grupo(), t.emprestimos(), t.devolucoes(), t.atrasos());
+        }
+    }
+    
+    @FXML private void handleExportarLivros() { exportarTabela(ExportacaoDAO.Tabela.LIVROS); }
+    @FXML private void handleExportarUsuarios() { exportarTabela(ExportacaoDAO.Tabela.USUARIOS); }
+    @FXML private void handleExportarEmprestimos() { exportarTabela(ExportacaoDAO.Tabela.EMPRESTIMOS); }
+    
+    /**
+     * Exporta uma tabela inteira em streaming (relatório pesado).
+     */
+    private void exportarTabela(ExportacaoDAO.Tabela tabela) {
+        Saida saida = cmbSaida.getValue();
+        if (saida == Saida.PDF) { showError("Escolha CSV ou JSON Lines para exportar tabelas."); return; }
+        boolean gzip = chkGzip.isSelected();
+        
+        // A exportação de livros inclui o nome da categoria
+        Set<VersaoDadosDAO.Fonte> fontes = switch (tabela) {
+            case LIVROS -> Set.of(VersaoDadosDAO.Fonte.LIVROS, VersaoDadosDAO.Fonte.CATEGORIAS);
+            case USUARIOS -> Set.of(VersaoDadosDAO.Fonte.USUARIOS);
+            case EMPRESTIMOS -> Set.of(VersaoDadosDAO.Fonte.EMPRESTIMOS);
+        };
+        String titulo = "=== EXPORTAÇÃO: " + tabela.getNome().toUpperCase() + " ===\n";
+        gerar("Exportação de " + tabela.getNome(), true, chave(tabela.getNome(), saida, gzip, fontes), progresso ->
+            exportar(tabela.getNome(), titulo, saida, gzip, progresso, e -> {
+                if (exportacaoDAO.exportar(tabela, e, progresso::linhas) < 0) {
+                    throw new IOException("Falha ao ler " + tabela.getNome() + " do banco de dados");
+                }
+            }));
+    }
+    
+    /**
+     * Gera os extratos de empréstimos em aberto de todos os alunos (relatório pesado, fora do cache).
+     * Uma geração interrompida é retomada de onde parou ao clicar de novo; uma concluída em outro
+     * dia, ou com "Gerar novamente" marcado, é refeita com a data de hoje.
+     */
+    @FXML
+    private void handleExtratosSemestre() {
+        String semestre = ExtratosService.semestreAtual();
+        String nome = "Extratos dos alunos " + semestre;
+        int usuarioId = SessionManager.getUsuarioLogado().getId();
+        boolean refazer = chkRefazerExtratos.isSelected();
+        FilaRelatorios.Tarefa<ExtratosService.Resultado> tarefa = FilaRelatorios.submeter(nome, true, progresso -> {
+            ExtratosService.Resultado resultado = ExtratosService.gerar(semestre, TipoUsuario.ALUNO, refazer, progresso);
+            LogManager.logUserAction(usuarioId, "RELATORIO", nome);
+            return resultado;
+        });
+        if (tarefa == null) { showError("Muitos relatórios em andamento. Aguarde a conclusão de algum."); return; }
+        
+        showInfo("Relatório na fila: " + nome);
+        atualizarTarefas();
+        tarefa.getResultado().whenCompleteAsync((resultado, erro) -> {
+            if (erro == null && resultado.existentes()) {
+                txtPreview.setText(String.format("=== EXTRATOS DOS ALUNOS %s ===\n\nExtratos já gerados hoje (%s).\n" +
+                        "Marque \"Gerar novamente\" para refazê-los.\nDiretório: %s\n", semestre,
+                        resultado.referencia(), resultado.diretorio()));
+                showInfo("Extratos já gerados hoje em: " + resultado.diretorio());
+            } else if (erro == null) {
+                chkRefazerExtratos.setSelected(false);
+                txtPreview.setText(String.format("=== EXTRATOS DOS ALUNOS %s ===\n\n%d extratos gerados%s\n" +
+                        "Atrasos calculados em: %s\nDiretório: %s\n", semestre, resultado.extratos(),
+                        resultado.aposUsuarioId() > 0 ? " (retomado após o usuário " + resultado.aposUsuarioId() + ")" : "",
+                        resultado.referencia(), resultado.diretorio()));
+                showSuccess("Extratos gerados em: " + resultado.diretorio());
+            } else if (erro instanceof CancellationException) {
+                showInfo("Extratos interrompidos; gere novamente para continuar de onde parou.");
+            } else {
+                showError("Erro ao gerar extratos; gere novamente para continuar de onde parou.");
+            }
+        }, Platform::runLater);
+    }
+    
+    /**
+     * Escreve uma exportação de dados no diretório de relatórios.
+     * 
+     * @param arquivo Prefixo do nome do arquivo
+     * @param preview Prévia exibida ao terminar (recebe o número de linhas exportadas)
+     */
+    private static Relatorio exportar(String arquivo, String preview, Saida saida, boolean gzip,
+            FilaRelatorios.Progresso progresso, Escrita escrita) throws Exception {
+        progresso.fase("Exportando " + saida);
+        try (ExportadorDados exportador = ExportadorDados.criar(arquivo, saida.formato, gzip)) {
+            escrita.escrever(exportador);
+            String path = exportador.concluir();
+            return new Relatorio(preview + String.format("\n%d linhas exportadas (%s%s)\n",
+                    exportador.getLinhas(), saida, gzip ? ", gzip" : ""), path);
+        }
+    }
+    
+    /**
+     * Monta a chave de cache de um relatório; formato e compactação fazem parte dos parâmetros.
+     */
+    private static Chave chave(String tipo, Saida saida, boolean gzip, Set<VersaoDadosDAO.Fonte> fontes,
+            Object... parametros) {
+        StringBuilder texto = new StringBuilder(saida.name()).append(gzip && saida != Saida.PDF ? "/gzip" : "");
+        for (Object parametro : parametros) {
+            texto.append('/').append(parametro);
+        }
+        String extensao = saida == Saida.PDF ? "pdf" : saida.formato.getExtensao() + (gzip ? ".gz" : "");
+        return new Chave(tipo, texto.toString(), extensao, fontes, null);
+    }
+    
+    private static void appendTotais(StringBuilder preview, String grupo, List<TotaisCirculacao> totais) {
+        preview.append(String.format("\n%-20s %12s %12s %10s\n", grupo, "Empréstimos", "Devoluções", "Atrasos"));
+        for (TotaisCirculacao t : totais) {
+            preview.append(String.format("%-20s %12d %12d %10d\n", t.grupo(), t.emprestimos(), t.devolucoes(), t.atrasos()));
+        }
+    }
+    
+    @FXML
+    private void handleCancelarTarefa() {
+        FilaRelatorios.Tarefa<?> tarefa = tableTarefas.getSelectionModel().getSelectedItem();
+        if (tarefa == null || tarefa.isFinalizada()) { showError("Selecione um relatório em andamento."); return; }
+        tarefa.cancelar();
+        atualizarTarefas();
+    }
+    
+    /**
+     * Submete um relatório à fila (consulta e PDF em segundo plano) e exibe a prévia ao terminar.
+     * Se os dados de origem não mudaram desde a última geração com os mesmos parâmetros,
+     * o arquivo existente é reaproveitado.
+     * 
+     * @param pesada Se o relatório percorre tabelas inteiras
+     * @param chave Identificação do relatório no cache
+     */
+    private void gerar(String nome, boolean pesada, Chave chave, FilaRelatorios.Trabalho<Relatorio> geracao) {
+        int usuarioId = SessionManager.getUsuarioLogado().getId();
+        boolean pdf = chave.extensao().equals("pdf");
+        FilaRelatorios.Tarefa<CacheRelatorios.Arquivo> tarefa = FilaRelatorios.submeter(nome, pesada, progresso -> {
+            progresso.fase("Verificando dados");
+            CacheRelatorios.Arquivo relatorio = CacheRelatorios.obter(chave.tipo(), chave.parametros(),
+                    chave.extensao(), chave.fontes(), chave.periodo(), () -> {
+                        Relatorio gerado = geracao.executar(progresso);
+                        return new CacheRelatorios.Arquivo(gerado.path(), gerado.preview(), false);
+                    });
+            if (pdf) {
+                progresso.fase("Abrindo PDF");
+                PDFGenerator.openPDF(relatorio.path());
+            }
+            LogManager.logUserAction(usuarioId, "RELATORIO", nome);
+            return relatorio;
+        });
+        if (tarefa == null) { showError("Muitos relatórios em andamento. Aguarde a conclusão de algum."); return; }
+        
+        showInfo("Relatório na fila: " + nome);
+        atualizarTarefas();
+        tarefa.getResultado().whenCompleteAsync((relatorio, erro) -> {
+            if (erro == null) {
+                txtPreview.setText(relatorio.preview());
+                showSuccess((relatorio.reaproveitado() ? "Relatório reaproveitado (dados inalterados): "
+                        : "Relatório gerado: ") + relatorio.path());
+            } else if (erro instanceof CancellationException) {
+                showInfo("Relatório cancelado: " + nome);
+            } else {
+                showError("Erro ao gerar relatório: " + nome);
+            }
+        }, Platform::runLater);
+    }
+    
+    /**
+     * Atualiza a tabela de tarefas, mantendo a seleção.
+     */
+    private void atualizarTarefas() {
+        List<FilaRelatorios.Tarefa<?>> tarefas = FilaRelatorios.listar();
+        if (tarefas.equals(tableTarefas.getItems())) {
+            tableTarefas.refresh();
+            return;
+        }
+        FilaRelatorios.Tarefa<?> selecionada = tableTarefas.getSelectionModel().getSelectedItem();
+        tableTarefas.getItems().setAll(tarefas);
+        if (selecionada != null) tableTarefas.getSelectionModel().select(selecionada);
     }
     
+    private void showInfo(String s) { lblMensagem.setText(s); lblMensagem.setStyle("-fx-text-fill: #7f8c8d;"); }
     private void showError(String s) { lblMensagem.setText(s); lblMensagem.setStyle("-fx-text-fill: #e74c3c;"); }
     private void showSuccess(String s) { lblMensagem.setText(s); lblMensagem.setStyle("-fx-text-fill: #27ae60;"); }
 }
@@ -0,0 +1,172 @@
+package com.biblioteca.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Converte a linha atual de um {@link ResultSet} em objeto, lendo as colunas por índice.
+ *
+ * <p>Um mapeador é compilado por uma {@link Fabrica} a partir das colunas de um
+ * ResultSet específico: os índices são resolvidos uma única vez pelos metadados,
+ * e cada linha é lida sem busca por rótulo. Colunas opcionais (ex.: vindas de
+ * junções presentes só em algumas consultas) são detectadas na compilação, de
+ * modo que a leitura das linhas não depende de exceções.</p>
+ *
+ * <p>O mapeador compilado é guardado por SQL e fábrica: uma consulta repetida,
+ * mesmo de uma só linha, não relê os rótulos das colunas. O número de colunas
+ * é conferido a cada uso, e uma mudança recompila o mapeador.</p>
+ *
+ * @param <T> Tipo do objeto mapeado
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    /**
+     * Mapeia a linha atual.
+     *
+     * @param rs ResultSet posicionado em uma linha
+     * @return Objeto mapeado
+     * @throws SQLException Se houver erro na leitura
+     */
+    T mapear(ResultSet rs) throws SQLException;
+
+    /**
+     * Compila um {@link RowMapper} para as colunas de um ResultSet.
+     */
+    @FunctionalInterface
+    interface Fabrica<T> {
+        RowMapper<T> compilar(Colunas colunas) throws SQLException;
+    }
+
+    /**
+     * Índices das colunas de um ResultSet, indexados pelo rótulo (sem diferenciar maiúsculas).
+     */
+    final class Colunas {
+
+        private final Map<String, Integer> indices;
+
+        private Colunas(Map<String, Integer> indices) {
+            this.indices = indices;
+        }
+
+        /**
+         * Lê os rótulos das colunas nos metadados do ResultSet.
+         *
+         * @param rs ResultSet
+         * @return Índices das colunas
+         * @throws SQLException Se os metadados não puderem ser lidos
+         */
+        static Colunas de(ResultSet rs) throws SQLException {
+            ResultSetMetaData meta = rs.getMetaData();
+            int total = meta.getColumnCount();
+            Map<String, Integer> indices = new HashMap<>(total * 2);
+            for (int i = 1; i <= total; i++) {
+                // Em rótulos repetidos vale o primeiro, como na busca por rótulo do JDBC
+                indices.putIfAbsent(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+            return new Colunas(indices);
+        }
+
+        /**
+         * Retorna o índice de uma coluna obrigatória.
+         *
+         * @param rotulo Rótulo da coluna
+         * @return Índice (a partir de 1)
+         * @throws SQLException Se a coluna não estiver no ResultSet
+         */
+        int indice(String rotulo) throws SQLException {
+            Integer indice = indices.get(rotulo);
+            if (indice == null) {
+                throw new SQLException("Coluna ausente no resultado: " + rotulo);
+            }
+            return indice;
+        }
+
+        /**
+         * Retorna o índice de uma coluna opcional.
+         *
+         * @param rotulo Rótulo da coluna
+         * @return Índice (a partir de 1), ou 0 se a coluna não estiver no ResultSet
+         */
+        int opcional(String rotulo) {
+            return indices.getOrDefault(rotulo, 0);
+        }
+    }
+
+    /**
+     * Mapeadores compilados, por SQL e fábrica.
+     */
+    final class Compilados {
+
+        private record Chave(String sql, Fabrica<?> fabrica) { }
+
+        private record Compilado(int colunas, RowMapper<?> mapeador) { }
+
+        /** Número máximo de mapeadores guardados (SQL montado com listas variáveis gera muitas variações) */
+        private static final int MAX_COMPILADOS = 512;
+
+        private static final Map<Chave, Compilado> CACHE = new ConcurrentHashMap<>();
+
+        private Compilados() { }
+
+        /**
+         * Retorna o mapeador da consulta, compilando-o se ainda não estiver
+         * guardado ou se o número de colunas do ResultSet mudou.
+         */
+        @SuppressWarnings("unchecked")
+        static <T> RowMapper<T> obter(ResultSet rs, String sql, Fabrica<T> fabrica) throws SQLException {
+            Chave chave = new Chave(sql, fabrica);
+            int colunas = rs.getMetaData().getColumnCount();
+            Compilado compilado = CACHE.get(chave);
+            if (compilado != null && compilado.colunas() == colunas) {
+                return (RowMapper<T>) compilado.mapeador();
+            }
+            RowMapper<T> mapeador = fabrica.compilar(Colunas.de(rs));
+            if (compilado != null || CACHE.size() < MAX_COMPILADOS) {
+                CACHE.put(chave, new Compilado(colunas, mapeador));
+            }
+            return mapeador;
+        }
+    }
+
+    /**
+     * Mapeia a próxima linha do ResultSet, se houver.
+     *
+     * @param rs ResultSet
+     * @param sql Consulta que gerou o ResultSet (chave do mapeador compilado)
+     * @param fabrica Fábrica do mapeador
+     * @return Objeto mapeado, ou null se não houver linha
+     * @throws SQLException Se houver erro na leitura
+     */
+    static <T> T mapearPrimeira(ResultSet rs, String sql, Fabrica<T> fabrica) throws SQLException {
+        return rs.next() ? Compilados.obter(rs, sql, fabrica).mapear(rs) : null;
+    }
+
+    /**
+     * Mapeia todas as linhas restantes do ResultSet, entregando-as ao destino.
+     *
+     * @param rs ResultSet
+     * @param sql Consulta que gerou o ResultSet (chave do mapeador compilado)
+     * @param fabrica Fábrica do mapeador
+     * @param destino Consumidor das linhas mapeadas
+     * @return Número de linhas mapeadas
+     * @throws SQLException Se houver erro na leitura
+     */
+    static <T> int mapearTodas(ResultSet rs, String sql, Fabrica<T> fabrica, Consumer<? super T> destino) throws SQLException {
+        RowMapper<T> mapeador = Compilados.obter(rs, sql, fabrica);
+        int linhas = 0;
+        while (rs.next()) {
+            destino.accept(mapeador.mapear(rs));
+            linhas++;
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,230 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.model.Emprestimo;
+import com.biblioteca.model.StatusEmprestimo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Medição do custo por linha do mapeamento de empréstimos: a leitura antiga,
+ * por rótulo a cada linha e com a {@link SQLException} engolida quando as
+ * colunas da junção não vêm na consulta, contra {@link RowMapper#mapearTodas}
+ * com o mapeador compilado e guardado por SQL. As mesmas linhas sintéticas
+ * (sem banco) são lidas pelas duas formas. Não roda na suíte normal:
+ * {@code mvn test -Dtest=RowMapperBenchmarkTest -Dbenchmark=true}
+ * (opcionalmente {@code -Dbenchmark.linhas=N}).
+ *
+ * <p>O ResultSet em memória resolve rótulos como o driver (busca sem
+ * diferenciar maiúsculas num mapa) e lança a exceção de coluna ausente; o
+ * custo do proxy é o mesmo nas duas formas.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RowMapperBenchmarkTest {
+
+    /** Execuções medidas por configuração (a menor é a considerada) */
+    private static final int REPETICOES = 5;
+
+    private static final String[] COLUNAS = {"id", "usuario_id", "livro_id", "data_emprestimo",
+            "data_devolucao_prevista", "data_devolucao_real", "status", "observacoes"};
+
+    private static final String[] JUNCAO = {"usuario_nome", "usuario_email", "livro_titulo", "livro_autor"};
+
+    /** Mesmo mapeamento de {@code EmprestimoDAO}, por índice */
+    private static final RowMapper.Fabrica<Emprestimo> EMPRESTIMO = c -> {
+        int id = c.indice("id"), usuarioId = c.indice("usuario_id"), livroId = c.indice("livro_id");
+        int dataEmprestimo = c.indice("data_emprestimo"), dataPrevista = c.indice("data_devolucao_prevista");
+        int dataReal = c.indice("data_devolucao_real"), status = c.indice("status");
+        int observacoes = c.opcional("observacoes");
+        int usuarioNome = c.opcional("usuario_nome"), usuarioEmail = c.opcional("usuario_email");
+        int livroTitulo = c.opcional("livro_titulo"), livroAutor = c.opcional("livro_autor");
+        return rs -> {
+            Emprestimo emp = new Emprestimo();
+            emp.setId(rs.getInt(id));
+            emp.setUsuarioId(rs.getInt(usuarioId));
+            emp.setLivroId(rs.getInt(livroId));
+            emp.setDataEmprestimo(rs.getDate(dataEmprestimo).toLocalDate());
+            emp.setDataDevolucaoPrevista(rs.getDate(dataPrevista).toLocalDate());
+            Date devolucaoReal = rs.getDate(dataReal);
+            if (devolucaoReal != null) emp.setDataDevolucaoReal(devolucaoReal.toLocalDate());
+            emp.setStatus(StatusEmprestimo.valueOf(rs.getString(status)));
+            if (observacoes > 0) emp.setObservacoes(rs.getString(observacoes));
+            if (usuarioNome > 0) emp.setUsuarioNome(rs.getString(usuarioNome));
+            if (usuarioEmail > 0) emp.setUsuarioEmail(rs.getString(usuarioEmail));
+            if (livroTitulo > 0) emp.setLivroTitulo(rs.getString(livroTitulo));
+            if (livroAutor > 0) emp.setLivroAutor(rs.getString(livroAutor));
+            return emp;
+        };
+    };
+
+    @Test
+    void custoPorLinha() throws Exception {
+        int linhas = Integer.getInteger("benchmark.linhas", 200_000);
+
+        for (boolean comJuncao : new boolean[]{true, false}) {
+            String[] rotulos = comJuncao ? concatenar(COLUNAS, JUNCAO) : COLUNAS;
+            List<Object[]> dados = linhas(linhas, rotulos.length);
+            String sql = "SELECT ... /* " + (comJuncao ? "com" : "sem") + " junção */";
+
+            // Aquecimento do JIT
+            for (int i = 0; i < 3; i++) {
+                porRotulo(rotulos, dados);
+                compilado(rotulos, dados, sql);
+            }
+
+            double antigo = Double.MAX_VALUE, novo = Double.MAX_VALUE;
+            for (int i = 0; i < REPETICOES; i++) {
+                antigo = Math.min(antigo, porRotulo(rotulos, dados));
+                novo = Math.min(novo, compilado(rotulos, dados, sql));
+            }
+
+            System.out.printf("Mapeamento de empréstimos, %d linhas, %s as colunas da junção%n", linhas,
+                    comJuncao ? "com" : "sem");
+            System.out.printf("  por rótulo:          %8.1f ns/linha%n", antigo);
+            System.out.printf("  mapeador compilado:  %8.1f ns/linha  (%.2fx)%n", novo, antigo / novo);
+        }
+    }
+
+    /**
+     * Leitura antiga: rótulo a cada coluna de cada linha, colunas da junção
+     * num try/catch que engole a exceção de coluna ausente.
+     *
+     * @return Nanossegundos por linha
+     */
+    private static double porRotulo(String[] rotulos, List<Object[]> dados) throws SQLException {
+        ResultSet rs = resultSet(rotulos, dados);
+        List<Emprestimo> lista = new ArrayList<>(dados.size());
+        long inicio = System.nanoTime();
+        while (rs.next()) {
+            Emprestimo emp = new Emprestimo();
+            emp.setId(rs.getInt("id"));
+            emp.setUsuarioId(rs.getInt("usuario_id"));
+            emp.setLivroId(rs.getInt("livro_id"));
+            emp.setDataEmprestimo(rs.getDate("data_emprestimo").toLocalDate());
+            emp.setDataDevolucaoPrevista(rs.getDate("data_devolucao_prevista").toLocalDate());
+            Date devolucaoReal = rs.getDate("data_devolucao_real");
+            if (devolucaoReal != null) emp.setDataDevolucaoReal(devolucaoReal.toLocalDate());
+            emp.setStatus(StatusEmprestimo.valueOf(rs.getString("status")));
+            emp.setObservacoes(rs.getString("observacoes"));
+            try {
+                emp.setUsuarioNome(rs.getString("usuario_nome"));
+                emp.setUsuarioEmail(rs.getString("usuario_email"));
+                emp.setLivroTitulo(rs.getString("livro_titulo"));
+                emp.setLivroAutor(rs.getString("livro_autor"));
+            } catch (SQLException e) {}
+            lista.add(emp);
+        }
+        long duracao = System.nanoTime() - inicio;
+        assertEquals(dados.size(), lista.size());
+        return (double) duracao / dados.size();
+    }
+
+    /**
+     * Leitura atual: {@link RowMapper#mapearTodas} com o mapeador guardado por SQL.
+     *
+     * @return Nanossegundos por linha
+     */
+    private static double compilado(String[] rotulos, List<Object[]> dados, String sql) throws SQLException {
+        ResultSet rs = resultSet(rotulos, dados);
+        List<Emprestimo> lista = new ArrayList<>(dados.size());
+        Consumer<Emprestimo> destino = lista::add;
+        long inicio = System.nanoTime();
+        RowMapper.mapearTodas(rs, sql, EMPRESTIMO, destino);
+        long duracao = System.nanoTime() - inicio;
+        assertEquals(dados.size(), lista.size());
+        return (double) duracao / dados.size();
+    }
+
+    private static List<Object[]> linhas(int quantidade, int colunas) {
+        LocalDate hoje = LocalDate.now();
+        List<Object[]> dados = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Object[] linha = new Object[colunas];
+            linha[0] = i + 1;
+            linha[1] = i % 5000 + 1;
+            linha[2] = i % 20000 + 1;
+            linha[3] = Date.valueOf(hoje.minusDays(30 + i % 60));
+            linha[4] = Date.valueOf(hoje.minusDays(i % 60));
+            linha[5] = i % 3 == 0 ? Date.valueOf(hoje) : null;
+            linha[6] = i % 3 == 0 ? "DEVOLVIDO" : "ATIVO";
+            linha[7] = null;
+            if (colunas > COLUNAS.length) {
+                linha[8] = "Usuário " + i % 5000;
+                linha[9] = "usuario" + i % 5000 + "@biblioteca.local";
+                linha[10] = "Livro " + i % 20000;
+                linha[11] = "Autor " + i % 700;
+            }
+            dados.add(linha);
+        }
+        return dados;
+    }
+
+    /**
+     * ResultSet em memória, somente para leitura sequencial.
+     */
+    private static ResultSet resultSet(String[] rotulos, List<Object[]> dados) {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < rotulos.length; i++) {
+            indices.put(rotulos[i], i + 1);
+        }
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(
+                RowMapperBenchmarkTest.class.getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, metodo, args) -> switch (metodo.getName()) {
+                    case "getColumnCount" -> rotulos.length;
+                    case "getColumnLabel", "getColumnName" -> rotulos[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(metodo.getName());
+                });
+        int[] posicao = {-1};
+        return (ResultSet) Proxy.newProxyInstance(
+                RowMapperBenchmarkTest.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "next":
+                            return ++posicao[0] < dados.size();
+                        case "getMetaData":
+                            return meta;
+                        case "getInt":
+                        case "getString":
+                        case "getDate":
+                            int indice;
+                            if (args[0] instanceof String rotulo) {
+                                Integer encontrado = indices.get(rotulo.toLowerCase(Locale.ROOT));
+                                if (encontrado == null) {
+                                    throw new SQLException("Column '" + rotulo + "' not found.", "S0022");
+                                }
+                                indice = encontrado;
+                            } else {
+                                indice = (Integer) args[0];
+                            }
+                            Object valor = dados.get(posicao[0])[indice - 1];
+                            return metodo.getName().equals("getInt") ? (valor != null ? valor : 0) : valor;
+                        default:
+                            throw new UnsupportedOperationException(metodo.getName());
+                    }
+                });
+    }
+
+    private static String[] concatenar(String[] a, String[] b) {
+        String[] todos = new String[a.length + b.length];
+        System.arraycopy(a, 0, todos, 0, a.length);
+        System.arraycopy(b, 0, todos, a.length, b.length);
+        return todos;
+    }
+}
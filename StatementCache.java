@@ -0,0 +1,203 @@
+package com.biblioteca.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de {@link PreparedStatement} de uma conexão do pool, indexado
+ * pelo texto SQL.
+ *
+ * <p>Os statements entregues aos DAOs são proxies: {@code close()} limpa os
+ * parâmetros e devolve o statement ao cache, mantendo o prepared statement
+ * aberto no servidor. Como a conexão está emprestada a uma única thread por
+ * vez, a classe não é sincronizada.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+final class StatementCache {
+
+    /** Chave do cache: SQL e modo de retorno de chaves geradas */
+    private record Chave(String sql, int autoGeneratedKeys) { }
+
+    /** Statement físico mantido em cache */
+    private static final class Entrada {
+        private final PreparedStatement fisico;
+        private boolean emUso;
+        private boolean removido;
+
+        private Entrada(PreparedStatement fisico) {
+            this.fisico = fisico;
+        }
+    }
+
+    private final Connection fisica;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final Map<Chave, Entrada> entradas;
+
+    /**
+     * Cria o cache de uma conexão física.
+     *
+     * @param fisica Conexão física
+     * @param capacidade Número máximo de statements mantidos abertos
+     * @param hits Contador global de acertos
+     * @param misses Contador global de faltas
+     * @param evictions Contador global de remoções por capacidade
+     */
+    StatementCache(Connection fisica, int capacidade, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.fisica = fisica;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, Entrada> eldest) {
+                if (size() <= capacidade) {
+                    return false;
+                }
+                descartar(eldest.getValue());
+                StatementCache.this.evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Retorna um statement preparado para o SQL, reutilizando o do cache quando possível.
+     *
+     * @param handle Conexão (proxy) que será devolvida por {@code getConnection()}
+     * @param sql Texto SQL
+     * @param autoGeneratedKeys {@link java.sql.Statement#RETURN_GENERATED_KEYS} ou
+     *                          {@link java.sql.Statement#NO_GENERATED_KEYS}
+     * @return Statement pronto para uso
+     * @throws SQLException Se houver erro ao preparar o statement
+     */
+    PreparedStatement preparar(Connection handle, String sql, int autoGeneratedKeys) throws SQLException {
+        Chave chave = new Chave(sql, autoGeneratedKeys);
+        Entrada entrada = entradas.get(chave);
+
+        if (entrada != null && !entrada.emUso) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            PreparedStatement fisico = fisica.prepareStatement(sql, autoGeneratedKeys);
+            if (entrada != null) {
+                // Mesmo SQL já aberto nesta conexão (uso aninhado): não armazenar
+                return fisico;
+            }
+            entrada = new Entrada(fisico);
+            entradas.put(chave, entrada);
+        }
+
+        entrada.emUso = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new Handle(entrada, chave, handle));
+    }
+
+    /**
+     * Fecha todos os statements do cache.
+     */
+    void fechar() {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            descartar(it.next());
+            it.remove();
+        }
+    }
+
+    private void devolver(Entrada entrada, Chave chave) {
+        entrada.emUso = false;
+        if (entrada.removido) {
+            fecharFisico(entrada);
+            return;
+        }
+        try {
+            ResultSet rs = entrada.fisico.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            entrada.fisico.clearParameters();
+            entrada.fisico.clearWarnings();
+        } catch (SQLException e) {
+            entradas.remove(chave);
+            fecharFisico(entrada);
+        }
+    }
+
+    private void descartar(Entrada entrada) {
+        entrada.removido = true;
+        if (!entrada.emUso) {
+            fecharFisico(entrada);
+        }
+    }
+
+    private static void fecharFisico(Entrada entrada) {
+        try {
+            entrada.fisico.close();
+        } catch (SQLException e) {
+            LogManager.error("Erro ao fechar statement do cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Intercepta o statement entregue ao DAO.
+     */
+    private final class Handle implements InvocationHandler {
+
+        private final Entrada entrada;
+        private final Chave chave;
+        private final Connection conexao;
+        private boolean fechado;
+
+        private Handle(Entrada entrada, Chave chave, Connection conexao) {
+            this.entrada = entrada;
+            this.chave = chave;
+            this.conexao = conexao;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!fechado) {
+                        fechado = true;
+                        devolver(entrada, chave);
+                    }
+                    return null;
+                case "isClosed":
+                    return fechado;
+                case "getConnection":
+                    return conexao;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + chave.sql() + "]";
+                default:
+                    if (fechado) {
+                        throw new SQLException("Statement já fechado");
+                    }
+                    try {
+                        return method.invoke(entrada.fisico, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.biblioteca.model;
+
+/**
+ * Totais de circulação de um grupo (período, categoria ou tipo de usuário)
+ * lidos da consolidação diária.
+ * 
+ * @param grupo Rótulo do grupo (ex.: "2024-03", "Ficção", "ALUNO")
+ * @param emprestimos Empréstimos realizados
+ * @param devolucoes Devoluções registradas
+ * @param atrasos Empréstimos que passaram a ficar atrasados
+ * 
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public record TotaisCirculacao(String grupo, long emprestimos, long devolucoes, long atrasos) {
+}
@@ -0,0 +1,367 @@
+package com.biblioteca.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Árvore de prefixos (trie compactada) para sugestões de preenchimento.
+ *
+ * <p>Cada item é registrado por um ID, com um peso e um ou mais textos de
+ * busca (ex.: nome e e-mail). Os textos são normalizados como no
+ * {@link IndiceInvertido} (mas sem descartar palavras comuns, que podem ser
+ * o início de outras) e indexados a partir de cada palavra, de forma que
+ * "assis" encontre "Machado de Assis". Cada nó guarda o maior peso da sua
+ * subárvore e seus registros em ordem de peso, o que permite obter os N
+ * melhores itens de um prefixo por busca best-first, sem percorrer todos os
+ * itens que começam por ele. Itens de mesmo peso saem em ordem alfabética da
+ * chave encontrada.</p>
+ *
+ * <p>A chave a partir de cada palavra guarda no máximo {@value #MAX_CHAVE}
+ * caracteres, para que a memória cresça com o número de palavras e não com o
+ * seu quadrado; consultas mais longas localizam os candidatos pelos primeiros
+ * {@value #MAX_CHAVE} caracteres e conferem o restante no texto do item.</p>
+ *
+ * <p>As arestas são rotuladas por trechos de texto (e não por caracteres
+ * isolados), mantendo o número de nós próximo ao número de chaves.</p>
+ *
+ * @param <T> Tipo dos itens sugeridos
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class TriePrefixos<T> {
+
+    /** Item registrado: chaves indexadas e textos normalizados completos */
+    private record Registro<T>(int id, T valor, double peso, List<String> chaves, List<String> textos) { }
+
+    /** Tamanho máximo de uma chave, em caracteres */
+    private static final int MAX_CHAVE = 32;
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final class No<T> {
+        private String rotulo;
+        private final TreeMap<Character, No<T>> filhos = new TreeMap<>();
+        /** Registros cuja chave termina neste nó, em ordem decrescente de peso */
+        private final List<Registro<T>> registros = new ArrayList<>(1);
+        private double melhorPeso = Double.NEGATIVE_INFINITY;
+
+        private No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+
+        /** Recalcula o maior peso da subárvore a partir dos registros e dos filhos */
+        private void recalcular() {
+            double melhor = Double.NEGATIVE_INFINITY;
+            for (Registro<T> r : registros) {
+                melhor = Math.max(melhor, r.peso());
+            }
+            for (No<T> filho : filhos.values()) {
+                melhor = Math.max(melhor, filho.melhorPeso);
+            }
+            melhorPeso = melhor;
+        }
+
+        private void adicionar(Registro<T> registro) {
+            int pos = registros.size();
+            while (pos > 0 && registros.get(pos - 1).peso() < registro.peso()) {
+                pos--;
+            }
+            registros.add(pos, registro);
+        }
+    }
+
+    /**
+     * Candidato da busca best-first: um nó a expandir ({@code indice} = -1) ou
+     * o registro {@code indice} de um nó. {@code caminho} é o texto da raiz até
+     * o fim do nó: a chave do registro, ou o menor texto possível na subárvore.
+     */
+    private record Candidato<T>(double peso, String caminho, No<T> no, int indice) { }
+
+    private final No<T> raiz = new No<>("");
+    private final Map<Integer, Registro<T>> porId = new HashMap<>();
+
+    /**
+     * Registra um item, substituindo o registro anterior com o mesmo ID.
+     *
+     * @param id Identificador do item
+     * @param valor Item sugerido
+     * @param peso Relevância (maior aparece primeiro)
+     * @param textos Textos pelos quais o item pode ser encontrado (null é ignorado)
+     */
+    public synchronized void colocar(int id, T valor, double peso, String... textos) {
+        remover(id);
+
+        List<String> chaves = new ArrayList<>();
+        List<String> normalizados = new ArrayList<>();
+        for (String texto : textos) {
+            String normalizado = String.join(" ", palavras(texto));
+            if (normalizado.isEmpty()) continue;
+            normalizados.add(normalizado);
+            // Uma chave a partir de cada palavra: "dom casmurro", "casmurro"
+            for (int i = 0; i < normalizado.length(); i = normalizado.indexOf(' ', i) + 1) {
+                String chave = normalizado.substring(i, Math.min(normalizado.length(), i + MAX_CHAVE)).strip();
+                if (!chaves.contains(chave)) {
+                    chaves.add(chave);
+                }
+                if (normalizado.indexOf(' ', i) < 0) break;
+            }
+        }
+
+        registrar(new Registro<>(id, valor, peso, chaves, normalizados));
+    }
+
+    /**
+     * Altera um item registrado, em uma única operação: os textos de busca são
+     * mantidos e o peso é recalculado a partir do novo valor.
+     *
+     * @param id Identificador do item
+     * @param alteracao Novo valor a partir do atual
+     * @param peso Peso do novo valor
+     * @return true se o item estava registrado
+     */
+    public synchronized boolean alterar(int id, UnaryOperator<T> alteracao, ToDoubleFunction<? super T> peso) {
+        Registro<T> atual = porId.get(id);
+        if (atual == null) {
+            return false;
+        }
+        remover(id);
+        T valor = alteracao.apply(atual.valor());
+        registrar(new Registro<>(id, valor, peso.applyAsDouble(valor), atual.chaves(), atual.textos()));
+        return true;
+    }
+
+    private void registrar(Registro<T> registro) {
+        porId.put(registro.id(), registro);
+        for (String chave : registro.chaves()) {
+            inserir(chave, registro);
+        }
+    }
+
+    /**
+     * Remove um item.
+     *
+     * @param id Identificador do item
+     */
+    public synchronized void remover(int id) {
+        Registro<T> registro = porId.remove(id);
+        if (registro == null) {
+            return;
+        }
+        for (String chave : registro.chaves()) {
+            retirar(chave, registro);
+        }
+    }
+
+    /**
+     * @param id Identificador do item
+     * @return Item registrado com o ID, ou null
+     */
+    public synchronized T obter(int id) {
+        Registro<T> registro = porId.get(id);
+        return registro != null ? registro.valor() : null;
+    }
+
+    /**
+     * @return Número de itens registrados
+     */
+    public synchronized int tamanho() {
+        return porId.size();
+    }
+
+    /**
+     * Retorna os itens de maior peso que possuem alguma chave começando pelo prefixo.
+     *
+     * @param prefixo Texto digitado
+     * @param limite Número máximo de sugestões
+     * @param filtro Condição que o item deve atender
+     * @return Sugestões, da mais para a menos relevante
+     */
+    public synchronized List<T> sugerir(String prefixo, int limite, Predicate<? super T> filtro) {
+        List<T> sugestoes = new ArrayList<>();
+        String consulta = String.join(" ", palavras(prefixo));
+        if (consulta.isEmpty() || limite <= 0) {
+            return sugestoes;
+        }
+        // As chaves são truncadas: o restante de uma consulta longa é conferido no texto
+        boolean longa = consulta.length() > MAX_CHAVE;
+        String busca = longa ? consulta.substring(0, MAX_CHAVE).strip() : consulta;
+
+        Candidato<T> inicio = localizar(busca);
+        if (inicio == null) {
+            return sugestoes;
+        }
+
+        PriorityQueue<Candidato<T>> fila = new PriorityQueue<>(TriePrefixos::comparar);
+        fila.add(inicio);
+
+        Set<Integer> vistos = new HashSet<>();
+        while (!fila.isEmpty() && sugestoes.size() < limite) {
+            Candidato<T> c = fila.poll();
+            List<Registro<T>> registros = c.no().registros;
+            if (c.indice() >= 0) {
+                Registro<T> r = registros.get(c.indice());
+                if ((!longa || contem(r, consulta)) && vistos.add(r.id()) && filtro.test(r.valor())) {
+                    sugestoes.add(r.valor());
+                }
+                // Registros do nó estão em ordem de peso: enfileirar só o próximo
+                int proximo = c.indice() + 1;
+                if (proximo < registros.size()) {
+                    fila.add(new Candidato<>(registros.get(proximo).peso(), c.caminho(), c.no(), proximo));
+                }
+                continue;
+            }
+            if (!registros.isEmpty()) {
+                fila.add(new Candidato<>(registros.get(0).peso(), c.caminho(), c.no(), 0));
+            }
+            for (No<T> filho : c.no().filhos.values()) {
+                fila.add(new Candidato<>(filho.melhorPeso, c.caminho() + filho.rotulo, filho, -1));
+            }
+        }
+        return sugestoes;
+    }
+
+    /**
+     * Retorna o nó cuja subárvore contém todas as chaves que começam pelo
+     * prefixo, como candidato a expandir, ou null se nenhuma chave começa por ele.
+     */
+    private Candidato<T> localizar(String prefixo) {
+        No<T> no = raiz;
+        int pos = 0;
+        while (pos < prefixo.length()) {
+            No<T> filho = no.filhos.get(prefixo.charAt(pos));
+            if (filho == null) {
+                return null;
+            }
+            int comum = prefixoComum(filho.rotulo, prefixo, pos);
+            if (pos + comum == prefixo.length()) {
+                return new Candidato<>(filho.melhorPeso, prefixo.substring(0, pos) + filho.rotulo, filho, -1);
+            }
+            if (comum < filho.rotulo.length()) {
+                return null;
+            }
+            pos += comum;
+            no = filho;
+        }
+        return new Candidato<>(no.melhorPeso, prefixo, no, -1);
+    }
+
+    /** @return true se alguma palavra de um texto do registro inicia a consulta completa */
+    private static boolean contem(Registro<?> registro, String consulta) {
+        for (String texto : registro.textos()) {
+            if (texto.startsWith(consulta) || texto.contains(" " + consulta)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void inserir(String chave, Registro<T> registro) {
+        No<T> no = raiz;
+        int pos = 0;
+        while (true) {
+            no.melhorPeso = Math.max(no.melhorPeso, registro.peso());
+            if (pos == chave.length()) {
+                no.adicionar(registro);
+                return;
+            }
+
+            No<T> filho = no.filhos.get(chave.charAt(pos));
+            if (filho == null) {
+                No<T> folha = new No<>(chave.substring(pos));
+                folha.adicionar(registro);
+                folha.melhorPeso = registro.peso();
+                no.filhos.put(folha.rotulo.charAt(0), folha);
+                return;
+            }
+
+            int comum = prefixoComum(filho.rotulo, chave, pos);
+            if (comum < filho.rotulo.length()) {
+                // Dividir a aresta: o trecho comum vira um nó intermediário
+                No<T> meio = new No<>(filho.rotulo.substring(0, comum));
+                filho.rotulo = filho.rotulo.substring(comum);
+                meio.filhos.put(filho.rotulo.charAt(0), filho);
+                meio.melhorPeso = filho.melhorPeso;
+                no.filhos.put(meio.rotulo.charAt(0), meio);
+                filho = meio;
+            }
+            pos += comum;
+            no = filho;
+        }
+    }
+
+    private void retirar(String chave, Registro<T> registro) {
+        List<No<T>> caminho = new ArrayList<>();
+        No<T> no = raiz;
+        int pos = 0;
+        caminho.add(no);
+        while (pos < chave.length()) {
+            no = no.filhos.get(chave.charAt(pos));
+            if (no == null || !chave.startsWith(no.rotulo, pos)) {
+                return;
+            }
+            pos += no.rotulo.length();
+            caminho.add(no);
+        }
+        no.registros.remove(registro);
+
+        // Podar nós vazios e recalcular os pesos de baixo para cima
+        for (int i = caminho.size() - 1; i >= 0; i--) {
+            No<T> atual = caminho.get(i);
+            if (i > 0 && atual.registros.isEmpty() && atual.filhos.isEmpty()) {
+                caminho.get(i - 1).filhos.remove(atual.rotulo.charAt(0));
+            } else {
+                atual.recalcular();
+            }
+        }
+    }
+
+    /**
+     * Maior peso primeiro. Em empate, ordem alfabética do caminho: o caminho de
+     * um nó não é maior que nenhuma chave da sua subárvore, então os registros
+     * de mesmo peso saem em ordem alfabética da chave (a mais curta primeiro,
+     * por ser a mais próxima do que foi digitado). Com caminhos iguais, o
+     * registro vem antes do nó, que não tem nada menor a oferecer.
+     */
+    private static int comparar(Candidato<?> a, Candidato<?> b) {
+        if (a.peso() != b.peso()) {
+            return Double.compare(b.peso(), a.peso());
+        }
+        int caminho = a.caminho().compareTo(b.caminho());
+        if (caminho != 0) {
+            return caminho;
+        }
+        return Boolean.compare(b.indice() >= 0, a.indice() >= 0);
+    }
+
+    private static List<String> palavras(String texto) {
+        List<String> palavras = new ArrayList<>();
+        if (texto == null) {
+            return palavras;
+        }
+        for (String palavra : SEPARADORES.split(IndiceInvertido.normalizar(texto))) {
+            if (!palavra.isEmpty()) {
+                palavras.add(palavra);
+            }
+        }
+        return palavras;
+    }
+
+    private static int prefixoComum(String rotulo, String texto, int inicio) {
+        int max = Math.min(rotulo.length(), texto.length() - inicio);
+        int i = 0;
+        while (i < max && rotulo.charAt(i) == texto.charAt(inicio + i)) {
+            i++;
+        }
+        return i;
+    }
+}
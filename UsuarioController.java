@@ -4,23 +4,24 @@ import com.biblioteca.dao.CategoriaDAO;
 import com.biblioteca.dao.UsuarioDAO;
 import com.biblioteca.model.TipoUsuario;
 import com.biblioteca.model.Usuario;
+import com.biblioteca.model.UsuarioResumo;
 import com.biblioteca.utils.LogManager;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 
 /**
  * Controller para gestão de usuários.
  */
 public class UsuarioController {
     
-    @FXML private TableView<Usuario> tableUsuarios;
-    @FXML private TableColumn<Usuario, Integer> colId;
-    @FXML private TableColumn<Usuario, String> colNome;
-    @FXML private TableColumn<Usuario, String> colEmail;
-    @FXML private TableColumn<Usuario, TipoUsuario> colTipo;
-    @FXML private TableColumn<Usuario, Boolean> colAtivo;
+    @FXML private TableView<UsuarioResumo> tableUsuarios;
+    @FXML private TableColumn<UsuarioResumo, Integer> colId;
+    @FXML private TableColumn<UsuarioResumo, String> colNome;
+    @FXML private TableColumn<UsuarioResumo, String> colEmail;
+    @FXML private TableColumn<UsuarioResumo, TipoUsuario> colTipo;
+    @FXML private TableColumn<UsuarioResumo, Boolean> colAtivo;
     
     @FXML private TextField txtNome;
     @FXML private TextField txtEmail;
@@ -32,28 +33,36 @@ public class UsuarioController {
     
     private UsuarioDAO usuarioDAO = new UsuarioDAO();
     private Usuario usuarioSelecionado;
+    private CarregadorTela carregador;
     
     @FXML
     public void initialize() {
-        colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colNome.setCellValueFactory(new PropertyValueFactory<>("nome"));
-        colEmail.setCellValueFactory(new PropertyValueFactory<>("email"));
-        colTipo.setCellValueFactory(new PropertyValueFactory<>("tipo"));
-        colAtivo.setCellValueFactory(new PropertyValueFactory<>("ativo"));
+        carregador = new CarregadorTela(tableUsuarios);
+        
+        colId.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().id()));
+        colNome.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().nome()));
+        colEmail.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().email()));
+        colTipo.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().tipo()));
+        colAtivo.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue().ativo()));
         
         cmbTipo.setItems(FXCollections.observableArrayList(TipoUsuario.values()));
         cmbTipo.setValue(TipoUsuario.ALUNO);
         chkAtivo.setSelected(true);
         
         tableUsuarios.getSelectionModel().selectedItemProperty().addListener((obs, old, novo) -> {
-            if (novo != null) preencherFormulario(novo);
+            // A tabela traz só a projeção; o formulário de edição usa a entidade completa
+            if (novo != null) {
+                carregador.carregar("selecao", () -> usuarioDAO.buscarPorId(novo.id()), usuario -> {
+                    if (usuario != null) preencherFormulario(usuario);
+                });
+            }
         });
         
         carregarUsuarios();
     }
     
     private void carregarUsuarios() {
-        tableUsuarios.setItems(FXCollections.observableArrayList(usuarioDAO.listarTodos()));
+        ListaPaginada.exibir(tableUsuarios, usuarioDAO::listarPagina, UsuarioResumo::id, carregador);
     }
     
     private void preencherFormulario(Usuario u) {
@@ -122,7 +131,7 @@ public class UsuarioController {
     private void handleBuscar() {
         String termo = txtBusca.getText().trim();
         if (termo.isEmpty()) carregarUsuarios();
-        else tableUsuarios.setItems(FXCollections.observableArrayList(usuarioDAO.buscarPorNome(termo)));
+        else ListaPaginada.exibirBusca(tableUsuarios, () -> usuarioDAO.buscar(termo), carregador);
     }
     
     @FXML
@@ -2,13 +2,18 @@ package com.biblioteca.dao;
 
 import com.biblioteca.model.TipoUsuario;
 import com.biblioteca.model.Usuario;
+import com.biblioteca.model.UsuarioResumo;
 import com.biblioteca.utils.DatabaseConnection;
 import com.biblioteca.utils.LogManager;
 import com.biblioteca.utils.PasswordUtils;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Data Access Object para operações CRUD de usuários.
@@ -18,6 +23,88 @@ import java.util.List;
  */
 public class UsuarioDAO {
     
+    /** Projeção das telas de listagem (sem o hash da senha) */
+    private static final String SELECT_RESUMO = "SELECT id, nome, email, tipo, ativo FROM usuarios ";
+    
+    /** Número máximo de resultados de {@link #buscar(String)} */
+    private static final int LIMITE_BUSCA = 500;
+    
+    /** Diretório em memória para busca, sugestões e verificação de e-mail */
+    private static final DiretorioUsuarios DIRETORIO = new DiretorioUsuarios();
+    
+    /** Número esperado de e-mails no filtro de Bloom */
+    private static final int EMAIL_CAPACIDADE = 500_000;
+    
+    /** Número máximo de e-mails confirmados como inexistentes no cache negativo */
+    private static final int EMAIL_NEGATIVOS = 10_000;
+    
+    /** Tempo de vida das entradas do cache negativo */
+    private static final long EMAIL_NEGATIVOS_TTL_MS = 5 * 60 * 1000L;
+    
+    /** Prazo em que o filtro responde aos e-mails ausentes, antes de ser recarregado */
+    private static final long EMAIL_VALIDADE_MS = 10 * 60 * 1000L;
+    
+    /**
+     * Verificação de e-mail já cadastrado para os e-mails ausentes do
+     * diretório: filtro de Bloom (1% de falsos positivos) + cache negativo.
+     */
+    private static final VerificadorExistencia EMAILS = new VerificadorExistencia(EMAIL_CAPACIDADE, 0.01,
+            EMAIL_NEGATIVOS, EMAIL_NEGATIVOS_TTL_MS, EMAIL_VALIDADE_MS, UsuarioDAO::sondarEmail);
+    
+    /** Mapeador da entidade completa */
+    private static final RowMapper.Fabrica<Usuario> USUARIO = c -> {
+        int id = c.indice("id");
+        int nome = c.indice("nome");
+        int email = c.indice("email");
+        int senha = c.indice("senha");
+        int tipo = c.indice("tipo");
+        int ativo = c.indice("ativo");
+        int criadoEm = c.opcional("criado_em");
+        int atualizadoEm = c.opcional("atualizado_em");
+        
+        return rs -> {
+            Usuario usuario = new Usuario();
+            usuario.setId(rs.getInt(id));
+            usuario.setNome(rs.getString(nome));
+            usuario.setEmail(rs.getString(email));
+            usuario.setSenha(rs.getString(senha));
+            usuario.setTipo(TipoUsuario.valueOf(rs.getString(tipo)));
+            usuario.setAtivo(rs.getBoolean(ativo));
+            
+            if (criadoEm > 0) {
+                Timestamp ts = rs.getTimestamp(criadoEm);
+                if (ts != null) {
+                    usuario.setCriadoEm(ts.toLocalDateTime());
+                }
+            }
+            
+            if (atualizadoEm > 0) {
+                Timestamp ts = rs.getTimestamp(atualizadoEm);
+                if (ts != null) {
+                    usuario.setAtualizadoEm(ts.toLocalDateTime());
+                }
+            }
+            
+            return usuario;
+        };
+    };
+    
+    /** Mapeador da projeção de listagem */
+    private static final RowMapper.Fabrica<UsuarioResumo> RESUMO = c -> {
+        int id = c.indice("id");
+        int nome = c.indice("nome");
+        int email = c.indice("email");
+        int tipo = c.indice("tipo");
+        int ativo = c.indice("ativo");
+        
+        return rs -> new UsuarioResumo(
+                rs.getInt(id),
+                rs.getString(nome),
+                rs.getString(email),
+                TipoUsuario.valueOf(rs.getString(tipo)),
+                rs.getBoolean(ativo));
+    };
+    
     /**
      * Insere um novo usuário no banco de dados.
      * 
@@ -27,7 +114,7 @@ public class UsuarioDAO {
     public boolean inserir(Usuario usuario) {
         String sql = "INSERT INTO usuarios (nome, email, senha, tipo, ativo) VALUES (?, ?, ?, ?, ?)";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setString(1, usuario.getNome());
@@ -44,6 +131,9 @@ public class UsuarioDAO {
                         usuario.setId(generatedKeys.getInt(1));
                     }
                 }
+                DIRETORIO.gravado(resumo(usuario));
+                EMAILS.adicionada(usuario.getEmail());
+                EstatisticasDAO.usuarioInserido();
                 LogManager.info("Usuário inserido: " + usuario.getEmail());
                 return true;
             }
@@ -64,9 +154,11 @@ public class UsuarioDAO {
     public boolean atualizar(Usuario usuario) {
         String sql = "UPDATE usuarios SET nome = ?, email = ?, tipo = ?, ativo = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            String emailAnterior = emailDoUsuario(conn, usuario.getId());
+            
             stmt.setString(1, usuario.getNome());
             stmt.setString(2, usuario.getEmail());
             stmt.setString(3, usuario.getTipo().name());
@@ -76,6 +168,11 @@ public class UsuarioDAO {
             int affectedRows = stmt.executeUpdate();
             
             if (affectedRows > 0) {
+                DIRETORIO.gravado(resumo(usuario));
+                if (emailAnterior != null && !emailAnterior.equalsIgnoreCase(usuario.getEmail())) {
+                    EMAILS.removida(emailAnterior);
+                }
+                EMAILS.adicionada(usuario.getEmail());
                 LogManager.info("Usuário atualizado: " + usuario.getEmail());
                 return true;
             }
@@ -97,7 +194,7 @@ public class UsuarioDAO {
     public boolean atualizarSenha(int usuarioId, String novaSenha) {
         String sql = "UPDATE usuarios SET senha = ? WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, PasswordUtils.hashPassword(novaSenha));
@@ -126,13 +223,18 @@ public class UsuarioDAO {
     public boolean deletar(int id) {
         String sql = "DELETE FROM usuarios WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            String email = emailDoUsuario(conn, id);
+            
             stmt.setInt(1, id);
             int affectedRows = stmt.executeUpdate();
             
             if (affectedRows > 0) {
+                DIRETORIO.removido(id);
+                EMAILS.removida(email);
+                EstatisticasDAO.usuarioRemovido();
                 LogManager.info("Usuário removido: ID " + id);
                 return true;
             }
@@ -153,13 +255,14 @@ public class UsuarioDAO {
     public boolean desativar(int id) {
         String sql = "UPDATE usuarios SET ativo = FALSE WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
             int affectedRows = stmt.executeUpdate();
             
             if (affectedRows > 0) {
+                DIRETORIO.desativado(id);
                 LogManager.info("Usuário desativado: ID " + id);
                 return true;
             }
@@ -180,15 +283,13 @@ public class UsuarioDAO {
     public Usuario buscarPorId(int id) {
         String sql = "SELECT * FROM usuarios WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setInt(1, id);
             
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToUsuario(rs);
-                }
+                return RowMapper.mapearPrimeira(rs, sql, USUARIO);
             }
             
         } catch (SQLException e) {
@@ -207,15 +308,13 @@ public class UsuarioDAO {
     public Usuario buscarPorEmail(String email) {
         String sql = "SELECT * FROM usuarios WHERE email = ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, email.toLowerCase());
             
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToUsuario(rs);
-                }
+                return RowMapper.mapearPrimeira(rs, sql, USUARIO);
             }
             
         } catch (SQLException e) {
@@ -257,19 +356,17 @@ public class UsuarioDAO {
     /**
      * Lista todos os usuários.
      * 
-     * @return Lista de usuários
+     * @return Lista de usuários (projeção de listagem)
      */
-    public List<Usuario> listarTodos() {
-        List<Usuario> usuarios = new ArrayList<>();
-        String sql = "SELECT * FROM usuarios ORDER BY nome";
+    public List<UsuarioResumo> listarTodos() {
+        List<UsuarioResumo> usuarios = new ArrayList<>();
+        String sql = SELECT_RESUMO + "ORDER BY nome";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             
-            while (rs.next()) {
-                usuarios.add(mapResultSetToUsuario(rs));
-            }
+            RowMapper.mapearTodas(rs, sql, RESUMO, usuarios::add);
             
         } catch (SQLException e) {
             LogManager.error("Erro ao listar usuários", e);
@@ -279,22 +376,58 @@ public class UsuarioDAO {
     }
     
     /**
-     * Lista usuários ativos.
+     * Lista uma página de usuários ordenados por nome.
+     * 
+     * <p>Usa paginação por chave (keyset): a página seguinte começa logo após
+     * o último usuário da anterior, sem OFFSET.</p>
      * 
-     * @return Lista de usuários ativos
+     * @param ultimo Último usuário da página anterior (null para a primeira página)
+     * @param limite Tamanho da página
+     * @return Lista de usuários da página (projeção de listagem)
      */
-    public List<Usuario> listarAtivos() {
-        List<Usuario> usuarios = new ArrayList<>();
-        String sql = "SELECT * FROM usuarios WHERE ativo = TRUE ORDER BY nome";
+    public List<UsuarioResumo> listarPagina(UsuarioResumo ultimo, int limite) {
+        List<UsuarioResumo> usuarios = new ArrayList<>();
+        String sql = SELECT_RESUMO +
+                     (ultimo == null ? "" : "WHERE nome > ? OR (nome = ? AND id > ?) ") +
+                     "ORDER BY nome, id LIMIT ?";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            while (rs.next()) {
-                usuarios.add(mapResultSetToUsuario(rs));
+            int i = 1;
+            if (ultimo != null) {
+                stmt.setString(i++, ultimo.nome());
+                stmt.setString(i++, ultimo.nome());
+                stmt.setInt(i++, ultimo.id());
+            }
+            stmt.setInt(i, limite);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, sql, RESUMO, usuarios::add);
             }
             
+        } catch (SQLException e) {
+            LogManager.error("Erro ao listar página de usuários", e);
+        }
+        
+        return usuarios;
+    }
+    
+    /**
+     * Lista usuários ativos.
+     * 
+     * @return Lista de usuários ativos (projeção de listagem)
+     */
+    public List<UsuarioResumo> listarAtivos() {
+        List<UsuarioResumo> usuarios = new ArrayList<>();
+        String sql = SELECT_RESUMO + "WHERE ativo = TRUE ORDER BY nome";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            
+            RowMapper.mapearTodas(rs, sql, RESUMO, usuarios::add);
+            
         } catch (SQLException e) {
             LogManager.error("Erro ao listar usuários ativos", e);
         }
@@ -306,21 +439,19 @@ public class UsuarioDAO {
      * Lista usuários por tipo.
      * 
      * @param tipo Tipo de usuário
-     * @return Lista de usuários do tipo especificado
+     * @return Lista de usuários do tipo especificado (projeção de listagem)
      */
-    public List<Usuario> listarPorTipo(TipoUsuario tipo) {
-        List<Usuario> usuarios = new ArrayList<>();
-        String sql = "SELECT * FROM usuarios WHERE tipo = ? AND ativo = TRUE ORDER BY nome";
+    public List<UsuarioResumo> listarPorTipo(TipoUsuario tipo) {
+        List<UsuarioResumo> usuarios = new ArrayList<>();
+        String sql = SELECT_RESUMO + "WHERE tipo = ? AND ativo = TRUE ORDER BY nome";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, tipo.name());
             
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    usuarios.add(mapResultSetToUsuario(rs));
-                }
+                RowMapper.mapearTodas(rs, sql, RESUMO, usuarios::add);
             }
             
         } catch (SQLException e) {
@@ -334,21 +465,19 @@ public class UsuarioDAO {
      * Busca usuários por nome (parcial).
      * 
      * @param nome Nome ou parte do nome
-     * @return Lista de usuários encontrados
+     * @return Lista de usuários encontrados (projeção de listagem)
      */
-    public List<Usuario> buscarPorNome(String nome) {
-        List<Usuario> usuarios = new ArrayList<>();
-        String sql = "SELECT * FROM usuarios WHERE nome LIKE ? ORDER BY nome";
+    public List<UsuarioResumo> buscarPorNome(String nome) {
+        List<UsuarioResumo> usuarios = new ArrayList<>();
+        String sql = SELECT_RESUMO + "WHERE nome LIKE ? ORDER BY nome";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, "%" + nome + "%");
             
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    usuarios.add(mapResultSetToUsuario(rs));
-                }
+                RowMapper.mapearTodas(rs, sql, RESUMO, usuarios::add);
             }
             
         } catch (SQLException e) {
@@ -358,14 +487,240 @@ public class UsuarioDAO {
         return usuarios;
     }
     
+    /**
+     * Busca usuários por nome ou e-mail no diretório em memória.
+     * 
+     * <p>O nome é buscado por termos (sem acentos, por prefixo, ordenado por
+     * relevância) e o e-mail pelo início do endereço. Enquanto o diretório não
+     * estiver carregado, usa {@link #buscarPorNome(String)}.</p>
+     * 
+     * @param termo Texto da busca
+     * @return Lista de usuários encontrados (projeção de listagem)
+     */
+    public List<UsuarioResumo> buscar(String termo) {
+        if (!DIRETORIO.isPronto()) {
+            return buscarPorNome(termo);
+        }
+        return DIRETORIO.buscar(termo, LIMITE_BUSCA);
+    }
+    
+    /**
+     * Busca usuários pela chave primária.
+     * 
+     * @param ids IDs dos usuários
+     * @return Usuários na ordem dos IDs informados (IDs inexistentes são ignorados)
+     */
+    public List<UsuarioResumo> buscarPorIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        Map<Integer, UsuarioResumo> encontrados = new HashMap<>();
+        String sql = SELECT_RESUMO + "WHERE id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setInt(i + 1, ids.get(i));
+            }
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, sql, RESUMO, u -> encontrados.put(u.id(), u));
+            }
+            
+        } catch (SQLException e) {
+            LogManager.error("Erro ao buscar usuários por ID", e);
+        }
+        
+        List<UsuarioResumo> usuarios = new ArrayList<>(encontrados.size());
+        for (Integer id : ids) {
+            UsuarioResumo usuario = encontrados.get(id);
+            if (usuario != null) {
+                usuarios.add(usuario);
+            }
+        }
+        return usuarios;
+    }
+    
+    /**
+     * Sugere usuários ativos cujo nome ou e-mail começa pelo texto digitado.
+     * 
+     * <p>Enquanto as sugestões não forem carregadas, consulta o banco por prefixo.</p>
+     * 
+     * @param texto Texto digitado
+     * @param limite Número máximo de sugestões
+     * @return Usuários sugeridos (projeção de listagem)
+     */
+    public List<UsuarioResumo> sugerirAtivos(String texto, int limite) {
+        if (DIRETORIO.isPronto()) {
+            return DIRETORIO.sugerirAtivos(texto, limite);
+        }
+        
+        List<UsuarioResumo> usuarios = new ArrayList<>();
+        String sql = SELECT_RESUMO + "WHERE ativo = TRUE AND (nome LIKE ? OR email LIKE ?) ORDER BY nome LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, texto + "%");
+            stmt.setString(2, texto + "%");
+            stmt.setInt(3, limite);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, sql, RESUMO, usuarios::add);
+            }
+            
+        } catch (SQLException e) {
+            LogManager.error("Erro ao sugerir usuários", e);
+        }
+        
+        return usuarios;
+    }
+    
+    /**
+     * Carrega o diretório em memória e o filtro de e-mails com todos os
+     * usuários, em streaming.
+     * 
+     * <p>Chamado uma vez, em segundo plano, na inicialização.</p>
+     */
+    public void carregarDiretorio() {
+        long inicio = System.currentTimeMillis();
+        boolean carregado = false;
+        EMAILS.iniciarCarga();
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(SELECT_RESUMO, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper.mapearTodas(rs, SELECT_RESUMO, RESUMO, usuario -> {
+                    EMAILS.carregada(usuario.email());
+                    DIRETORIO.carregado(usuario);
+                });
+            }
+            
+            DIRETORIO.marcarPronto();
+            carregado = true;
+            LogManager.info("Diretório de usuários carregado: " + DIRETORIO.tamanho()
+                    + " em " + (System.currentTimeMillis() - inicio) + " ms");
+            
+        } catch (SQLException e) {
+            LogManager.error("Erro ao carregar diretório de usuários", e);
+        } finally {
+            EMAILS.concluirCarga(carregado);
+        }
+    }
+    
+    /**
+     * Reconstrói o filtro de e-mails com todos os usuários, incluindo os
+     * cadastrados por outros clientes.
+     */
+    private static void recarregarEmails() {
+        boolean carregado = false;
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT email FROM usuarios",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    EMAILS.carregada(rs.getString(1));
+                }
+            }
+            carregado = true;
+            
+        } catch (SQLException e) {
+            LogManager.error("Erro ao recarregar filtro de e-mails", e);
+        } finally {
+            EMAILS.concluirCarga(carregado);
+        }
+    }
+    
     /**
      * Verifica se um e-mail já está em uso.
      * 
+     * <p>Um e-mail presente no diretório em memória é respondido sem ir ao
+     * banco. Um e-mail ausente do diretório passa pelo filtro de e-mails: o
+     * diretório só conhece as gravações desta instância, e outro cliente pode
+     * ter cadastrado o e-mail. Um e-mail desconhecido do filtro recente é
+     * respondido como inexistente em memória — o caso comum de um novo
+     * cadastro ou de uma importação —; os demais são confirmados no banco,
+     * apenas a existência, e os confirmados como inexistentes ficam no cache
+     * negativo.</p>
+     * 
      * @param email E-mail a verificar
      * @return true se já existe
      */
     public boolean emailExiste(String email) {
-        return buscarPorEmail(email) != null;
+        if (DIRETORIO.isPronto() && DIRETORIO.emailExiste(email)) {
+            return true;
+        }
+        
+        if (EMAILS.precisaRecarregar()) {
+            Thread recarga = new Thread(UsuarioDAO::recarregarEmails, "RecargaEmails");
+            recarga.setDaemon(true);
+            recarga.start();
+        }
+        
+        try {
+            return EMAILS.existe(email);
+        } catch (SQLException e) {
+            LogManager.error("Erro ao verificar email", e);
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Retorna as estatísticas da verificação de e-mails.
+     * 
+     * @return Estatísticas do filtro e do cache negativo
+     */
+    public static VerificadorExistencia.Stats getEmailStats() {
+        return EMAILS.getStats();
+    }
+    
+    /**
+     * Consulta no banco a existência de um e-mail, sem carregar o usuário.
+     * 
+     * @param email E-mail (a collation do banco não diferencia maiúsculas)
+     * @return true se existe
+     * @throws SQLException Se a consulta falhar
+     */
+    private static boolean sondarEmail(String email) throws SQLException {
+        String sql = "SELECT 1 FROM usuarios WHERE email = ? LIMIT 1";
+        
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, email.toLowerCase(Locale.ROOT));
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+    
+    /**
+     * Lê o e-mail atual de um usuário.
+     * 
+     * @param conn Conexão
+     * @param id ID do usuário
+     * @return E-mail, ou null se o usuário não existir
+     * @throws SQLException Se a consulta falhar
+     */
+    private static String emailDoUsuario(Connection conn, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT email FROM usuarios WHERE id = ?")) {
+            stmt.setInt(1, id);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
     }
     
     /**
@@ -376,9 +731,9 @@ public class UsuarioDAO {
     public int contarTotal() {
         String sql = "SELECT COUNT(*) FROM usuarios";
         
-        try (Connection conn = DatabaseConnection.getInstance().getNewConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
             
             if (rs.next()) {
                 return rs.getInt(1);
@@ -392,31 +747,13 @@ public class UsuarioDAO {
     }
     
     /**
-     * Mapeia um ResultSet para objeto Usuario.
+     * Converte a entidade gravada na projeção mantida no diretório.
      * 
-     * @param rs ResultSet posicionado
-     * @return Objeto Usuario
-     * @throws SQLException Se houver erro no mapeamento
+     * @param usuario Usuário gravado
+     * @return Projeção de listagem
      */
-    private Usuario mapResultSetToUsuario(ResultSet rs) throws SQLException {
-        Usuario usuario = new Usuario();
-        usuario.setId(rs.getInt("id"));
-        usuario.setNome(rs.getString("nome"));
-        usuario.setEmail(rs.getString("email"));
-        usuario.setSenha(rs.getString("senha"));
-        usuario.setTipo(TipoUsuario.valueOf(rs.getString("tipo")));
-        usuario.setAtivo(rs.getBoolean("ativo"));
-        
-        Timestamp criadoEm = rs.getTimestamp("criado_em");
-        if (criadoEm != null) {
-            usuario.setCriadoEm(criadoEm.toLocalDateTime());
-        }
-        
-        Timestamp atualizadoEm = rs.getTimestamp("atualizado_em");
-        if (atualizadoEm != null) {
-            usuario.setAtualizadoEm(atualizadoEm.toLocalDateTime());
-        }
-        
-        return usuario;
+    private static UsuarioResumo resumo(Usuario usuario) {
+        return new UsuarioResumo(usuario.getId(), usuario.getNome(), usuario.getEmail(),
+                usuario.getTipo(), usuario.isAtivo());
     }
 }
@@ -0,0 +1,38 @@
+package com.biblioteca.model;
+
+/**
+ * Projeção de um usuário para telas de listagem e seleção.
+ * 
+ * <p>Não inclui o hash da senha; a entidade completa ({@link Usuario})
+ * é carregada somente para edição e autenticação.</p>
+ * 
+ * @param id Identificador do usuário
+ * @param nome Nome
+ * @param email E-mail
+ * @param tipo Tipo de usuário
+ * @param ativo Se o usuário está ativo
+ * 
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public record UsuarioResumo(int id, String nome, String email, TipoUsuario tipo, boolean ativo) {
+    
+    /**
+     * Retorna o número de dias permitidos para empréstimo.
+     * 
+     * @return Número de dias de empréstimo
+     */
+    public int diasEmprestimo() {
+        return tipo.getDiasEmprestimo();
+    }
+    
+    /**
+     * Retorna o texto exibido nas caixas de seleção.
+     * 
+     * @return Nome e e-mail
+     */
+    @Override
+    public String toString() {
+        return nome + " <" + email + ">";
+    }
+}
@@ -0,0 +1,291 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.utils.FiltroBloom;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificação de existência de chaves únicas (ex.: ISBN, e-mail) com filtro de Bloom.
+ *
+ * <p>Depois de uma carga, uma chave que o filtro não conhece é respondida
+ * como inexistente sem ir ao banco. Quando o filtro diz "talvez", a resposta é
+ * confirmada por uma consulta ao banco; as chaves confirmadas como
+ * inexistentes (falsos positivos ou chaves removidas) ficam num cache negativo
+ * limitado, que também expira após um TTL. O DAO registra as chaves gravadas
+ * com {@link #adicionada(String)} e as removidas com {@link #removida(String)}.</p>
+ *
+ * <p>O filtro só conhece as gravações desta instância: chaves gravadas por
+ * outros clientes não chegam a ele. Por isso a resposta "inexistente" do
+ * filtro só vale por um prazo após a carga; vencido o prazo, as verificações
+ * vão ao banco até o DAO recarregar o filtro ({@link #precisaRecarregar()}).
+ * Uma gravação de outro cliente dentro do prazo é barrada pela restrição
+ * UNIQUE do banco.</p>
+ *
+ * <p>As chaves são comparadas sem diferenciar maiúsculas nem espaços nas
+ * pontas, como a collation {@code utf8mb4_unicode_ci} do banco (ex.: o dígito
+ * verificador "x" ou "X" de um ISBN, ou um e-mail digitado com maiúsculas).</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public final class VerificadorExistencia {
+
+    /**
+     * Consulta ao banco que confirma a existência de uma chave.
+     */
+    @FunctionalInterface
+    interface Sonda {
+        boolean existe(String chave) throws SQLException;
+    }
+
+    /**
+     * Estatísticas do verificador.
+     *
+     * @param consultas Verificações feitas
+     * @param descartadasFiltro Respondidas como inexistentes pelo filtro, sem ir ao banco
+     * @param acertosNegativos Respondidas pelo cache negativo
+     * @param sondagens Consultas feitas ao banco
+     * @param falsosPositivos Sondagens em que o filtro dizia "talvez" e a chave nunca foi
+     *                        registrada (chaves removidas depois da carga não contam)
+     * @param taxaFalsoPositivoEstimada Taxa estimada pela ocupação do filtro
+     * @param tempoMedioSondagemMs Tempo médio de uma consulta ao banco
+     * @param tempoEconomizadoMs Estimativa do tempo poupado (respostas sem banco × tempo médio)
+     */
+    public record Stats(long consultas, long descartadasFiltro, long acertosNegativos, long sondagens,
+                        long falsosPositivos, double taxaFalsoPositivoEstimada,
+                        double tempoMedioSondagemMs, double tempoEconomizadoMs) {
+
+        /**
+         * @return Fração observada de chaves inexistentes que passaram pelo filtro (0 a 1)
+         */
+        public double taxaFalsoPositivo() {
+            long negativos = falsosPositivos + descartadasFiltro;
+            return negativos == 0 ? 0 : (double) falsosPositivos / negativos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Verificador{consultas=%d, descartadasFiltro=%d, acertosNegativos=%d, sondagens=%d, " +
+                "falsosPositivos=%d, taxaFalsoPositivo=%.2f%%, taxaEstimada=%.2f%%, sondagemMedia=%.3fms, " +
+                "tempoEconomizado=%.0fms}",
+                consultas, descartadasFiltro, acertosNegativos, sondagens, falsosPositivos,
+                taxaFalsoPositivo() * 100, taxaFalsoPositivoEstimada * 100, tempoMedioSondagemMs, tempoEconomizadoMs);
+        }
+    }
+
+    private final int capacidade;
+    private final double taxaFalsoPositivo;
+    private final Sonda sonda;
+    private final long ttlNanos;
+    private final long validadeNanos;
+    private final Map<String, Long> negativos;
+
+    private FiltroBloom filtro;
+
+    /** Filtro em construção por uma carga em andamento, ou null */
+    private FiltroBloom emCarga;
+
+    /** Chaves removidas desde a carga do filtro atual (o filtro não as esquece) */
+    private Set<String> removidas = new HashSet<>();
+    private Set<String> removidasNaCarga;
+
+    private boolean pronto;
+
+    /** Início da carga do filtro atual e da carga em andamento */
+    private long carregadoEm;
+    private long cargaIniciadaEm;
+
+    private long consultas;
+    private long descartadasFiltro;
+    private long acertosNegativos;
+    private long sondagens;
+    private long falsosPositivos;
+    private long tempoSondagensNanos;
+
+    /** Número de chaves adicionadas; uma sondagem concorrente com uma escrita não vira negativo */
+    private long versao;
+
+    /**
+     * Cria o verificador.
+     *
+     * @param capacidade Número esperado de chaves
+     * @param taxaFalsoPositivo Taxa de falsos positivos do filtro
+     * @param capacidadeNegativos Número máximo de chaves no cache negativo
+     * @param ttlMs Tempo de vida das entradas do cache negativo em milissegundos
+     * @param validadeMs Prazo, a partir do início de uma carga, em que o filtro responde às chaves ausentes
+     * @param sonda Consulta de confirmação no banco
+     */
+    VerificadorExistencia(int capacidade, double taxaFalsoPositivo, int capacidadeNegativos, long ttlMs,
+                          long validadeMs, Sonda sonda) {
+        this.capacidade = capacidade;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.filtro = new FiltroBloom(capacidade, taxaFalsoPositivo);
+        this.sonda = sonda;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.validadeNanos = TimeUnit.MILLISECONDS.toNanos(validadeMs);
+        this.negativos = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > capacidadeNegativos;
+            }
+        };
+    }
+
+    /**
+     * Verifica se a chave existe.
+     *
+     * @param chave Chave procurada
+     * @return true se existe
+     * @throws SQLException Se a consulta de confirmação falhar
+     */
+    boolean existe(String chave) throws SQLException {
+        chave = normalizar(chave);
+        long versaoInicial;
+        boolean filtrado;
+        synchronized (this) {
+            versaoInicial = versao;
+            consultas++;
+            filtrado = valido();
+            if (filtrado) {
+                if (!filtro.talvezContenha(chave)) {
+                    descartadasFiltro++;
+                    return false;
+                }
+                Long expiraEm = negativos.get(chave);
+                if (expiraEm != null) {
+                    if (expiraEm - System.nanoTime() >= 0) {
+                        acertosNegativos++;
+                        return false;
+                    }
+                    negativos.remove(chave);
+                }
+            }
+        }
+
+        long inicio = System.nanoTime();
+        boolean existe = sonda.existe(chave);
+        long duracao = System.nanoTime() - inicio;
+
+        synchronized (this) {
+            sondagens++;
+            tempoSondagensNanos += duracao;
+            if (filtrado && !existe) {
+                if (!removidas.contains(chave)) {
+                    falsosPositivos++;
+                }
+                if (versao == versaoInicial) {
+                    negativos.put(chave, System.nanoTime() + ttlNanos);
+                }
+            }
+        }
+        return existe;
+    }
+
+    /**
+     * Registra uma chave gravada (na carga inicial ou por uma escrita do DAO).
+     */
+    synchronized void adicionada(String chave) {
+        if (chave == null) {
+            return;
+        }
+        chave = normalizar(chave);
+        filtro.adicionar(chave);
+        if (emCarga != null) {
+            emCarga.adicionar(chave);
+            removidasNaCarga.remove(chave);
+        }
+        removidas.remove(chave);
+        negativos.remove(chave);
+        versao++;
+    }
+
+    /**
+     * Registra uma chave removida por uma escrita do DAO.
+     */
+    synchronized void removida(String chave) {
+        if (chave == null) {
+            return;
+        }
+        chave = normalizar(chave);
+        removidas.add(chave);
+        if (removidasNaCarga != null) {
+            removidasNaCarga.add(chave);
+        }
+    }
+
+    /**
+     * Indica se o prazo do filtro venceu e nenhuma carga está em andamento; a
+     * chamada que recebe true fica responsável pela carga
+     * ({@link #iniciarCarga()}, {@link #carregada(String)}, {@link #concluirCarga(boolean)}).
+     */
+    synchronized boolean precisaRecarregar() {
+        if (!pronto || emCarga != null || System.nanoTime() - carregadoEm < validadeNanos) {
+            return false;
+        }
+        iniciarCarga();
+        return true;
+    }
+
+    /**
+     * Começa a construir um novo filtro; o atual continua respondendo até a conclusão.
+     */
+    synchronized void iniciarCarga() {
+        emCarga = new FiltroBloom(capacidade, taxaFalsoPositivo);
+        removidasNaCarga = new HashSet<>();
+        cargaIniciadaEm = System.nanoTime();
+    }
+
+    /**
+     * Registra uma chave lida do banco pela carga em andamento.
+     */
+    synchronized void carregada(String chave) {
+        if (chave != null && emCarga != null) {
+            emCarga.adicionar(normalizar(chave));
+        }
+    }
+
+    /**
+     * Conclui a carga: se bem-sucedida, o novo filtro passa a responder às
+     * chaves ausentes pelo prazo de validade, contado do início da carga.
+     */
+    synchronized void concluirCarga(boolean sucesso) {
+        if (emCarga == null) {
+            return;
+        }
+        if (sucesso) {
+            filtro = emCarga;
+            removidas = removidasNaCarga;
+            negativos.clear();
+            carregadoEm = cargaIniciadaEm;
+            pronto = true;
+        }
+        emCarga = null;
+        removidasNaCarga = null;
+    }
+
+    /**
+     * @return Estatísticas atuais
+     */
+    synchronized Stats getStats() {
+        double medioNanos = sondagens == 0 ? 0 : (double) tempoSondagensNanos / sondagens;
+        double economizado = (descartadasFiltro + acertosNegativos) * medioNanos;
+        return new Stats(consultas, descartadasFiltro, acertosNegativos, sondagens, falsosPositivos,
+                filtro.taxaFalsoPositivoEstimada(), medioNanos / 1_000_000, economizado / 1_000_000);
+    }
+
+    /** O filtro responde às chaves ausentes só depois de uma carga e dentro do prazo */
+    private boolean valido() {
+        return pronto && System.nanoTime() - carregadoEm < validadeNanos;
+    }
+
+    private static String normalizar(String chave) {
+        return chave.strip().toUpperCase(Locale.ROOT);
+    }
+}
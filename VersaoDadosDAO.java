@@ -0,0 +1,131 @@
+package com.biblioteca.dao;
+
+import com.biblioteca.utils.DatabaseConnection;
+import com.biblioteca.utils.LogManager;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Data Access Object para a versão dos dados de origem dos relatórios.
+ *
+ * <p>A versão de uma tabela é uma assinatura barata do seu conteúdo: número de
+ * linhas (ou maior ID) e maior {@code atualizado_em}. Se a versão de todas as
+ * tabelas de um relatório não mudou, um relatório gerado antes com os mesmos
+ * parâmetros continua válido. Em {@code emprestimos}, que é grande, a
+ * assinatura usa apenas índices (maior ID e {@code idx_atualizado_em}). A
+ * consolidação diária, que não tem coluna de atualização e cresce todo dia, é
+ * assinada apenas no período do relatório, pela faixa da chave primária.</p>
+ *
+ * @author Sistema Biblioteca Digital
+ * @version 1.0
+ */
+public class VersaoDadosDAO {
+
+    /**
+     * Tabelas de origem dos relatórios.
+     */
+    public enum Fonte {
+
+        LIVROS("SELECT CONCAT(COUNT(*), '/', IFNULL(MAX(atualizado_em), '')) FROM livros",
+                "SELECT MAX(atualizado_em) FROM livros", false),
+
+        USUARIOS("SELECT CONCAT(COUNT(*), '/', IFNULL(MAX(atualizado_em), '')) FROM usuarios",
+                "SELECT MAX(atualizado_em) FROM usuarios", false),
+
+        /** Não há exclusão de empréstimos: o maior ID cobre as inserções */
+        EMPRESTIMOS("SELECT CONCAT(IFNULL(MAX(id), 0), '/', IFNULL(MAX(atualizado_em), '')) FROM emprestimos",
+                "SELECT MAX(atualizado_em) FROM emprestimos", false),
+
+        /** Sem coluna de atualização: soma de verificação dos nomes (poucas linhas) */
+        CATEGORIAS("SELECT CONCAT(COUNT(*), '/', IFNULL(SUM(CRC32(CONCAT(id, '/', nome))), 0)) FROM categorias",
+                null, false),
+
+        /**
+         * Sem coluna de atualização: soma de verificação dos totais (dezenas de
+         * linhas por dia), restrita ao período quando informado
+         */
+        CONSOLIDACAO("SELECT CONCAT(COUNT(*), '/', IFNULL(SUM(CRC32(CONCAT(dia, '/', categoria_id, '/', tipo_usuario, " +
+                "'/', emprestimos, '/', devolucoes, '/', atrasos))), 0)) FROM emprestimos_diarios",
+                null, true);
+
+        private final String versao;
+        private final String ultimaAtualizacao;
+        private final boolean porDia;
+
+        Fonte(String versao, String ultimaAtualizacao, boolean porDia) {
+            this.versao = versao;
+            this.ultimaAtualizacao = ultimaAtualizacao;
+            this.porDia = porDia;
+        }
+    }
+
+    /**
+     * Período de datas (inclusive) a que se restringem as fontes organizadas por dia.
+     *
+     * @param inicio Primeiro dia
+     * @param fim Último dia
+     */
+    public record Periodo(LocalDate inicio, LocalDate fim) { }
+
+    /**
+     * Versão de um conjunto de tabelas.
+     *
+     * @param valor Assinatura das tabelas, na ordem das fontes
+     * @param estavel false se alguma tabela foi alterada no último segundo: como
+     *                {@code atualizado_em} tem resolução de segundos, uma nova
+     *                alteração no mesmo segundo não mudaria a versão
+     */
+    public record Versao(String valor, boolean estavel) { }
+
+    /**
+     * Calcula a versão das tabelas em uma única consulta, restringindo as
+     * fontes organizadas por dia ao período do relatório.
+     *
+     * @param fontes Tabelas de origem
+     * @param periodo Período do relatório, ou null para as tabelas inteiras
+     * @return Versão, ou null em caso de erro
+     */
+    public Versao versao(Set<Fonte> fontes, Periodo periodo) {
+        StringBuilder sql = new StringBuilder("SELECT CONCAT_WS('|'");
+        StringBuilder recente = new StringBuilder("FALSE");
+        List<LocalDate> datas = new ArrayList<>();
+        for (Fonte fonte : Fonte.values()) {
+            if (!fontes.contains(fonte)) continue;
+            sql.append(", (").append(fonte.versao);
+            if (fonte.porDia && periodo != null) {
+                sql.append(" WHERE dia BETWEEN ? AND ?");
+                datas.add(periodo.inicio());
+                datas.add(periodo.fim());
+            }
+            sql.append(')');
+            if (fonte.ultimaAtualizacao != null) {
+                recente.append(" OR IFNULL((").append(fonte.ultimaAtualizacao)
+                       .append(") >= NOW() - INTERVAL 1 SECOND, FALSE)");
+            }
+        }
+        sql.append("), ").append(recente);
+
+        try (Connection conn = DatabaseConnection.getInstance().getPooledConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            for (int i = 0; i < datas.size(); i++) {
+                stmt.setDate(i + 1, Date.valueOf(datas.get(i)));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Versao(rs.getString(1), !rs.getBoolean(2));
+                }
+            }
+
+        } catch (SQLException e) {
+            LogManager.error("Erro ao consultar versão dos dados", e);
+        }
+
+        return null;
+    }
+}
@@ -14,5 +14,6 @@ module com.biblioteca {
     exports com.biblioteca.controller;
     exports com.biblioteca.model;
     exports com.biblioteca.dao;
+    exports com.biblioteca.service;
     exports com.biblioteca.utils;
 }
@@ -35,7 +35,8 @@ CREATE TABLE IF NOT EXISTS usuarios (
     criado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     atualizado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_email (email),
-    INDEX idx_tipo (tipo)
+    INDEX idx_tipo (tipo),
+    INDEX idx_nome (nome)
 ) ENGINE=InnoDB;
 
 -- ============================================
@@ -82,7 +83,56 @@ CREATE TABLE IF NOT EXISTS emprestimos (
     INDEX idx_usuario (usuario_id),
     INDEX idx_livro (livro_id),
     INDEX idx_status (status),
-    INDEX idx_data_devolucao (data_devolucao_prevista)
+    INDEX idx_status_vencimento (status, data_devolucao_prevista, id),
+    INDEX idx_data_devolucao (data_devolucao_prevista),
+    INDEX idx_data_emprestimo (data_emprestimo),
+    INDEX idx_data_devolucao_real (data_devolucao_real),
+    INDEX idx_atualizado_em (atualizado_em)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- TABELA: emprestimos_diarios
+-- Consolidação diária da circulação por categoria e tipo de usuário.
+-- Mantida pelas procedures de empréstimo e devolução e pela marcação de
+-- atrasados; dias antigos são recalculados pelo serviço de consolidação.
+-- Um atraso é contado no dia seguinte ao vencimento, quando o empréstimo
+-- é marcado como ATRASADO ou devolvido depois do prazo sem ter sido marcado.
+-- ============================================
+CREATE TABLE IF NOT EXISTS emprestimos_diarios (
+    dia DATE NOT NULL,
+    categoria_id INT NOT NULL,
+    tipo_usuario ENUM('ALUNO', 'PROFESSOR', 'ADMINISTRADOR') NOT NULL,
+    emprestimos INT NOT NULL DEFAULT 0,
+    devolucoes INT NOT NULL DEFAULT 0,
+    atrasos INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dia, categoria_id, tipo_usuario)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- TABELA: notificacoes_emprestimos
+-- Último aviso emitido para cada empréstimo (vencendo ou atrasado).
+-- Um aviso só é emitido quando o estado do empréstimo muda; a linha é
+-- removida quando o empréstimo sai das duas situações (devolução ou
+-- renovação), para que um novo vencimento volte a ser avisado.
+-- ============================================
+CREATE TABLE IF NOT EXISTS notificacoes_emprestimos (
+    emprestimo_id INT PRIMARY KEY,
+    estado ENUM('VENCENDO', 'ATRASADO') NOT NULL,
+    notificado_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_notificacao_emprestimo FOREIGN KEY (emprestimo_id) 
+        REFERENCES emprestimos(id) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB;
+
+-- ============================================
+-- TABELA: marcas_processamento
+-- Marca d'água de processamentos incrementais: o dia e o instante (hora do
+-- banco) da última execução concluída. A execução seguinte processa apenas
+-- o que mudou desde então.
+-- ============================================
+CREATE TABLE IF NOT EXISTS marcas_processamento (
+    nome VARCHAR(50) PRIMARY KEY,
+    ultimo_dia DATE NOT NULL,
+    ultima_execucao TIMESTAMP NOT NULL
 ) ENGINE=InnoDB;
 
 -- ============================================
@@ -201,6 +251,9 @@ ORDER BY total_emprestimos DESC;
 DELIMITER //
 
 -- Procedure: Realizar empréstimo
+-- Executa verificação, inserção e baixa de estoque em uma única transação;
+-- o bloqueio FOR UPDATE na linha do livro serializa empréstimos concorrentes.
+DROP PROCEDURE IF EXISTS sp_realizar_emprestimo //
 CREATE PROCEDURE sp_realizar_emprestimo(
     IN p_usuario_id INT,
     IN p_livro_id INT,
@@ -208,36 +261,70 @@ CREATE PROCEDURE sp_realizar_emprestimo(
 )
 BEGIN
     DECLARE v_quantidade_disponivel INT;
+    DECLARE v_categoria_id INT;
+    DECLARE v_emprestimo_id INT;
+    
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+    
+    START TRANSACTION;
     
     -- Verificar disponibilidade
-    SELECT quantidade_disponivel INTO v_quantidade_disponivel
+    SELECT quantidade_disponivel, categoria_id INTO v_quantidade_disponivel, v_categoria_id
     FROM livros WHERE id = p_livro_id FOR UPDATE;
     
     IF v_quantidade_disponivel > 0 THEN
         -- Criar empréstimo
         INSERT INTO emprestimos (usuario_id, livro_id, data_emprestimo, data_devolucao_prevista, status)
         VALUES (p_usuario_id, p_livro_id, CURDATE(), DATE_ADD(CURDATE(), INTERVAL p_dias_emprestimo DAY), 'ATIVO');
+        SET v_emprestimo_id = LAST_INSERT_ID();
         
         -- Atualizar quantidade disponível
         UPDATE livros SET quantidade_disponivel = quantidade_disponivel - 1 WHERE id = p_livro_id;
         
-        SELECT 'SUCCESS' AS resultado, LAST_INSERT_ID() AS emprestimo_id;
+        -- Consolidação diária
+        INSERT INTO emprestimos_diarios (dia, categoria_id, tipo_usuario, emprestimos)
+        SELECT CURDATE(), v_categoria_id, tipo, 1 FROM usuarios WHERE id = p_usuario_id
+        ON DUPLICATE KEY UPDATE emprestimos = emprestimos + 1;
+        
+        COMMIT;
+        
+        SELECT 'SUCCESS' AS resultado, NULL AS mensagem, v_emprestimo_id AS emprestimo_id,
+               CURDATE() AS data_emprestimo,
+               DATE_ADD(CURDATE(), INTERVAL p_dias_emprestimo DAY) AS data_devolucao_prevista;
     ELSE
+        ROLLBACK;
         SELECT 'ERROR' AS resultado, 'Livro não disponível' AS mensagem;
     END IF;
 END //
 
 -- Procedure: Devolver livro
+-- Baixa do empréstimo e reposição do estoque na mesma transação.
+DROP PROCEDURE IF EXISTS sp_devolver_livro //
 CREATE PROCEDURE sp_devolver_livro(
     IN p_emprestimo_id INT
 )
 BEGIN
     DECLARE v_livro_id INT;
+    DECLARE v_usuario_id INT;
     DECLARE v_status VARCHAR(20);
+    DECLARE v_prevista DATE;
+    DECLARE v_repostos INT DEFAULT 0;
+    
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+    
+    START TRANSACTION;
     
     -- Buscar informações do empréstimo
-    SELECT livro_id, status INTO v_livro_id, v_status
-    FROM emprestimos WHERE id = p_emprestimo_id;
+    SELECT livro_id, usuario_id, status, data_devolucao_prevista INTO v_livro_id, v_usuario_id, v_status, v_prevista
+    FROM emprestimos WHERE id = p_emprestimo_id FOR UPDATE;
     
     IF v_status = 'ATIVO' OR v_status = 'ATRASADO' THEN
         -- Atualizar empréstimo
@@ -246,22 +333,69 @@ BEGIN
         WHERE id = p_emprestimo_id;
         
         -- Atualizar quantidade disponível
-        UPDATE livros SET quantidade_disponivel = quantidade_disponivel + 1 WHERE id = v_livro_id;
+        UPDATE livros SET quantidade_disponivel = quantidade_disponivel + 1
+        WHERE id = v_livro_id AND quantidade_disponivel < quantidade_total;
+        SET v_repostos = ROW_COUNT();
+        
+        -- Consolidação diária: a devolução e, se o empréstimo venceu sem ter sido
+        -- marcado como ATRASADO, o atraso no dia seguinte ao vencimento
+        INSERT INTO emprestimos_diarios (dia, categoria_id, tipo_usuario, devolucoes)
+        SELECT CURDATE(), l.categoria_id, u.tipo, 1 FROM livros l, usuarios u
+        WHERE l.id = v_livro_id AND u.id = v_usuario_id
+        ON DUPLICATE KEY UPDATE devolucoes = devolucoes + 1;
+        
+        IF v_status = 'ATIVO' AND v_prevista < CURDATE() THEN
+            INSERT INTO emprestimos_diarios (dia, categoria_id, tipo_usuario, atrasos)
+            SELECT DATE_ADD(v_prevista, INTERVAL 1 DAY), l.categoria_id, u.tipo, 1 FROM livros l, usuarios u
+            WHERE l.id = v_livro_id AND u.id = v_usuario_id
+            ON DUPLICATE KEY UPDATE atrasos = atrasos + 1;
+        END IF;
         
-        SELECT 'SUCCESS' AS resultado;
+        COMMIT;
+        
+        -- atrasado: se o prazo havia vencido (usado pelos contadores do painel)
+        -- estoque_reposto: se a unidade voltou ao estoque (não passa do total)
+        SELECT 'SUCCESS' AS resultado, NULL AS mensagem, v_livro_id AS livro_id,
+               v_prevista < CURDATE() AS atrasado, v_repostos > 0 AS estoque_reposto;
     ELSE
+        ROLLBACK;
         SELECT 'ERROR' AS resultado, 'Empréstimo já devolvido' AS mensagem;
     END IF;
 END //
 
 -- Procedure: Atualizar status de empréstimos atrasados
+-- Os atrasos entram na consolidação diária na mesma transação da marcação.
+DROP PROCEDURE IF EXISTS sp_atualizar_emprestimos_atrasados //
 CREATE PROCEDURE sp_atualizar_emprestimos_atrasados()
 BEGIN
+    DECLARE v_hoje DATE DEFAULT CURDATE();
+    DECLARE v_atualizados INT;
+    
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+    
+    START TRANSACTION;
+    
+    INSERT INTO emprestimos_diarios (dia, categoria_id, tipo_usuario, atrasos)
+    SELECT DATE_ADD(e.data_devolucao_prevista, INTERVAL 1 DAY), l.categoria_id, u.tipo, COUNT(*)
+    FROM emprestimos e
+    INNER JOIN livros l ON e.livro_id = l.id
+    INNER JOIN usuarios u ON e.usuario_id = u.id
+    WHERE e.status = 'ATIVO' AND e.data_devolucao_prevista < v_hoje
+    GROUP BY e.data_devolucao_prevista, l.categoria_id, u.tipo
+    ON DUPLICATE KEY UPDATE atrasos = atrasos + VALUES(atrasos);
+    
     UPDATE emprestimos 
     SET status = 'ATRASADO'
-    WHERE status = 'ATIVO' AND data_devolucao_prevista < CURDATE();
+    WHERE status = 'ATIVO' AND data_devolucao_prevista < v_hoje;
+    SET v_atualizados = ROW_COUNT();
+    
+    COMMIT;
     
-    SELECT ROW_COUNT() AS emprestimos_atualizados;
+    SELECT v_atualizados AS emprestimos_atualizados;
 END //
 
 DELIMITER ;